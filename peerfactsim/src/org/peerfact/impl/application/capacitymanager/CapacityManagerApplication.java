@@ -27,6 +27,8 @@ import static org.peerfact.impl.application.capacitymanager.CapacityManagerAppli
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
@@ -52,6 +54,8 @@ import org.peerfact.impl.service.skipgraph.SkipgraphServiceInterface.SearchQuery
 import org.peerfact.impl.service.skipgraph.analyzer.SkipgraphMonitor;
 import org.peerfact.impl.service.skipgraph.node.SkipgraphElement;
 import org.peerfact.impl.service.skipgraph.util.SGUtil;
+import org.peerfact.impl.service.skipgraph.util.ZOrderBox;
+import org.peerfact.impl.service.skipgraph.util.ZOrderCurve;
 import org.peerfact.impl.simengine.Simulator;
 import org.peerfact.impl.util.communicationmanager.ApplicationContact;
 /**
@@ -65,6 +69,11 @@ public class CapacityManagerApplication extends AbstractApplication {
 
 	private static int stdDevDivisor = CapacityManagerApplicationConstants.getMaxCapacity()/50;
 	
+	/** composite index: shared by all peers, see {@link #getCompositeCurve()} */
+	private static ZOrderCurve compositeCurve;
+	
+	private static int compositeCurveDomain;
+	
 	/* *******************************************
 	 ****************** FIELDS *******************
 	 *********************************************/
@@ -292,6 +301,9 @@ public class CapacityManagerApplication extends AbstractApplication {
 		Map<String, SkipgraphElement> newCapacities = new LinkedHashMap<>();
 		Map<String, SkipgraphElement> oldCapacities = new LinkedHashMap<>(lastAnnouncedCapacities);
 		
+		ZOrderCurve compositeCurve = getCompositeCurve();
+		long[] compositeValues = compositeCurve == null ? null : new long[compositeCurve.getNumberOfDimensions()];
+		
 		log("old capacities="+oldCapacities, false);
 		log("storing:", false);
 		for (AvailableCapacities cap : AvailableCapacities.values()) {
@@ -302,6 +314,20 @@ public class CapacityManagerApplication extends AbstractApplication {
 			if (logging || false)
 				System.out.println("  - "+element);
 			newCapacities.put(dimension, element);
+			if (compositeValues != null && cap.ordinal() < compositeValues.length) {
+				compositeValues[cap.ordinal()] = value.setScale(0, RoundingMode.HALF_UP).longValue();
+			}
+		}
+		
+		// composite index: the combination of the capacities as one additional element
+		if (compositeCurve != null) {
+			SkipgraphElement element = new SkipgraphElement(
+					getCompositeDimension(), 
+					SGUtil.toDecimal(compositeCurve.encode(compositeValues)), 
+					localContact);
+			if (logging || false)
+				System.out.println("  - "+element);
+			newCapacities.put(element.getDimension(), element);
 		}
 		
 		log("updating:\ninput capacities="+newCapacities+"\ndelete capacities="+oldCapacities, false);
@@ -421,7 +447,11 @@ public class CapacityManagerApplication extends AbstractApplication {
 		//int dimensionallity = AvailableCapacities.values().length;
 		int numberOfDimensions = Simulator.getRandom().nextInt(100);
 		//System.out.println(numberOfDimensions);
-		if (numberOfDimensions < 15) {
+		if (CapacityManagerApplicationConstants.searchDimensions > 0) {
+			numberOfDimensions = Math.min(CapacityManagerApplicationConstants.searchDimensions, 
+					AvailableCapacities.values().length);
+		}
+		else if (numberOfDimensions < 15) {
 			numberOfDimensions = 1;
 		}
 		else if (numberOfDimensions < 50) {
@@ -445,8 +475,14 @@ public class CapacityManagerApplication extends AbstractApplication {
 		}
 		log(queries.toString());
 		
+		// composite index: search the key ranges of the box instead of one range per capacity
+		List<SearchQuery> compositeQueries = toCompositeQueries(queries);
+		if (compositeQueries != null) {
+			log("composite queries="+compositeQueries);
+		}
+		
 		skipgraphService.search(
-				queries,
+				compositeQueries != null ? compositeQueries : queries,
 				k, 
 				new SearchQueryCallback() {
 
@@ -480,6 +516,92 @@ public class CapacityManagerApplication extends AbstractApplication {
 	
 	
 	
+	/* *************************************************
+	 **************** COMPOSITE INDEX ******************
+	 ***************************************************/
+
+	/**
+	 * @return	the Z-order curve over the first compositeIndexDimensions capacities or
+	 * 			null if the composite index is disabled
+	 */
+	private static ZOrderCurve getCompositeCurve() {
+		int numberOfDimensions = Math.min(CapacityManagerApplicationConstants.compositeIndexDimensions,
+				AvailableCapacities.values().length);
+		if (numberOfDimensions < 2) {
+			return null;
+		}
+		if (compositeCurve == null 
+				|| compositeCurve.getNumberOfDimensions() != numberOfDimensions
+				|| compositeCurveDomain != CapacityManagerApplicationConstants.getMaxCapacity()) {
+			compositeCurveDomain = CapacityManagerApplicationConstants.getMaxCapacity();
+			compositeCurve = new ZOrderCurve(numberOfDimensions, compositeCurveDomain + 1);
+		}
+		return compositeCurve;
+	}
+	
+	
+	/**
+	 * @return	the name of the composite index dimension, e.g. "Z(CPU,RAM)"
+	 */
+	private static String getCompositeDimension() {
+		StringBuilder sb = new StringBuilder("Z(");
+		for (int i = 0; i < getCompositeCurve().getNumberOfDimensions(); i++) {
+			sb.append(i > 0 ? "," : "").append(AvailableCapacities.values()[i]);
+		}
+		return sb.append(")").toString();
+	}
+	
+	
+	/**
+	 * translates a multi-dimensional search into key range queries on the composite index
+	 * @return	null if the queries can't be answered by the composite index
+	 */
+	private static List<SearchQuery> toCompositeQueries(List<SearchQuery> queries) {
+		ZOrderCurve curve = getCompositeCurve();
+		if (curve == null || queries.size() < 2) {
+			return null;
+		}
+		int maxCapacity = CapacityManagerApplicationConstants.getMaxCapacity();
+		long[] start = new long[curve.getNumberOfDimensions()];
+		long[] end = new long[curve.getNumberOfDimensions()];
+		Arrays.fill(end, maxCapacity);
+		for (SearchQuery query : queries) {
+			int i = 0;
+			while (i < start.length && !AvailableCapacities.values()[i].toString().equals(query.getDimension())) {
+				i++;
+			}
+			if (i == start.length) {
+				// the capacity is not part of the composite index
+				return null;
+			}
+			if (query.getDecimalRangeStart() != null) {
+				start[i] = query.getDecimalRangeStart().setScale(0, RoundingMode.CEILING).longValue();
+			}
+			if (query.getDecimalRangeEnd() != null) {
+				BigDecimal rangeEnd = query.getDecimalRangeEnd();
+				end[i] = rangeEnd.setScale(0, RoundingMode.FLOOR).longValue();
+				if (query.hasOpenRangeEnd() && rangeEnd.compareTo(BigDecimal.valueOf(end[i])) == 0) {
+					end[i]--;
+				}
+			}
+		}
+		List<long[]> ranges = curve.decompose(start, end, CapacityManagerApplicationConstants.compositeIndexMaxRanges);
+		if (ranges.isEmpty()) {
+			return null;
+		}
+		// the ranges cover more than the box -> the nodes filter the keys by the box
+		ZOrderBox box = curve.getBox(start, end);
+		List<SearchQuery> compositeQueries = new LinkedList<>();
+		for (long[] range : ranges) {
+			SearchQuery compositeQuery = new SearchQuery(getCompositeDimension(), range[0], range[1], 0, false);
+			compositeQuery.setBox(box);
+			compositeQueries.add(compositeQuery);
+		}
+		return compositeQueries;
+	}
+	
+	
+	
 	/* ********************************************************************
 	 * ******************************************************************** 
 	 * STATIC FUNCTIONS TO GENERATE RANDOM CAPACITIES FOR DIFFERENT NEEDS *
@@ -70,6 +70,16 @@ public class CapacityManagerApplicationConstants {
 
 	public static int kSearch = -1;
 
+	/** the number of capacities per search, 0 -> random */
+	public static int searchDimensions = 0;
+
+	/** composite index: the number of capacities (in the order of AvailableCapacities) which are
+	 *  additionally stored as one Z-order key. 0 or 1 -> no composite index */
+	public static int compositeIndexDimensions = 0;
+
+	/** composite index: the maximum number of key ranges per search */
+	public static int compositeIndexMaxRanges = 16;
+
 	/** Interval for a store capacity operation. */
 	private static long storeCapacityInterval = 2*Simulator.MINUTE_UNIT;	
 	
@@ -140,6 +150,18 @@ public class CapacityManagerApplicationConstants {
 		kSearch = arg;
 	}
 	
+	public static void setSearchDimensions(int arg) {
+		searchDimensions = arg;
+	}
+	
+	public static void setCompositeIndexDimensions(int arg) {
+		compositeIndexDimensions = arg;
+	}
+	
+	public static void setCompositeIndexMaxRanges(int arg) {
+		compositeIndexMaxRanges = arg;
+	}
+	
 	public static void setStoreCapacityInterval(long arg) {
 		// if the user uses a timeout interval which is not very clever - warn him!
 		if( arg < Simulator.SECOND_UNIT * 5) {
@@ -116,6 +116,24 @@ public class CapacityManagerApplicationFactory implements ComponentFactory {
 	}
 
 
+	public static void setSearchDimensions(int arg) {
+		System.out.println("INFO: capacities per search: "+(arg>0?arg:"random"));
+		CapacityManagerApplicationConstants.setSearchDimensions(arg);
+	}
+
+
+	public static void setCompositeIndexDimensions(int arg) {
+		System.out.println("INFO: capacities in the composite index: "+(arg>1?arg:"none"));
+		CapacityManagerApplicationConstants.setCompositeIndexDimensions(arg);
+	}
+
+
+	public static void setCompositeIndexMaxRanges(int arg) {
+		System.out.println("INFO: maximum number of composite index ranges per search: "+arg);
+		CapacityManagerApplicationConstants.setCompositeIndexMaxRanges(arg);
+	}
+
+
 	public static void setStoreCapacityInterval(long arg) {
 		System.out.println("INFO: setting store capacity interval to: "+arg/Simulator.SECOND_UNIT+"s");
 		CapacityManagerApplicationConstants.setStoreCapacityInterval(arg);
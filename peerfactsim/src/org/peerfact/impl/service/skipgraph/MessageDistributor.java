@@ -22,6 +22,8 @@
 
 package org.peerfact.impl.service.skipgraph;
 
+import java.util.Collections;
+
 import org.peerfact.api.common.Host;
 import org.peerfact.impl.service.skipgraph.messages.AbstractSkipgraphMessage;
 import org.peerfact.impl.service.skipgraph.messages.AbstractSkipgraphServiceMessage;
@@ -29,6 +31,7 @@ import org.peerfact.impl.service.skipgraph.messages.DefaultNACKMessage;
 import org.peerfact.impl.service.skipgraph.messages.JoinRequestMessage;
 import org.peerfact.impl.service.skipgraph.messages.PingMessage;
 import org.peerfact.impl.service.skipgraph.messages.PongMessage;
+import org.peerfact.impl.service.skipgraph.messages.SearchCancelMessage;
 import org.peerfact.impl.service.skipgraph.messages.SearchQueryACKMessage;
 import org.peerfact.impl.service.skipgraph.messages.SearchQueryMessage;
 import org.peerfact.impl.service.skipgraph.messages.SearchQueryNACKMessage;
@@ -41,6 +44,7 @@ import org.peerfact.impl.service.skipgraph.node.SkipgraphNodeController;
 import org.peerfact.impl.service.skipgraph.node.messages.AbstractSkipgraphNodeRequestMessage;
 import org.peerfact.impl.service.skipgraph.node.messages.LoadBalancingMessage;
 import org.peerfact.impl.service.skipgraph.node.messages.HandshakeMessage;
+import org.peerfact.impl.service.skipgraph.node.messages.HistogramGossipMessage;
 import org.peerfact.impl.service.skipgraph.node.messages.JoinLevelNotifyMessage;
 import org.peerfact.impl.service.skipgraph.node.messages.JoinLevelReplyMessage;
 import org.peerfact.impl.service.skipgraph.node.messages.JoinLevelRequestMessage;
@@ -153,6 +157,13 @@ public class MessageDistributor implements AppMessageHandlerInterface {
 							.executeSearchParallelResult((SearchResultParallelMessage)message.getPayload());
 					sendResponse = false;
 				}
+				else if (message instanceof SearchCancelMessage) {
+					// doesn't send (N)ACK
+					SearchCancelMessage cancelMsg = (SearchCancelMessage)message.getPayload();
+					service.cancelSearch(cancelMsg.getRequesterContact(), cancelMsg.getRequestOperationID(),
+							Collections.<ApplicationContact>emptySet());
+					sendResponse = false;
+				}
 				else if (message instanceof JoinRequestMessage) {
 					responseMsg = service.getOperationManager()
 							.executeJoinRequest((JoinRequestMessage)message.getPayload());
@@ -215,7 +226,8 @@ public class MessageDistributor implements AppMessageHandlerInterface {
 					service.log(message.toString());
 				SkipgraphNodeController nodeController = 
 						service.getNodeControllerForKey(requestMsg.getReceivingNodeID(), requestMsg);
-				// test whether the addressed SkipgraphNode is available
+				// test whether the addressed SkipgraphNode is available. if not, the sender receives a 
+				// DefaultNACK, e.g. if a directly addressed node has moved to another peer.
 				if (nodeController != null) {
 					nodeController.incrementIncomingMessages();
 					if (requestMsg instanceof UpdateForwardingMessage) {
@@ -238,6 +250,10 @@ public class MessageDistributor implements AppMessageHandlerInterface {
 						responseMsg = nodeController.getOperationResponder()
 								.executeRemainingSize((RemainingSizeMessage)requestMsg.getPayload());
 					}
+					else if (message instanceof HistogramGossipMessage) {
+						responseMsg = nodeController.getOperationResponder()
+								.executeHistogramGossip((HistogramGossipMessage)requestMsg.getPayload());
+					}
 					else if (requestMsg instanceof JoinLevelRequestMessage) {
 						responseMsg = nodeController.getOperationResponder()
 								.executeJoinLevelRequest((JoinLevelRequestMessage)requestMsg.getPayload());
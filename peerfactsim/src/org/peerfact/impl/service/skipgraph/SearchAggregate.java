@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2012-2013 Open Source Community - <http://www.peerfact.org>
+ * Copyright (c) 2011-2012 University of Paderborn - UPB
+ * Copyright (c) 2005-2011 KOM - Multimedia Communications Lab
+ *
+ * This file is part of PeerfactSim.KOM.
+ * 
+ * PeerfactSim.KOM is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ * 
+ * PeerfactSim.KOM is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with PeerfactSim.KOM.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.peerfact.impl.service.skipgraph;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import org.peerfact.Constants;
+import org.peerfact.impl.service.skipgraph.util.SGUtil;
+
+/**
+ * A fixed-size summary of the values in a range: count, minimum, maximum and
+ * optionally a histogram with equally wide buckets. Partial aggregates of several
+ * nodes are combined with {@link #merge(SearchAggregate)}.
+ *
+ * @author Andreas Funke
+ * @version 1.0, 03/22/2017
+ */
+public class SearchAggregate {
+
+	/* *******************************************
+	 ****************** FIELDS *******************
+	 ******************************************* */
+
+	/** fixed-point, inclusive */
+	private final long histogramStart;
+	/** fixed-point, inclusive */
+	private final long histogramEnd;
+	private final int[] histogram;
+
+	private int count = 0;
+	/** fixed-point, POSITIVE_INFINITY if empty */
+	private long min = SkipgraphServiceConstants.POSITIVE_INFINITY;
+	/** fixed-point, NEGATIVE_INFINITY if empty */
+	private long max = SkipgraphServiceConstants.NEGATIVE_INFINITY;
+
+
+
+	/* *************************************************
+	 ****************** CONSTRUCTORS *******************
+	 ************************************************* */
+
+	/**
+	 * an aggregate without a histogram
+	 */
+	public SearchAggregate() {
+		this(0, 0, 0);
+	}
+
+	/**
+	 * @param histogramStart	fixed-point, inclusive
+	 * @param histogramEnd		fixed-point, inclusive
+	 * @param buckets			number of histogram buckets, 0 -> no histogram
+	 */
+	public SearchAggregate(long histogramStart, long histogramEnd, int buckets) {
+		if (buckets < 0) {
+			throw new IllegalArgumentException("negative number of buckets: "+buckets);
+		}
+		if (buckets > 0 && (histogramStart == SkipgraphServiceConstants.NEGATIVE_INFINITY
+				|| histogramEnd == SkipgraphServiceConstants.POSITIVE_INFINITY
+				|| histogramStart > histogramEnd)) {
+			throw new IllegalArgumentException("a histogram needs a finite range: "
+				+SGUtil.formatValue(histogramStart)+", "+SGUtil.formatValue(histogramEnd));
+		}
+		this.histogramStart = histogramStart;
+		this.histogramEnd = histogramEnd;
+		this.histogram = new int[buckets];
+	}
+
+
+
+	/* ************************************************
+	 ****************** GETTERS ***********************
+	 ************************************************ */
+
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * @return	fixed-point, POSITIVE_INFINITY if there are no values
+	 */
+	public long getMin() {
+		return min;
+	}
+
+	/**
+	 * @return	fixed-point, NEGATIVE_INFINITY if there are no values
+	 */
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * @return	the decimal minimum or null if there are no values
+	 */
+	public BigDecimal getDecimalMin() {
+		return SGUtil.toDecimal(min);
+	}
+
+	/**
+	 * @return	the decimal maximum or null if there are no values
+	 */
+	public BigDecimal getDecimalMax() {
+		return SGUtil.toDecimal(max);
+	}
+
+	public int getNumberOfBuckets() {
+		return histogram.length;
+	}
+
+	/**
+	 * @return	a copy of the bucket counts
+	 */
+	public int[] getHistogram() {
+		return Arrays.copyOf(histogram, histogram.length);
+	}
+
+	/**
+	 * @return	the fixed-point lower limit (inclusive) of the bucket
+	 */
+	public long getBucketStart(int bucket) {
+		double width = ((double)histogramEnd - histogramStart + 1) / histogram.length;
+		return histogramStart + (long)(bucket * width);
+	}
+
+
+
+	/* *************************************************
+	 ****************** METHODS ************************
+	 ***************************************************/
+
+	/**
+	 * @param value		fixed-point
+	 */
+	public void add(long value) {
+		count++;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+		if (histogram.length > 0 && histogramStart <= value && value <= histogramEnd) {
+			histogram[bucketOf(value)]++;
+		}
+	}
+
+
+	/**
+	 * adds the values summarized by another aggregate with the same histogram layout
+	 */
+	public void merge(SearchAggregate other) {
+		if (other.histogram.length != histogram.length 
+				|| (histogram.length > 0 && (other.histogramStart != histogramStart || other.histogramEnd != histogramEnd))) {
+			throw new IllegalArgumentException("histogram layouts differ: "+this+" / "+other);
+		}
+		count += other.count;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		for (int i = 0; i < histogram.length; i++) {
+			histogram[i] += other.histogram[i];
+		}
+	}
+
+
+	/**
+	 * @return	an aggregate without values with the same histogram layout
+	 */
+	public SearchAggregate empty() {
+		return new SearchAggregate(histogramStart, histogramEnd, histogram.length);
+	}
+
+
+	public SearchAggregate copy() {
+		SearchAggregate copy = empty();
+		copy.merge(this);
+		return copy;
+	}
+
+
+	private int bucketOf(long value) {
+		double position = ((double)value - histogramStart) / ((double)histogramEnd - histogramStart + 1);
+		return Math.min(histogram.length - 1, (int)(position * histogram.length));
+	}
+
+
+	public long getTransmissionSize() {
+		// count + min + max
+		long size = Constants.INT_SIZE + 2*SkipgraphServiceConstants.RESOLUTION_SIZE;
+		// histogram layout + buckets
+		size += Constants.INT_SIZE;
+		if (histogram.length > 0) {
+			size += 2*SkipgraphServiceConstants.RESOLUTION_SIZE + histogram.length*Constants.INT_SIZE;
+		}
+		return size;
+	}
+
+
+	@Override
+	public String toString() {
+		return "SearchAggregate [count="+count
+				+ ", min="+SGUtil.formatValue(min)
+				+ ", max="+SGUtil.formatValue(max)
+				+ (histogram.length > 0 ? ", histogram=["+SGUtil.formatValue(histogramStart)+", "
+						+SGUtil.formatValue(histogramEnd)+"] "+Arrays.toString(histogram) : "")
+				+ "]";
+	}
+
+}
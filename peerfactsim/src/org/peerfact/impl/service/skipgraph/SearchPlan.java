@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2012-2013 Open Source Community - <http://www.peerfact.org>
+ * Copyright (c) 2011-2012 University of Paderborn - UPB
+ * Copyright (c) 2005-2011 KOM - Multimedia Communications Lab
+ *
+ * This file is part of PeerfactSim.KOM.
+ * 
+ * PeerfactSim.KOM is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ * 
+ * PeerfactSim.KOM is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with PeerfactSim.KOM.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.peerfact.impl.service.skipgraph;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.peerfact.impl.service.skipgraph.SearchQuery.Order;
+import org.peerfact.impl.service.skipgraph.node.SkipgraphContact;
+import org.peerfact.impl.service.skipgraph.node.SkipgraphNodeController;
+import org.peerfact.impl.service.skipgraph.node.ZoneMap;
+import org.peerfact.impl.service.skipgraph.util.DimensionRegistry;
+import org.peerfact.impl.service.skipgraph.util.HistogramCatalog;
+
+/**
+ * The search strategy per dimension of a query, see {@link SkipgraphServiceConstants#adaptiveSearch}.
+ *
+ * A serial walk sends one message per node of the range, but the nodes are visited one
+ * after another. A parallel search fans out over the forwarding tree and every node of
+ * the range replies. For ranges that span only a few nodes the walk needs fewer messages
+ * and is hardly slower.
+ *
+ * The number of nodes per dimension is estimated from the local nodes of the requester:
+ * the query width is divided by the average range width of the local nodes and their
+ * neighbours. A k-search on a single dimension stops after k values, so the estimate is
+ * limited by k divided by the average number of elements of the dimension per node.
+ * Open ranges are unbounded. If the service has learned node histograms by gossip (see
+ * {@link SkipgraphServiceConstants#histogramGossip}), the known nodes of the range and their
+ * element counts are used instead. A dimension is searched serially if its estimate is at most
+ * {@link SkipgraphServiceConstants#SERIAL_SEARCH_MAX_NODES}. Without a local node or histograms there
+ * is nothing to estimate from and the plan follows {@link SkipgraphServiceConstants#parallelSearch}.
+ *
+ * Serial dimensions are marked as ascending ordered queries, which the entry node always
+ * distributes serially.
+ *
+ * @author Andreas Funke
+ * @version 1.0, 03/22/2017
+ */
+public class SearchPlan {
+
+	/* *******************************************
+	 ****************** FIELDS *******************
+	 ******************************************* */
+
+	public static final String SERIAL = "serial";
+
+	public static final String PARALLEL = "parallel";
+
+	public static final String MIXED = "mixed";
+
+	/** an unbounded or not estimable number of nodes */
+	public static final int UNKNOWN = -1;
+
+	/** dimension -> estimated number of nodes or UNKNOWN */
+	private final Map<Integer, Integer> estimatedNodes;
+
+	private final Set<Integer> serialDimensions;
+
+
+
+	/* *************************************************
+	 ****************** CONSTRUCTORS *******************
+	 ************************************************* */
+
+	private SearchPlan(Map<Integer, Integer> estimatedNodes, Set<Integer> serialDimensions) {
+		this.estimatedNodes = estimatedNodes;
+		this.serialDimensions = serialDimensions;
+	}
+
+
+	/**
+	 * @param queries		the queries of a search, several queries per dimension are united
+	 * @param k				the maximum number of results, 0 -> all
+	 * @param controllers	the local nodes of the requester
+	 * @param catalog		the node histograms of the requester, may be null
+	 */
+	public static SearchPlan create(List<SearchQuery> queries, int k,
+			Collection<SkipgraphNodeController> controllers, HistogramCatalog catalog)
+	{
+		boolean histograms = catalog != null && !catalog.isEmpty();
+		
+		// sample the range widths and the elements per node of the local neighbourhood
+		double widthSum = 0;
+		int widthSamples = 0;
+		Map<Integer, Integer> countSums = new LinkedHashMap<>();
+		int countSamples = 0;
+		for (SkipgraphNodeController controller : controllers) {
+			if (controller.isDisabled()) {
+				continue;
+			}
+			long start = controller.getElementTable().getRangeStart();
+			long end = controller.getElementTable().getRangeEnd();
+			if (isFinite(start, end)) {
+				widthSum += (double)end - (double)start;
+				widthSamples++;
+			}
+			for (SkipgraphContact contact : new SkipgraphContact[] {
+					controller.getContactTable().getPrev(), controller.getContactTable().getNext()}) {
+				if (contact != null && !contact.getNodeID().equals(controller.getNodeID())
+						&& isFinite(contact.getRangeStart(), contact.getRangeEnd())) {
+					widthSum += (double)contact.getRangeEnd() - (double)contact.getRangeStart();
+					widthSamples++;
+				}
+			}
+			ZoneMap zoneMap = controller.getElementTable().getZoneMap();
+			for (SearchQuery query : queries) {
+				int dimension = query.getDimensionId();
+				countSums.put(dimension, countSums.getOrDefault(dimension, 0) + zoneMap.getCount(dimension));
+			}
+			countSamples++;
+		}
+
+		Map<Integer, Integer> queriesPerDimension = new LinkedHashMap<>();
+		Map<Integer, Integer> estimatedNodes = new LinkedHashMap<>();
+		for (SearchQuery query : queries) {
+			int dimension = query.getDimensionId();
+			queriesPerDimension.put(dimension, queriesPerDimension.getOrDefault(dimension, 0) + 1);
+			int nodes = histograms ? catalog.estimateNodes(query.getRangeStart(), query.getRangeEnd()) : UNKNOWN;
+			if (nodes == UNKNOWN && widthSamples > 0 && isFinite(query.getRangeStart(), query.getRangeEnd())) {
+				double width = (double)query.getRangeEnd() - (double)query.getRangeStart();
+				// the range may start and end anywhere within a node
+				nodes = (int)Math.min(Integer.MAX_VALUE - 1, Math.ceil(width / (widthSum / widthSamples)) + 1);
+			}
+			Integer sum = estimatedNodes.get(dimension);
+			if (sum != null) {
+				nodes = (sum == UNKNOWN || nodes == UNKNOWN) ? UNKNOWN : (int)Math.min(Integer.MAX_VALUE - 1, (long)sum + nodes);
+			}
+			estimatedNodes.put(dimension, nodes);
+		}
+
+		// a k-search on a single dimension ends after k values
+		if (0 < k && estimatedNodes.size() == 1 && (histograms || countSamples > 0)) {
+			int dimension = estimatedNodes.keySet().iterator().next();
+			double elementsPerNode = histograms ? catalog.getAverageCount(dimension)
+					: (double)countSums.get(dimension) / countSamples;
+			if (elementsPerNode > 0) {
+				int nodes = (int)Math.min(Integer.MAX_VALUE - 1, Math.ceil(k / elementsPerNode));
+				int estimate = estimatedNodes.get(dimension);
+				estimatedNodes.put(dimension, estimate == UNKNOWN ? nodes : Math.min(estimate, nodes));
+			}
+		}
+
+		Set<Integer> serialDimensions = new LinkedHashSet<>();
+		for (Entry<Integer, Integer> entry : estimatedNodes.entrySet()) {
+			boolean serial;
+			if (widthSamples == 0 && countSamples == 0 && !histograms) {
+				serial = !SkipgraphServiceConstants.parallelSearch;
+			}
+			else {
+				// the results of a serial walk are numbered per dimension, so several
+				// queries on one dimension are searched in parallel
+				serial = entry.getValue() != UNKNOWN
+						&& entry.getValue() <= SkipgraphServiceConstants.SERIAL_SEARCH_MAX_NODES
+						&& queriesPerDimension.get(entry.getKey()) == 1;
+			}
+			if (serial) {
+				serialDimensions.add(entry.getKey());
+			}
+		}
+		return new SearchPlan(estimatedNodes, serialDimensions);
+	}
+
+
+
+	/* ************************************************
+	 ****************** GETTERS ***********************
+	 ************************************************ */
+
+	public Set<Integer> getSerialDimensions() {
+		return serialDimensions;
+	}
+
+
+	public boolean isSerial(int dimension) {
+		return serialDimensions.contains(dimension);
+	}
+
+
+	/**
+	 * @return	true if at least one dimension is searched in parallel
+	 */
+	public boolean hasParallelDimensions() {
+		return serialDimensions.size() < estimatedNodes.size();
+	}
+
+
+	/**
+	 * @return	the estimated number of nodes of all dimensions or UNKNOWN
+	 */
+	public int getEstimatedNodes() {
+		long sum = 0;
+		for (int nodes : estimatedNodes.values()) {
+			if (nodes == UNKNOWN) {
+				return UNKNOWN;
+			}
+			sum += nodes;
+		}
+		return (int)Math.min(Integer.MAX_VALUE, sum);
+	}
+
+
+	/**
+	 * @return	SERIAL, PARALLEL or MIXED
+	 */
+	public String getName() {
+		if (serialDimensions.isEmpty()) {
+			return PARALLEL;
+		}
+		return hasParallelDimensions() ? MIXED : SERIAL;
+	}
+
+
+
+	/* *************************************************
+	 ****************** METHODS ************************
+	 ***************************************************/
+
+	/**
+	 * @return	copies of the queries, the queries of serial dimensions are ascending ordered queries
+	 */
+	public List<SearchQuery> apply(List<SearchQuery> queries) {
+		List<SearchQuery> plannedQueries = new LinkedList<>();
+		for (SearchQuery query : queries) {
+			SearchQuery plannedQuery = query.copy();
+			if (isSerial(query.getDimensionId())) {
+				plannedQuery.setOrder(Order.ASCENDING);
+			}
+			plannedQueries.add(plannedQuery);
+		}
+		return plannedQueries;
+	}
+
+
+	private static boolean isFinite(long start, long end) {
+		return start != SkipgraphServiceConstants.NEGATIVE_INFINITY
+				&& end != SkipgraphServiceConstants.POSITIVE_INFINITY
+				&& start < end;
+	}
+
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(getName()).append(" [");
+		String separator = "";
+		for (Entry<Integer, Integer> entry : estimatedNodes.entrySet()) {
+			sb.append(separator).append(DimensionRegistry.getName(entry.getKey())).append(": ")
+					.append(isSerial(entry.getKey()) ? SERIAL : PARALLEL)
+					.append(" (").append(entry.getValue() == UNKNOWN ? "?" : entry.getValue()).append(" nodes)");
+			separator = ", ";
+		}
+		return sb.append("]").toString();
+	}
+
+}
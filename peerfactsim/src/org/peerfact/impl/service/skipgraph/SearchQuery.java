@@ -26,6 +26,10 @@ import java.math.BigDecimal;
 
 import org.peerfact.Constants;
 import org.peerfact.api.overlay.dht.DHTObject;
+import org.peerfact.impl.service.skipgraph.util.ContactFilter;
+import org.peerfact.impl.service.skipgraph.util.DimensionRegistry;
+import org.peerfact.impl.service.skipgraph.util.SGUtil;
+import org.peerfact.impl.service.skipgraph.util.ZOrderBox;
 
 /**
  * @author Andreas Funke
@@ -34,15 +38,40 @@ import org.peerfact.api.overlay.dht.DHTObject;
 public class SearchQuery implements DHTObject, Comparable<SearchQuery>, Cloneable {
 
 
+	/** the direction an ordered search walks the skip graph in */
+	public enum Order {
+		/** from the range start upwards (bottom-k) */
+		ASCENDING,
+		/** from the range end downwards (top-k) */
+		DESCENDING
+	}
+	
+	
 	/* *******************************************
 	 ****************** FIELDS *******************
 	 ******************************************* */
 
-	private final String dimension;
-	private final BigDecimal rangeStart;
-	private final BigDecimal rangeEnd;
+	/** the bits of a result key which hold the dimension id, see {@link #getResultKey()} */
+	private static final int RESULT_KEY_DIMENSION_BITS = 16;
+
+	/** see {@link DimensionRegistry} */
+	private final int dimension;
+	/** fixed-point, NEGATIVE_INFINITY for an open range start */
+	private final long rangeStart;
+	/** fixed-point, POSITIVE_INFINITY for an open range end */
+	private final long rangeEnd;
 	private final boolean openRangeEnd;
 	private int maxNumberOfValues;
+	/** semi-join search: only contacts passing the filter may be returned, null -> no filter */
+	private ContactFilter candidates;
+	/** aggregate search: the (empty) aggregate nodes return instead of contacts, null -> contacts */
+	private SearchAggregate aggregate;
+	/** ordered search: the nodes are visited one by one in this order, null -> unordered */
+	private Order order;
+	/** batched search: the index of the search within the batch, -1 -> not batched */
+	private int searchIndex = -1;
+	/** composite index search: only elements with a key inside the box are returned, null -> no filter */
+	private ZOrderBox box;
 
 
 	/* *************************************************
@@ -72,7 +101,39 @@ public class SearchQuery implements DHTObject, Comparable<SearchQuery>, Cloneabl
 			int maxNumberOfValues,
 			boolean openRangEnd) 
 	{
-		this.dimension = dimension == null ? "" : dimension;
+		this(dimension, 
+				SGUtil.toFixedPoint(rangeStart, SkipgraphServiceConstants.NEGATIVE_INFINITY),
+				SGUtil.toFixedPoint(rangeEnd, SkipgraphServiceConstants.POSITIVE_INFINITY),
+				maxNumberOfValues,
+				openRangEnd);
+	}
+
+	/**
+	 * a query for one dimension with fixed-point range limits
+	 * @param rangeStart		  NEGATIVE_INFINITY -> (-inf)
+	 * @param rangeEnd			  POSITIVE_INFINITY -> (inf)
+	 */
+	public SearchQuery(
+			String dimension,
+			long rangeStart,
+			long rangeEnd, 
+			int maxNumberOfValues,
+			boolean openRangEnd) 
+	{
+		this(DimensionRegistry.getId(dimension), rangeStart, rangeEnd, maxNumberOfValues, openRangEnd);
+	}
+
+	/**
+	 * a query for one dimension given by its id, see {@link DimensionRegistry}
+	 */
+	public SearchQuery(
+			int dimension,
+			long rangeStart,
+			long rangeEnd, 
+			int maxNumberOfValues,
+			boolean openRangEnd) 
+	{
+		this.dimension = dimension;
 		this.rangeStart = rangeStart;
 		this.rangeEnd = rangeEnd;
 		this.maxNumberOfValues = maxNumberOfValues;
@@ -87,17 +148,35 @@ public class SearchQuery implements DHTObject, Comparable<SearchQuery>, Cloneabl
 	 ************************************************ */
 
 	public String getDimension() {
+		return DimensionRegistry.getName(dimension);
+	}
+
+	public int getDimensionId() {
 		return dimension;
 	}
 
-	public BigDecimal getRangeStart() {
+	public long getRangeStart() {
 		return rangeStart;
 	}
 
-	public BigDecimal getRangeEnd() {
+	public long getRangeEnd() {
 		return rangeEnd;
 	}
 
+	/**
+	 * @return	the decimal range start or null for (-inf)
+	 */
+	public BigDecimal getDecimalRangeStart() {
+		return SGUtil.toDecimal(rangeStart);
+	}
+
+	/**
+	 * @return	the decimal range end or null for (inf)
+	 */
+	public BigDecimal getDecimalRangeEnd() {
+		return SGUtil.toDecimal(rangeEnd);
+	}
+
 	public int getMaxNumberOfValues() {
 		return maxNumberOfValues;
 	}
@@ -105,6 +184,48 @@ public class SearchQuery implements DHTObject, Comparable<SearchQuery>, Cloneabl
 	public boolean hasOpenRangeEnd() {
 		return openRangeEnd;
 	}
+
+	public ContactFilter getCandidates() {
+		return candidates;
+	}
+
+	public SearchAggregate getAggregate() {
+		return aggregate;
+	}
+
+	public Order getOrder() {
+		return order;
+	}
+
+	public int getSearchIndex() {
+		return searchIndex;
+	}
+
+	public ZOrderBox getBox() {
+		return box;
+	}
+
+	/**
+	 * the results of a parallel search are returned per result key. 
+	 * @return	the dimension id or, for a batched search, the dimension id combined with 
+	 * 			the index of the search
+	 */
+	public int getResultKey() {
+		if (searchIndex < 0) {
+			return dimension;
+		}
+		return ((searchIndex + 1) << RESULT_KEY_DIMENSION_BITS) | dimension;
+	}
+
+	/**
+	 * @return	the highest fixed-point value inside the range
+	 */
+	public long getLastValue() {
+		if (openRangeEnd && rangeEnd != SkipgraphServiceConstants.POSITIVE_INFINITY) {
+			return rangeEnd - 1;
+		}
+		return rangeEnd;
+	}
 	
 	
 
@@ -116,6 +237,26 @@ public class SearchQuery implements DHTObject, Comparable<SearchQuery>, Cloneabl
 		this.maxNumberOfValues = maxNumberOfValues;
 	}
 
+	public void setCandidates(ContactFilter candidates) {
+		this.candidates = candidates;
+	}
+
+	public void setAggregate(SearchAggregate aggregate) {
+		this.aggregate = aggregate;
+	}
+
+	public void setOrder(Order order) {
+		this.order = order;
+	}
+
+	public void setSearchIndex(int searchIndex) {
+		this.searchIndex = searchIndex;
+	}
+
+	public void setBox(ZOrderBox box) {
+		this.box = box;
+	}
+
 
 	/* ************************************************
 	 ****************** INTERFACES ********************
@@ -123,13 +264,39 @@ public class SearchQuery implements DHTObject, Comparable<SearchQuery>, Cloneabl
 
 	@Override
 	public long getTransmissionSize() {
-		long size = dimension.length() * 2;
+		long size = SkipgraphServiceConstants.DIMENSION_SIZE;
 		size += 2*SkipgraphServiceConstants.RESOLUTION_SIZE;
+		// max number of values
+		if (!SkipgraphServiceConstants.parallelSearch || SkipgraphServiceConstants.kSearchLimit) {
+			size += Constants.INT_SIZE;
+		}
 		if (SkipgraphServiceConstants.parallelSearch) {
 			size += Constants.BOOLEAN_SIZE;
 		}
-		else {
-			size += Constants.INT_SIZE;
+		// the optional fields: a flag only if the feature is enabled or the field is set,
+		// so a query without them keeps its baseline size
+		// candidates
+		if (SkipgraphServiceConstants.semiJoinSearch || candidates != null) {
+			size += Constants.BOOLEAN_SIZE;
+		}
+		if (candidates != null) {
+			size += candidates.getTransmissionSize();
+		}
+		// aggregate
+		if (aggregate != null) {
+			size += Constants.BOOLEAN_SIZE + aggregate.getTransmissionSize();
+		}
+		// order
+		if (order != null) {
+			size += 2*Constants.BOOLEAN_SIZE;
+		}
+		// search index
+		if (searchIndex >= 0) {
+			size += Constants.BOOLEAN_SIZE + Constants.INT_SIZE;
+		}
+		// box
+		if (box != null) {
+			size += Constants.BOOLEAN_SIZE + box.getTransmissionSize();
 		}
 		return size;
 	}
@@ -137,17 +304,22 @@ public class SearchQuery implements DHTObject, Comparable<SearchQuery>, Cloneabl
 
 	@Override
 	public int compareTo(SearchQuery external) {
-		return rangeStart.compareTo(external.rangeStart);
+		return Long.compare(rangeStart, external.rangeStart);
 	}
 	
 	
 	@Override
 	public String toString() {
 		return "SearchQuery <"
-				+ dimension + " ["
-				+ rangeStart + ", "
-				+ rangeEnd 
+				+ getDimension() + " ["
+				+ SGUtil.formatValue(rangeStart) + ", "
+				+ SGUtil.formatValue(rangeEnd) 
 				+ (openRangeEnd ? ") " : "] ")
+				+ (candidates != null ? candidates : "")
+				+ (aggregate != null ? "aggregate" : "")
+				+ (order != null ? order : "")
+				+ (searchIndex >= 0 ? "#"+searchIndex : "")
+				+ (box != null ? box : "")
 				;
 	}
 	
@@ -159,13 +331,40 @@ public class SearchQuery implements DHTObject, Comparable<SearchQuery>, Cloneabl
 	
 	
 	public SearchQuery copy() {
-		return new SearchQuery(
+		SearchQuery copy = new SearchQuery(
 				dimension, 
 				rangeStart, 
 				rangeEnd, 
 				maxNumberOfValues,
 				openRangeEnd
 				);
+		if (candidates != null) {
+			copy.candidates = candidates.copy();
+		}
+		if (aggregate != null) {
+			copy.aggregate = aggregate.copy();
+		}
+		copy.order = order;
+		copy.searchIndex = searchIndex;
+		if (box != null) {
+			copy.box = box.copy();
+		}
+		return copy;
+	}
+	
+	
+	/**
+	 * @return	a query on a part of the range of this query, keeping the dimension, the candidates,
+	 * 			the aggregate, the order, the search index and the box
+	 */
+	public SearchQuery subQuery(long rangeStart, long rangeEnd, int maxNumberOfValues, boolean openRangeEnd) {
+		SearchQuery subQuery = new SearchQuery(dimension, rangeStart, rangeEnd, maxNumberOfValues, openRangeEnd);
+		subQuery.candidates = candidates;
+		subQuery.aggregate = aggregate;
+		subQuery.order = order;
+		subQuery.searchIndex = searchIndex;
+		subQuery.box = box;
+		return subQuery;
 	}
 
 }
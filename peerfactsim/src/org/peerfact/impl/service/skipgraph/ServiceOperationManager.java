@@ -29,8 +29,10 @@ import java.util.Set;
 
 import org.peerfact.api.common.Operation;
 import org.peerfact.api.common.OperationCallback;
+import org.peerfact.impl.service.skipgraph.SkipgraphServiceInterface.AggregateCallback;
 import org.peerfact.impl.service.skipgraph.SkipgraphServiceInterface.UpdateCallback;
 import org.peerfact.impl.service.skipgraph.SkipgraphServiceInterface.SearchQueryCallback;
+import org.peerfact.impl.service.skipgraph.SkipgraphServiceInterface.StreamingSearchQueryCallback;
 import org.peerfact.impl.service.skipgraph.messages.AbstractSkipgraphMessage;
 import org.peerfact.impl.service.skipgraph.messages.AbstractSkipgraphServiceMessage;
 import org.peerfact.impl.service.skipgraph.messages.JoinRequestACKMessage;
@@ -42,7 +44,10 @@ import org.peerfact.impl.service.skipgraph.node.ContactTable;
 import org.peerfact.impl.service.skipgraph.node.SkipgraphElement;
 import org.peerfact.impl.service.skipgraph.node.SkipgraphNode;
 import org.peerfact.impl.service.skipgraph.operations.Addressable;
+import org.peerfact.impl.service.skipgraph.operations.SearchAggregateOperation;
+import org.peerfact.impl.service.skipgraph.operations.SearchBatchOperation;
 import org.peerfact.impl.service.skipgraph.operations.SearchQueryOperation;
+import org.peerfact.impl.service.skipgraph.operations.SearchTopKOperation;
 import org.peerfact.impl.service.skipgraph.operations.UpdateOperation;
 import org.peerfact.impl.util.communicationmanager.ApplicationContact;
 
@@ -146,6 +151,103 @@ public class ServiceOperationManager {
 				},
 				searchQueries,
 				k);
+		if (searchQueryCallback instanceof StreamingSearchQueryCallback) {
+			calledOperation.setStreamingCallback((StreamingSearchQueryCallback)searchQueryCallback);
+		}
+		addressableOperations.put(calledOperation.getOperationID(), calledOperation);
+		calledOperation.scheduleImmediately();
+	}
+	
+	
+	
+	/**
+	 * @param searchQueryCallbacks	one callback per search
+	 */
+	public void callSearchBatchOperation(
+			List<List<SearchQuery>> searches,
+			int k,
+			List<SearchQueryCallback> searchQueryCallbacks) {
+		SearchBatchOperation calledOperation = new SearchBatchOperation(
+				service,
+				new OperationCallback<List<Set<ApplicationContact>>>() {
+
+					@Override
+					public void calledOperationFailed(Operation<List<Set<ApplicationContact>>> op) {
+						// searches which were already done before the failure still succeed
+						for (int i = 0; i < searchQueryCallbacks.size(); i++) {
+							Set<ApplicationContact> results = op.getResult().get(i);
+							searchQueryCallbacks.get(i).gotAnswer(results != null, results);
+						}
+						addressableOperations.remove(op.getOperationID());
+					}
+		
+					@Override
+					public void calledOperationSucceeded(Operation<List<Set<ApplicationContact>>> op) {
+						for (int i = 0; i < searchQueryCallbacks.size(); i++) {
+							searchQueryCallbacks.get(i).gotAnswer(true, op.getResult().get(i));
+						}
+						addressableOperations.remove(op.getOperationID());
+					}
+		
+				},
+				searches,
+				k);
+		addressableOperations.put(calledOperation.getOperationID(), calledOperation);
+		calledOperation.scheduleImmediately();
+	}
+	
+	
+	
+	public void callTopKOperation(
+			SearchQuery searchQuery,
+			int k,
+			SearchQueryCallback searchQueryCallback) {
+		SearchTopKOperation calledOperation = new SearchTopKOperation(
+				service,
+				new OperationCallback<Set<ApplicationContact>>() {
+
+					@Override
+					public void calledOperationFailed(Operation<Set<ApplicationContact>> op) {
+						searchQueryCallback.gotAnswer(false, null);
+						addressableOperations.remove(op.getOperationID());
+					}
+		
+					@Override
+					public void calledOperationSucceeded(Operation<Set<ApplicationContact>> op) {
+						searchQueryCallback.gotAnswer(true, op.getResult());
+						addressableOperations.remove(op.getOperationID());
+					}
+		
+				},
+				searchQuery,
+				k);
+		addressableOperations.put(calledOperation.getOperationID(), calledOperation);
+		calledOperation.scheduleImmediately();
+	}
+	
+	
+	
+	public void callAggregateOperation(
+			SearchQuery searchQuery,
+			AggregateCallback aggregateCallback) {
+		SearchAggregateOperation calledOperation = new SearchAggregateOperation(
+				service,
+				new OperationCallback<SearchAggregate>() {
+
+					@Override
+					public void calledOperationFailed(Operation<SearchAggregate> op) {
+						aggregateCallback.gotAnswer(false, null);
+						addressableOperations.remove(op.getOperationID());
+					}
+		
+					@Override
+					public void calledOperationSucceeded(Operation<SearchAggregate> op) {
+						aggregateCallback.gotAnswer(true, op.getResult());
+						addressableOperations.remove(op.getOperationID());
+					}
+		
+				},
+				searchQuery);
 		addressableOperations.put(calledOperation.getOperationID(), calledOperation);
 		calledOperation.scheduleImmediately();
 	}
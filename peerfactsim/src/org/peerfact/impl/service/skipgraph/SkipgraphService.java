@@ -23,11 +23,15 @@
 package org.peerfact.impl.service.skipgraph;
 
 import java.math.BigInteger;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import org.peerfact.api.common.Host;
 import org.peerfact.api.common.Message;
@@ -45,13 +49,20 @@ import org.peerfact.api.overlay.dht.DHTObject;
 import org.peerfact.api.overlay.kbr.KBRForwardInformation;
 import org.peerfact.api.overlay.kbr.KBRListener;
 import org.peerfact.impl.service.AbstractService;
+import org.peerfact.impl.service.skipgraph.SearchQuery.Order;
 import org.peerfact.impl.service.skipgraph.analyzer.SkipgraphMonitor;
+import org.peerfact.impl.service.skipgraph.messages.SearchCancelMessage;
 import org.peerfact.impl.service.skipgraph.node.SkipgraphElement;
 import org.peerfact.impl.service.skipgraph.node.SkipgraphNode;
 import org.peerfact.impl.service.skipgraph.node.SkipgraphNodeController;
 import org.peerfact.impl.service.skipgraph.node.messages.AbstractSkipgraphNodeRequestMessage;
+import org.peerfact.impl.service.skipgraph.util.ContactPool;
 import org.peerfact.impl.service.skipgraph.util.DotFileBuilder;
+import org.peerfact.impl.service.skipgraph.util.HistogramCatalog;
+import org.peerfact.impl.service.skipgraph.util.PeerAddressCache;
 import org.peerfact.impl.service.skipgraph.util.SGUtil;
+import org.peerfact.impl.service.skipgraph.util.SearchCancellationTable;
+import org.peerfact.impl.service.skipgraph.util.SearchResultCache;
 import org.peerfact.impl.simengine.Simulator;
 import org.peerfact.impl.util.communicationmanager.ApplicationContact;
 import org.peerfact.impl.util.communicationmanager.CommunicationManager;
@@ -82,12 +93,33 @@ public class SkipgraphService extends AbstractService implements SkipgraphServic
 	/** Reference for local contact (overlay layer (PeerID) + transport layer information (IP+Port). */
 	private ApplicationContact localContact;
 
-	private final Map<String, SkipgraphNodeController> skipgraphNodeControllers = new LinkedHashMap<>();
+	private final Map<BigInteger, SkipgraphNodeController> skipgraphNodeControllers = new LinkedHashMap<>();
+	
+	/** the SkipgraphNodes of the local DHT entries by node ID, see {@link #getLocalSkipgraphNode} */
+	private final Map<BigInteger, SkipgraphNode> localSkipgraphNodes = new HashMap<>();
 	
 	private final MessageDistributor messageDistributor;
 	
 	private final ServiceOperationManager opManager;
 	
+	/** one shared instance per peer for all elements and results of this service */
+	private final ContactPool contactPool = new ContactPool();
+	
+	/** parallel searches this service has forwarded or which have been cancelled */
+	private final SearchCancellationTable searchCancellations 
+			= new SearchCancellationTable(SkipgraphServiceConstants.NODE_OP_TIMEOUT);
+	
+	/** complete results of recent parallel searches, see {@link SkipgraphServiceConstants#searchResultCache} */
+	private final SearchResultCache searchResultCache 
+			= new SearchResultCache(SkipgraphServiceConstants.SEARCH_RESULT_CACHE_SIZE);
+	
+	/** node histograms learned by gossip, see {@link SkipgraphServiceConstants#histogramGossip} */
+	private final HistogramCatalog histogramCatalog = new HistogramCatalog();
+	
+	/** the peers hosting skip graph nodes, see {@link SkipgraphServiceConstants#directAddressing} */
+	private final PeerAddressCache peerAddressCache 
+			= new PeerAddressCache(SkipgraphServiceConstants.PEER_ADDRESS_CACHE_SIZE);
+	
 	private boolean running = false;
 	
 
@@ -180,7 +212,23 @@ public class SkipgraphService extends AbstractService implements SkipgraphServic
 		return this.opManager;
 	}
 
-	public Map<String, SkipgraphNodeController> getSkipgraphNodeControllers() {
+	public ContactPool getContactPool() {
+		return this.contactPool;
+	}
+
+	public SearchResultCache getSearchResultCache() {
+		return this.searchResultCache;
+	}
+
+	public HistogramCatalog getHistogramCatalog() {
+		return this.histogramCatalog;
+	}
+
+	public PeerAddressCache getPeerAddressCache() {
+		return this.peerAddressCache;
+	}
+
+	public Map<BigInteger, SkipgraphNodeController> getSkipgraphNodeControllers() {
 		return this.skipgraphNodeControllers;
 	}
 
@@ -207,25 +255,18 @@ public class SkipgraphService extends AbstractService implements SkipgraphServic
 			// is peer responsible for key?
 			if (getLocalNode().isRootOf(key)) {
 				// yes: responsible -> get node!
-				nodeController = getSkipgraphNodeControllers().get(nodeID.toString());
+				nodeController = getSkipgraphNodeControllers().get(nodeID);
 				// nodeController for nodeID not available? -> get node from DHT and build new controller
 				if (nodeController == null) {
 					// which alternative is faster?
 					if (SkipgraphServiceConstants.cheating) {
 						// Alternative 1 for getting the node (cheating):
-						boolean nodeAvailableInDHT = false;
-						for (DHTObject object : getLocalNode().getLocalDHTEntries()) {
-							if (object instanceof SkipgraphNode) {
-								SkipgraphNode node = (SkipgraphNode)object;
-								if (node.getNodeID().equals(nodeID))  {
-									skipgraphNodeControllers.put(nodeID.toString(), 
-											new SkipgraphNodeController(this, node, key));
-									nodeAvailableInDHT = true;
-									break;
-								}
-							}
+						SkipgraphNode node = getLocalSkipgraphNode(nodeID);
+						if (node != null) {
+							skipgraphNodeControllers.put(nodeID, 
+									new SkipgraphNodeController(this, node, key));
 						}
-						if (!nodeAvailableInDHT) {
+						else {
 							throw new NullPointerException("no SkipgraphNode for nodeID="+SGUtil.formatID(nodeID)+" in DHT available");
 						}
 					}
@@ -241,7 +282,8 @@ public class SkipgraphService extends AbstractService implements SkipgraphServic
 									SkipgraphNode node = (SkipgraphNode)op.getResult();
 									if (SkipgraphServiceConstants.LOG_DHT)
 										node.print();
-									skipgraphNodeControllers.put(nodeID.toString(), 
+									localSkipgraphNodes.put(nodeID, node);
+									skipgraphNodeControllers.put(nodeID, 
 											new SkipgraphNodeController(service, node, key));
 									DotFileBuilder.addNode(getLocalContact().getPeerID(), node);
 								}
@@ -261,11 +303,19 @@ public class SkipgraphService extends AbstractService implements SkipgraphServic
 			}
 			else {
 				// no: not responsible -> remove nodeController if still exists
-				nodeController = getSkipgraphNodeControllers().get(nodeID.toString());
+				nodeController = getSkipgraphNodeControllers().get(nodeID);
 				if (nodeController != null) {
-					getSkipgraphNodeControllers().remove(nodeID.toString());
+					getSkipgraphNodeControllers().remove(nodeID);
 					nodeController = null;
 				}
+				localSkipgraphNodes.remove(nodeID);
+				// a directly addressed message may follow an outdated peer address. that is expected:
+				// the sender receives a DefaultNACK and sends the message by DHT again.
+				if (message != null && message.isDirectlyAddressed()) {
+					if (SkipgraphServiceConstants.LOG_DHT)
+						log("outdated peer address for nodeID="+SGUtil.formatID(nodeID));
+					return null;
+				}
 				throw new NullPointerException("not responsible for nodeID="+SGUtil.formatID(nodeID));
 			}
 		}
@@ -277,6 +327,29 @@ public class SkipgraphService extends AbstractService implements SkipgraphServic
 	}
 	
 	
+	/**
+	 * looks the node up in the index of the local DHT entries. On a miss the index is rebuilt
+	 * from the local DHT entries, as the DHT may have handed over further nodes to this peer.
+	 * A hit is only used while it is still the stored entry: if the DHT has moved the node away
+	 * and back in the meantime, the indexed instance is outdated.
+	 * @return	the SkipgraphNode stored on this peer, null if not available
+	 */
+	private SkipgraphNode getLocalSkipgraphNode(BigInteger nodeID) {
+		SkipgraphNode node = localSkipgraphNodes.get(nodeID);
+		if (node == null || !getLocalNode().getLocalDHTEntries().contains(node)) {
+			localSkipgraphNodes.clear();
+			for (DHTObject object : getLocalNode().getLocalDHTEntries()) {
+				if (object instanceof SkipgraphNode) {
+					SkipgraphNode entry = (SkipgraphNode)object;
+					localSkipgraphNodes.put(entry.getNodeID(), entry);
+				}
+			}
+			node = localSkipgraphNodes.get(nodeID);
+		}
+		return node;
+	}
+	
+	
 
 	/* ********************************************************
 	 ******************** KBR interface ***********************
@@ -396,6 +469,72 @@ public class SkipgraphService extends AbstractService implements SkipgraphServic
 	}
 
 	
+	@Override
+	public void searchStreaming(
+			List<SearchQuery> searchQueries,
+			int k,
+			StreamingSearchQueryCallback searchQueryCallback) {
+		opManager.callSearchOperation(searchQueries, k, searchQueryCallback);
+	}
+
+	
+	@Override
+	public void searchBatch(
+			List<List<SearchQuery>> searches,
+			int k,
+			List<SearchQueryCallback> searchQueryCallbacks) {
+		if (searches.size() != searchQueryCallbacks.size()) {
+			throw new IllegalArgumentException("expected one callback per search: "
+					+searches.size()+" searches, "+searchQueryCallbacks.size()+" callbacks");
+		}
+		opManager.callSearchBatchOperation(searches, k, searchQueryCallbacks);
+	}
+
+	
+	@Override
+	public void searchTopK(
+			SearchQuery searchQuery,
+			int k,
+			SearchQueryCallback searchQueryCallback) {
+		opManager.callTopKOperation(orderedQuery(searchQuery, k, Order.DESCENDING), k, searchQueryCallback);
+	}
+
+	
+	@Override
+	public void searchBottomK(
+			SearchQuery searchQuery,
+			int k,
+			SearchQueryCallback searchQueryCallback) {
+		opManager.callTopKOperation(orderedQuery(searchQuery, k, Order.ASCENDING), k, searchQueryCallback);
+	}
+	
+	
+	private static SearchQuery orderedQuery(SearchQuery searchQuery, int k, Order order) {
+		SearchQuery orderedQuery = searchQuery.copy();
+		orderedQuery.setMaxNumberOfValues(k);
+		orderedQuery.setCandidates(null);
+		orderedQuery.setAggregate(null);
+		orderedQuery.setOrder(order);
+		return orderedQuery;
+	}
+
+	
+	@Override
+	public void aggregate(
+			SearchQuery searchQuery,
+			int histogramBuckets,
+			AggregateCallback aggregateCallback) {
+		SearchQuery aggregateQuery = searchQuery.copy();
+		aggregateQuery.setMaxNumberOfValues(0);
+		aggregateQuery.setCandidates(null);
+		aggregateQuery.setOrder(null);
+		aggregateQuery.setAggregate(histogramBuckets > 0 
+				? new SearchAggregate(searchQuery.getRangeStart(), searchQuery.getRangeEnd(), histogramBuckets)
+				: new SearchAggregate());
+		opManager.callAggregateOperation(aggregateQuery, aggregateCallback);
+	}
+
+	
 	
 	/* ***********
 	 * debugging *
@@ -421,8 +560,8 @@ public class SkipgraphService extends AbstractService implements SkipgraphServic
 			log("no SkipgraphNodes available.");
 		}
 		else {
-			for (Entry<String, SkipgraphNodeController> entry : getSkipgraphNodeControllers().entrySet()) {
-				log(entry.getKey());
+			for (Entry<BigInteger, SkipgraphNodeController> entry : getSkipgraphNodeControllers().entrySet()) {
+				log(entry.getKey().toString());
 			}
 		}
 	}
@@ -438,7 +577,7 @@ public class SkipgraphService extends AbstractService implements SkipgraphServic
 			log("no SkipgraphNodes available.");
 		}
 		else {
-			for (Entry<String, SkipgraphNodeController> entry : getSkipgraphNodeControllers().entrySet()) {
+			for (Entry<BigInteger, SkipgraphNodeController> entry : getSkipgraphNodeControllers().entrySet()) {
 				entry.getValue().print();
 				if (!entry.getValue().isDisabled()) {
 					DotFileBuilder.add(getLocalContact().getPeerID(), entry.getValue().getNode());
@@ -453,7 +592,7 @@ public class SkipgraphService extends AbstractService implements SkipgraphServic
 			log("no SkipgraphNodes available.");
 		}
 		else {
-			getSkipgraphNodeControllers().get(nodeID.toString()).print();
+			getSkipgraphNodeControllers().get(nodeID).print();
 		}
 	}
 
@@ -507,7 +646,8 @@ public class SkipgraphService extends AbstractService implements SkipgraphServic
 		}
 
 		getLocalNode().store(key, node, null);
-		skipgraphNodeControllers.put(node.getNodeID().toString(), new SkipgraphNodeController(this, node, key));
+		localSkipgraphNodes.put(node.getNodeID(), node);
+		skipgraphNodeControllers.put(node.getNodeID(), new SkipgraphNodeController(this, node, key));
 		// call the monitor and push the data!
 		if(Simulator.getMonitor() instanceof SkipgraphMonitor){
 			((SkipgraphMonitor)Simulator.getMonitor()).nodeAdded(getLocalContact(), node);
@@ -535,11 +675,75 @@ public class SkipgraphService extends AbstractService implements SkipgraphServic
 		}
 
 		// removing the nodeController from the map
-		skipgraphNodeControllers.remove(node.getNodeID().toString());
+		skipgraphNodeControllers.remove(node.getNodeID());
+		localSkipgraphNodes.remove(node.getNodeID());
 		// removing node from the DHT
 		getLocalNode().remove(key, null);
 		return true;
 	}
+
+
+
+	/**
+	 * @return	true if the requester of the parallel search already has enough results
+	 */
+	public boolean isSearchCancelled(ApplicationContact requester, int requestOperationID) {
+		return searchCancellations.isCancelled(requester, requestOperationID);
+	}
+
+
+
+	/**
+	 * remembers the service a parallel search was forwarded to, so a cancellation can be
+	 * passed on. If the search has already been cancelled, the service is informed right away.
+	 */
+	public void searchForwarded(ApplicationContact requester, int requestOperationID, ApplicationContact receiver) {
+		if (!SkipgraphServiceConstants.searchCancellation) {
+			return;
+		}
+		if (searchCancellations.addForwarding(requester, requestOperationID, receiver)) {
+			sendSearchCancel(requester, requestOperationID, receiver);
+		}
+	}
+
+
+
+	/**
+	 * cancels a parallel search on this service and passes the cancellation on to the
+	 * services the search was forwarded to and to the given services.
+	 */
+	public void cancelSearch(
+			ApplicationContact requester, 
+			int requestOperationID, 
+			Collection<ApplicationContact> receivers) 
+	{
+		if (!SkipgraphServiceConstants.searchCancellation) {
+			return;
+		}
+		Set<ApplicationContact> cancelAt = new LinkedHashSet<>(receivers);
+		cancelAt.addAll(searchCancellations.cancel(requester, requestOperationID));
+		cancelAt.remove(getLocalContact());
+		for (ApplicationContact receiver : cancelAt) {
+			sendSearchCancel(requester, requestOperationID, receiver);
+		}
+	}
+
+
+
+	private void sendSearchCancel(ApplicationContact requester, int requestOperationID, ApplicationContact receiver) {
+		if (receiver.equals(getLocalContact())) {
+			return;
+		}
+		getCommunicationManager().send(
+				new SearchCancelMessage(
+						getLocalContact(), 
+						receiver, 
+						requestOperationID, 
+						requester, 
+						requestOperationID),
+				null,
+				null);
+	}
 	
 	
 }
@@ -44,7 +44,16 @@ public class SkipgraphServiceConstants {
 	              
 	public static final long BIG_DECIMAL_SIZE = 8;
 	              
-	public static final long RESOLUTION_SIZE = BIG_DECIMAL_SIZE;
+	public static final long RESOLUTION_SIZE = Constants.LONG_SIZE;
+	
+	/** dimensions are transmitted as id (short), see {@link org.peerfact.impl.service.skipgraph.util.DimensionRegistry} */
+	public static final long DIMENSION_SIZE = 2;
+	
+	/** fixed-point representation of an open lower range limit (-inf) */
+	public static final long NEGATIVE_INFINITY = Long.MIN_VALUE;
+	
+	/** fixed-point representation of an open upper range limit (inf) */
+	public static final long POSITIVE_INFINITY = Long.MAX_VALUE;
 	              
 	public static final long ROUTE_SIZE = Constants.BOOLEAN_SIZE;
 	
@@ -58,6 +67,35 @@ public class SkipgraphServiceConstants {
 	
 	public static final long NODE_OP_TIMEOUT = 30*Simulator.SECOND_UNIT;
 	
+	/** size of the candidate filter of a semi-join search. 10 bits -> ~1% false positives */
+	public static final int SEMI_JOIN_FILTER_BITS_PER_CONTACT = 10;
+	
+	/** maximum number of cached search results per service */
+	public static final int SEARCH_RESULT_CACHE_SIZE = 128;
+	
+	/** adaptive search: a dimension whose query is expected to span no more nodes is searched serially */
+	public static final int SERIAL_SEARCH_MAX_NODES = 3;
+	
+	/** number of buckets of the equi-depth histograms per dimension of a node */
+	public static final int HISTOGRAM_BUCKETS = 8;
+	
+	/** maximum number of node histograms per gossip message */
+	public static final int HISTOGRAM_GOSSIP_ENTRIES = 16;
+	
+	public static final long HISTOGRAM_GOSSIP_INTERVAL = 1*Simulator.MINUTE_UNIT;
+	
+	/** node histograms older than this are dropped from the catalog of a service */
+	public static final long HISTOGRAM_MAX_AGE = 5*Simulator.MINUTE_UNIT;
+	
+	/** maximum number of learned contacts of distant nodes per node, see ShortcutCache */
+	public static final int SHORTCUT_CACHE_SIZE = 16;
+	
+	/** learned contacts older than this are dropped from the shortcuts of a node */
+	public static final long SHORTCUT_MAX_AGE = 5*Simulator.MINUTE_UNIT;
+	
+	/** maximum number of cached peers hosting skip graph nodes per service */
+	public static final int PEER_ADDRESS_CACHE_SIZE = 256;
+	
 	public static final long DOTBUILDER_DELAY = 1000*Simulator.MILLISECOND_UNIT;
 	
 
@@ -73,6 +111,40 @@ public class SkipgraphServiceConstants {
 	public static int elementTableMaxSize = 50;
 	
 	public static boolean parallelSearch = true;
+	
+	/** store the elements of an ElementTable in primitive columns instead of element objects */
+	public static boolean columnarElementTable = false;
+
+	/** contacts carry a per-dimension summary of their node, used to prune the parallel search */
+	public static boolean zoneMaps = false;
+
+	/** a parallel k-search on a single dimension carries k as the limit of its queries. 
+	 *  Each node forwards only the values still missing. */
+	public static boolean kSearchLimit = false;
+
+	/** a requester with enough results of a parallel k-search cancels the outstanding branches */
+	public static boolean searchCancellation = false;
+
+	/** multi-dimensional parallel searches resolve the most selective dimension first and
+	 *  pass its results as a filter to the remaining dimensions */
+	public static boolean semiJoinSearch = false;
+
+	/** entry nodes answer repeated parallel searches from a result cache of their service */
+	public static boolean searchResultCache = false;
+
+	/** the requester picks the serial or parallel search per dimension of a query from a
+	 *  cost estimate (see {@link SearchPlan}) instead of following parallelSearch */
+	public static boolean adaptiveSearch = false;
+
+	/** the nodes gossip histograms of their elements, used to estimate the selectivity of queries */
+	public static boolean histogramGossip = false;
+
+	/** the nodes route searches over learned contacts of distant nodes as well */
+	public static boolean shortcutCache = false;
+
+	/** search and update forwarding messages are sent to the known peer hosting the receiving
+	 *  node instead of being routed by the DHT */
+	public static boolean directAddressing = false;
 
 	public static boolean loadBalancing = true;
 
@@ -84,8 +156,17 @@ public class SkipgraphServiceConstants {
 	
 	public static boolean optimizeLevelPrefix = false;
 
+	/** number of different level prefixes. With k prefixes the nodes split into k lists per level
+	 * and the expected height of the skip graph is log_k(n) instead of log_2(n). 
+	 * For k > 2 each level additionally keeps the nearest node of each of the k-1 other lists, 
+	 * collected while joining the level, so a search can skip ahead on every level. */
+	public static int levelPrefixArity = 2;
+
 	public static double headroom = 0.1;
 	
+	/** number of decimal places kept when element values and range limits are encoded as fixed-point longs */
+	public static int valueScale = 3;
+	
 	public static long purgeTolerance = 350*Simulator.MILLISECOND_UNIT;
 	
 	public static boolean logSearch = false;
@@ -130,6 +211,10 @@ public class SkipgraphServiceConstants {
 		return loadBalancing;
 	}
 
+	public static int getValueScale() {
+		return valueScale;
+	}
+
 
 
 	/* ************************
@@ -164,6 +249,46 @@ public class SkipgraphServiceConstants {
 		parallelSearch = arg;
 	}
 
+	public static void setColumnarElementTable(boolean arg) {
+		columnarElementTable = arg;
+	}
+
+	public static void setZoneMaps(boolean arg) {
+		zoneMaps = arg;
+	}
+
+	public static void setKSearchLimit(boolean arg) {
+		kSearchLimit = arg;
+	}
+
+	public static void setSearchCancellation(boolean arg) {
+		searchCancellation = arg;
+	}
+
+	public static void setSemiJoinSearch(boolean arg) {
+		semiJoinSearch = arg;
+	}
+
+	public static void setSearchResultCache(boolean arg) {
+		searchResultCache = arg;
+	}
+
+	public static void setAdaptiveSearch(boolean arg) {
+		adaptiveSearch = arg;
+	}
+
+	public static void setHistogramGossip(boolean arg) {
+		histogramGossip = arg;
+	}
+
+	public static void setShortcutCache(boolean arg) {
+		shortcutCache = arg;
+	}
+
+	public static void setDirectAddressing(boolean arg) {
+		directAddressing = arg;
+	}
+
 	public static void setLoadBalancing(boolean arg) {
 		loadBalancing = arg;
 	}
@@ -184,6 +309,21 @@ public class SkipgraphServiceConstants {
 		optimizeLevelPrefix = arg;
 	}
 
+	public static void setLevelPrefixArity(int arg) {
+		// the prefixes of all levels are packed into the long contactTablePrefix of a contact
+		if (arg < 2 || arg > 16) {
+			log.warn("Level prefix arity must be between 2 and 16.");
+			try {
+				throw new IllegalArgumentException("Level prefix arity must be between 2 and 16.");
+			}
+			catch (IllegalArgumentException e) {
+				e.printStackTrace();
+			}
+			return;
+		}
+		levelPrefixArity = arg;
+	}
+
 	public static void setHeadroom(double arg) {
 		// if the user uses a timeout interval which is not very clever - warn him!
 		if (arg > 0.5) {
@@ -198,6 +338,20 @@ public class SkipgraphServiceConstants {
 		headroom = arg;
 	}
 	
+	public static void setValueScale(int arg) {
+		if (arg < 0 || arg > 18) {
+			log.warn("Value scale must be between 0 and 18 decimal places.");
+			try {
+				throw new IllegalArgumentException("Value scale must be between 0 and 18 decimal places.");
+			}
+			catch (IllegalArgumentException e) {
+				e.printStackTrace();
+			}
+			return;
+		}
+		valueScale = arg;
+	}
+	
 	public static void setLogSearch(boolean arg) {
 		logSearch = arg;
 	}
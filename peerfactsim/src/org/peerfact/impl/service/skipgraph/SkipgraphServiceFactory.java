@@ -109,11 +109,66 @@ public class SkipgraphServiceFactory implements ComponentFactory {
 	}
 
 	
+	public static void setValueScale(int arg){
+		System.out.println("INFO: setting fixed-point scale of element values to: "+arg+" decimal places");
+		SkipgraphServiceConstants.setValueScale(arg);
+	}
+	
 	public static void setParallelSearch(boolean arg){
 		System.out.println("INFO: parallel search enabled? "+arg);
 		SkipgraphServiceConstants.setParallelSearch(arg);
 	}
 	
+	public static void setColumnarElementTable(boolean arg){
+		System.out.println("INFO: columnar element table enabled? "+arg);
+		SkipgraphServiceConstants.setColumnarElementTable(arg);
+	}
+	
+	public static void setZoneMaps(boolean arg){
+		System.out.println("INFO: zone maps enabled? "+arg);
+		SkipgraphServiceConstants.setZoneMaps(arg);
+	}
+	
+	public static void setKSearchLimit(boolean arg){
+		System.out.println("INFO: k-search limit enabled? "+arg);
+		SkipgraphServiceConstants.setKSearchLimit(arg);
+	}
+	
+	public static void setSearchCancellation(boolean arg){
+		System.out.println("INFO: search cancellation enabled? "+arg);
+		SkipgraphServiceConstants.setSearchCancellation(arg);
+	}
+	
+	public static void setSemiJoinSearch(boolean arg){
+		System.out.println("INFO: semi-join search enabled? "+arg);
+		SkipgraphServiceConstants.setSemiJoinSearch(arg);
+	}
+	
+	public static void setSearchResultCache(boolean arg){
+		System.out.println("INFO: search result cache enabled? "+arg);
+		SkipgraphServiceConstants.setSearchResultCache(arg);
+	}
+	
+	public static void setAdaptiveSearch(boolean arg){
+		System.out.println("INFO: adaptive search enabled? "+arg);
+		SkipgraphServiceConstants.setAdaptiveSearch(arg);
+	}
+	
+	public static void setHistogramGossip(boolean arg){
+		System.out.println("INFO: histogram gossip enabled? "+arg);
+		SkipgraphServiceConstants.setHistogramGossip(arg);
+	}
+	
+	public static void setShortcutCache(boolean arg){
+		System.out.println("INFO: shortcut cache enabled? "+arg);
+		SkipgraphServiceConstants.setShortcutCache(arg);
+	}
+	
+	public static void setDirectAddressing(boolean arg){
+		System.out.println("INFO: direct addressing enabled? "+arg);
+		SkipgraphServiceConstants.setDirectAddressing(arg);
+	}
+	
 	public static void setLoadBalancing(boolean loadBalancing){
 		System.out.println("INFO: load balancing enabled? "+loadBalancing);
 		SkipgraphServiceConstants.setLoadBalancing(loadBalancing);
@@ -134,6 +189,11 @@ public class SkipgraphServiceFactory implements ComponentFactory {
 		SkipgraphServiceConstants.setOptimizeLevelPrefix(arg);
 	}
 	
+	public static void setLevelPrefixArity(int arg){
+		System.out.println("INFO: setting arity of the level prefixes to: "+arg);
+		SkipgraphServiceConstants.setLevelPrefixArity(arg);
+	}
+	
 	public static void setHeadroom(double arg) {
 		System.out.println("INFO: setting loadbalancing headroom to "+(arg*100)+"%");
 		SkipgraphServiceConstants.setHeadroom(arg);
@@ -77,11 +77,70 @@ public interface SkipgraphServiceInterface extends Service {
 		public void gotAnswer(boolean successful, Set<ApplicationContact> contacts);
 	}
 
+	/**
+	 * a search callback which also receives the results while the search is still running
+	 */
+	public interface StreamingSearchQueryCallback extends SearchQueryCallback {
+		/**
+		 * Called whenever new results are known, before the final {@link #gotAnswer}.
+		 * A contact of a multi-dimensional search is a result as soon as all dimensions 
+		 * have returned it. At most k contacts are delivered in total. The contacts are 
+		 * part of the final answer, also if the search times out.
+		 * @param contacts the new results since the last call
+		 */
+		public void gotPartialAnswer(Set<ApplicationContact> contacts);
+	}
+
 	public void get(int index, SearchQueryCallback searchQueryCallback);
 
 	public void search(List<SearchQuery> searchQueries, int k, 
 			SearchQueryCallback searchQueryCallback);
 
+	/**
+	 * a {@link #search} which delivers the results as soon as they are known. 
+	 * The final {@link SearchQueryCallback#gotAnswer} contains all results.
+	 */
+	public void searchStreaming(List<SearchQuery> searchQueries, int k, 
+			StreamingSearchQueryCallback searchQueryCallback);
+
+	/**
+	 * several searches in one pass: the queries of all searches share the bootstrap and the 
+	 * forwarding messages. Each search returns the same results as a {@link #search} call.
+	 * @param searchQueryCallbacks	one callback per search
+	 */
+	public void searchBatch(List<List<SearchQuery>> searches, int k, 
+			List<SearchQueryCallback> searchQueryCallbacks);
+
+	/**
+	 * the contacts of the k highest values in the range of the query, highest first. 
+	 * The nodes are walked downwards from the node responsible for the range end.
+	 */
+	public void searchTopK(SearchQuery searchQuery, int k, 
+			SearchQueryCallback searchQueryCallback);
+
+	/**
+	 * the contacts of the k lowest values in the range of the query, lowest first. 
+	 * The nodes are walked upwards from the node responsible for the range start.
+	 */
+	public void searchBottomK(SearchQuery searchQuery, int k, 
+			SearchQueryCallback searchQueryCallback);
+
+	public interface AggregateCallback {
+		/**
+		 * @param successful
+		 * @param aggregate null, if unsuccessful, otherwise count, min, max and
+		 * 			histogram of the values in the query range.
+		 */
+		public void gotAnswer(boolean successful, SearchAggregate aggregate);
+	}
+
+	/**
+	 * aggregates the values of a range without transferring the contacts.
+	 * @param histogramBuckets	0 for count, min and max only. a histogram needs a finite query range.
+	 */
+	public void aggregate(SearchQuery searchQuery, int histogramBuckets, 
+			AggregateCallback aggregateCallback);
+
 
 	
 	/* ***********
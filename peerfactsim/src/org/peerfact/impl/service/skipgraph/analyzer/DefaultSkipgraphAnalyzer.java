@@ -36,7 +36,9 @@ import org.peerfact.impl.analyzer.AbstractFileMetricAnalyzer;
 import org.peerfact.impl.analyzer.metric.CounterMetric;
 import org.peerfact.impl.analyzer.metric.StatisticMetric;
 import org.peerfact.impl.analyzer.metric.StatisticMetricNoReset;
+import org.peerfact.impl.service.skipgraph.SearchPlan;
 import org.peerfact.impl.service.skipgraph.SearchQuery;
+import org.peerfact.impl.service.skipgraph.analyzer.metrics.AverageDurationMetric;
 import org.peerfact.impl.service.skipgraph.analyzer.metrics.AvgSGSuccessAndFailedMetric;
 import org.peerfact.impl.service.skipgraph.analyzer.metrics.MultiSumMetricByString;
 import org.peerfact.impl.service.skipgraph.analyzer.metrics.PrecisionMetric;
@@ -75,6 +77,7 @@ public class DefaultSkipgraphAnalyzer extends AbstractFileMetricAnalyzer<Applica
 
 	private final StatisticMetric<ApplicationContact, Long> searchDuration;
 	private final StatisticMetricNoReset<ApplicationContact, Long> searchDurationNoReset;
+	private final AverageDurationMetric<ApplicationContact> searchTimeToFirstResult;
 	private final StatisticMetric<ApplicationContact, Integer> searchMessageCount;
 	private final StatisticMetricNoReset<ApplicationContact, Integer> searchMessageCountNoReset;
 	private final StatisticMetric<ApplicationContact, Double>        searchHops;
@@ -87,6 +90,18 @@ public class DefaultSkipgraphAnalyzer extends AbstractFileMetricAnalyzer<Applica
 	
 	private final StatisticMetric<ApplicationContact, Double> bootstrapAttempts;
 	
+	/** 1 per cache hit, 0 per miss -> the mean is the hit rate */
+	private final StatisticMetric<ApplicationContact, Double>        searchCacheHitRate;
+	private final StatisticMetricNoReset<ApplicationContact, Double> searchCacheHitRateNoReset;
+	
+	/** adaptive search: number of searches, messages and duration per plan, see SearchPlan */
+	private final List<String> searchPlanSelection;
+	private final MultiSumMetricByString<ApplicationContact, Integer> searchPlans;
+	private final MultiSumMetricByString<ApplicationContact, Integer> searchPlanMessages;
+	private final MultiSumMetricByString<ApplicationContact, Long>    searchPlanDuration;
+	/** visited nodes - estimated nodes, only for bounded estimates */
+	private final StatisticMetric<ApplicationContact, Double>         searchPlanEstimateError;
+	
 	/** This predefined metric is used to keep track of the number of node's added per minute. */
 	private final CounterMetric<ApplicationContact> nodesAddedPerMinute;
 	
@@ -142,6 +157,7 @@ public class DefaultSkipgraphAnalyzer extends AbstractFileMetricAnalyzer<Applica
                                              
 		this.searchMessageCount              = new StatisticMetric<>       ("Search Messages", "Number");
 		this.searchMessageCountNoReset       = new StatisticMetricNoReset<>("Search Messages (smoothed)", "Number");
+		this.searchTimeToFirstResult         = new AverageDurationMetric<>("Search Time To First Result", "Milliseconds");
 		this.searchMessageCountSelection     = new LinkedList<>();
 		searchMessageCountSelection.add(BOOTSTRAP);
 		searchMessageCountSelection.add(FORWARDING);
@@ -154,6 +170,18 @@ public class DefaultSkipgraphAnalyzer extends AbstractFileMetricAnalyzer<Applica
 		this.searchHopsDistinctNoReset       = new StatisticMetricNoReset<>("Search distinct Hops (smoothed)", "Number");
 		
 		this.bootstrapAttempts               = new StatisticMetric<>       ("bootstrap attempts", "Number");
+		
+		this.searchCacheHitRate              = new StatisticMetric<>       ("Search Cache Hit Rate", "Rate");
+		this.searchCacheHitRateNoReset       = new StatisticMetricNoReset<>("Search Cache Hit Rate (smoothed)", "Rate");
+		
+		this.searchPlanSelection             = new LinkedList<>();
+		searchPlanSelection.add(SearchPlan.SERIAL);
+		searchPlanSelection.add(SearchPlan.PARALLEL);
+		searchPlanSelection.add(SearchPlan.MIXED);
+		this.searchPlans                     = new MultiSumMetricByString<>("Search Plan", "Number", searchPlanSelection, 0, false);
+		this.searchPlanMessages              = new MultiSumMetricByString<>("Search Plan Messages", "Number", searchPlanSelection, 0, false);
+		this.searchPlanDuration              = new MultiSumMetricByString<>("Search Plan Duration", "Milliseconds", searchPlanSelection, 0, false);
+		this.searchPlanEstimateError         = new StatisticMetric<>       ("Search Plan Estimate Error", "Nodes");
 		                                     
 		this.nodesAddedPerMinute             = new CounterMetric<>         ("SkipgraphNodes added", "Number");
 		this.nodesRemovedPerMinute           = new CounterMetric<>         ("SkipgraphNodes removed", "Number");
@@ -185,10 +213,17 @@ public class DefaultSkipgraphAnalyzer extends AbstractFileMetricAnalyzer<Applica
 		addMetric(this.updateTimeouts);
 		addMetric(this.searchDuration);
 		addMetric(this.searchDurationNoReset);
+		addMetric(this.searchTimeToFirstResult);
 		addMetric(this.searchMessageCount);
 		addMetric(this.searchMessageCountNoReset);
 		addMetric(this.searchMessageCountDetails);
 		addMetric(this.bootstrapAttempts);
+		addMetric(this.searchCacheHitRate);
+		addMetric(this.searchCacheHitRateNoReset);
+		addMetric(this.searchPlans);
+		addMetric(this.searchPlanMessages);
+		addMetric(this.searchPlanDuration);
+		addMetric(this.searchPlanEstimateError);
 		addMetric(this.nodeFluctuation);
 		addMetric(this.updateInputHops                );
 		addMetric(this.updateInputHopsNoReset         );
@@ -262,6 +297,12 @@ public class DefaultSkipgraphAnalyzer extends AbstractFileMetricAnalyzer<Applica
 	}
 
 
+	@Override
+	public void addSearchTimeToFirstResult(ApplicationContact peer, long duration) {
+		searchTimeToFirstResult.addDuration(peer, duration);
+	}
+
+
 	@Override
 	public void addSearchQueryMessageCount(ApplicationContact peer,
 			int bootstrap, int nack, int forwarding, int reply) {
@@ -292,6 +333,26 @@ public class DefaultSkipgraphAnalyzer extends AbstractFileMetricAnalyzer<Applica
 	}
 
 
+	@Override
+	public void searchCacheLookup(ApplicationContact peer, boolean hit) {
+		searchCacheHitRate       .addValue(peer, hit ? 1.0 : 0.0);
+		searchCacheHitRateNoReset.addValue(peer, hit ? 1.0 : 0.0);
+	}
+
+
+
+	@Override
+	public void addSearchPlanOutcome(ApplicationContact peer, String plan,
+			int estimatedNodes, int visitedNodes, long duration, int messages) {
+		searchPlans       .addValue(peer, plan, 1);
+		searchPlanMessages.addValue(peer, plan, messages);
+		searchPlanDuration.addValue(peer, plan, duration/Simulator.MILLISECOND_UNIT);
+		if (estimatedNodes != SearchPlan.UNKNOWN) {
+			searchPlanEstimateError.addValue(peer, (double)(visitedNodes - estimatedNodes));
+		}
+	}
+
+
 	@Override
 	public void addUpdateDuration(ApplicationContact peer, long duration) {
 		updateDuration.addValue(peer, duration/Simulator.MILLISECOND_UNIT);
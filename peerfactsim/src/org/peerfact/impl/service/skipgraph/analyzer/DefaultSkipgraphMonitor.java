@@ -210,6 +210,17 @@ public class DefaultSkipgraphMonitor extends DefaultCommunicationManagerSupportM
 		}
 	}
 
+
+	@Override
+	public void addSearchTimeToFirstResult(ApplicationContact contact,
+			long duration) {
+		if(isMonitoring){
+			for(SkipgraphAnalyzer analyzer : skipgraphAnalyzers){
+				analyzer.addSearchTimeToFirstResult(contact, duration);
+			}
+		}
+	}
+
 	
 	@Override
 	public void addSearchQueryMessageCount(ApplicationContact contact,
@@ -254,6 +265,27 @@ public class DefaultSkipgraphMonitor extends DefaultCommunicationManagerSupportM
 	}
 
 
+	@Override
+	public void searchCacheLookup(ApplicationContact contact, boolean hit) {
+		if(isMonitoring){
+			for(SkipgraphAnalyzer analyzer : skipgraphAnalyzers){
+				analyzer.searchCacheLookup(contact, hit);
+			}
+		}
+	}
+
+
+	@Override
+	public void addSearchPlanOutcome(ApplicationContact contact, String plan,
+			int estimatedNodes, int visitedNodes, long duration, int messages) {
+		if(isMonitoring){
+			for(SkipgraphAnalyzer analyzer : skipgraphAnalyzers){
+				analyzer.addSearchPlanOutcome(contact, plan, estimatedNodes, visitedNodes, duration, messages);
+			}
+		}
+	}
+
+
 	
 	/* ************************************************
 	 ************* SkipgraphNodeAnalyzer **************
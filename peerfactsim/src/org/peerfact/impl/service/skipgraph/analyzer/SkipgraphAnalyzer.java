@@ -62,6 +62,11 @@ public interface SkipgraphAnalyzer extends Analyzer {
 	
 	public void addSearchQueryDuration(ApplicationContact contact, long duration);
 	
+	/**
+	 * @param duration	the time from the start of a search until the first result was known
+	 */
+	public void addSearchTimeToFirstResult(ApplicationContact contact, long duration);
+	
 	public void addSearchQueryMessageCount(ApplicationContact contact, 
 			int bootstrap, int nack, int forwarding, int reply);
 	
@@ -72,6 +77,17 @@ public interface SkipgraphAnalyzer extends Analyzer {
 	
 	public void bootstrapAttempts(ApplicationContact contact, int number);
 	
+	public void searchCacheLookup(ApplicationContact contact, boolean hit);
+	
+	/**
+	 * the outcome of an adaptive search, see {@link org.peerfact.impl.service.skipgraph.SearchPlan}
+	 * @param plan				serial, parallel or mixed
+	 * @param estimatedNodes	the estimated number of nodes, SearchPlan.UNKNOWN if unbounded
+	 * @param visitedNodes		the number of nodes that have replied
+	 */
+	public void addSearchPlanOutcome(ApplicationContact contact, String plan, 
+			int estimatedNodes, int visitedNodes, long duration, int messages);
+	
 
 
 	
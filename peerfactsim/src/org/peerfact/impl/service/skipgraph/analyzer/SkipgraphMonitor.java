@@ -65,6 +65,11 @@ public interface SkipgraphMonitor extends Monitor {
 	
 	public void addSearchQueryDuration(ApplicationContact contact, long duration);
 	
+	/**
+	 * @param duration	the time from the start of a search until the first result was known
+	 */
+	public void addSearchTimeToFirstResult(ApplicationContact contact, long duration);
+	
 	public void addSearchQueryMessageCount(ApplicationContact contact, 
 			int bootstrap, int nack, int forwarding, int reply);
 	
@@ -75,6 +80,17 @@ public interface SkipgraphMonitor extends Monitor {
 	
 	public void bootstrapAttempts(ApplicationContact contact, int number);
 	
+	public void searchCacheLookup(ApplicationContact contact, boolean hit);
+	
+	/**
+	 * the outcome of an adaptive search, see {@link org.peerfact.impl.service.skipgraph.SearchPlan}
+	 * @param plan				serial, parallel or mixed
+	 * @param estimatedNodes	the estimated number of nodes, SearchPlan.UNKNOWN if unbounded
+	 * @param visitedNodes		the number of nodes that have replied
+	 */
+	public void addSearchPlanOutcome(ApplicationContact contact, String plan, 
+			int estimatedNodes, int visitedNodes, long duration, int messages);
+	
 	public void nodeAdded(ApplicationContact contact, SkipgraphNode node);
 	
 	public void nodeRemoved(ApplicationContact contact, SkipgraphNode node);
@@ -36,7 +36,8 @@ import org.peerfact.impl.analyzer.metric.Metric;
 import org.peerfact.impl.simengine.Simulator;
 
 /**
- * a test metric.
+ * The average of the durations pushed per peer and per analyze step, e.g. the time 
+ * to the first result of a search. The durations are plotted in milliseconds.
  * 
  * @author Andreas Funke
  * @version 1.0, 03/22/2017
@@ -126,7 +127,7 @@ public class AverageDurationMetric<Peer> implements Metric<Peer, Object>{
 		 * not returning the same number of elements (headlines vs. each analyzer step)
 		 * following metrics get into trouble as they do not come upon their saved values!
 		 */
-		return Arrays.asList("AverageDuration");
+		return Arrays.asList(name.replace(" ", ""));
 	}
 
 	@Override
@@ -248,7 +249,7 @@ public class AverageDurationMetric<Peer> implements Metric<Peer, Object>{
 		script.write("plot '" + analyzer
 				+ AbstractFileAnalyzer.FILE_EXTENSION + "' using 1:"
 				+ startIndex		// the first column is aggregated success!
-				+ " ls 2 title '" + "Average Search Duration" + "' with linespoints,"
+				+ " ls 2 title '" + "Average " + name + "' with linespoints,"
                 + Constants.LINE_END);	// do not forget this one - it is annoying :)
 		
 		// replot the above plot using pdf
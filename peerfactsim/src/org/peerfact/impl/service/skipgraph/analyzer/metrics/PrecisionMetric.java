@@ -24,7 +24,6 @@ package org.peerfact.impl.service.skipgraph.analyzer.metrics;
 
 import java.io.IOException;
 import java.io.Writer;
-import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -39,6 +38,7 @@ import org.peerfact.impl.analyzer.AbstractFileMetricAnalyzer;
 import org.peerfact.impl.analyzer.metric.Metric;
 import org.peerfact.impl.service.skipgraph.SearchQuery;
 import org.peerfact.impl.service.skipgraph.node.SkipgraphElement;
+import org.peerfact.impl.service.skipgraph.util.ZOrderBox;
 import org.peerfact.impl.util.communicationmanager.ApplicationContact;
 
 /**
@@ -176,14 +176,17 @@ public class PrecisionMetric<Peer> implements Metric<Peer, Double>{
 	public void addData(List<SkipgraphElement> elements) {
 //		System.out.println("adding to actualData "+elements);
 		for (SkipgraphElement element : elements) {
-			actualCapacities.get(element.getDimension()).add(element);
+			// dimensions besides the capacities, e.g. a composite index
+			actualCapacities.computeIfAbsent(element.getDimension(), dimension -> new LinkedHashSet<>()).add(element);
 		}
 	}
 	
 	public void removeData(List<SkipgraphElement> elements) {
 //		System.out.println("removing from actualData "+elements);
 		for (SkipgraphElement element : elements) {
-			actualCapacities.get(element.getDimension()).remove(element);
+			if (actualCapacities.containsKey(element.getDimension())) {
+				actualCapacities.get(element.getDimension()).remove(element);
+			}
 		}
 	}
 	
@@ -199,22 +202,28 @@ public class PrecisionMetric<Peer> implements Metric<Peer, Double>{
 		// int l = k == 0 ? -1 : k;
 		
 		// for each 1-dimensional query we make a temporary set with results from the actual capacity data.
+		// the results of several queries on the same dimension (e.g. the key ranges of a composite 
+		// index search) are united before the intersection with the other dimensions.
+		Map<String, Set<ApplicationContact>> resultSetsPerDimension = new LinkedHashMap<>();
 		for (SearchQuery query : queries) {
 			/* the search query fields */
 			String dimension = query.getDimension();
-			BigDecimal rangeStart = query.getRangeStart();
-			BigDecimal rangeEnd = query.getRangeEnd();
+			long rangeStart = query.getRangeStart();
+			long rangeEnd = query.getRangeEnd();
+			ZOrderBox box = query.getBox();
 
 			/** temporary result set for each dimension */
-			Set<ApplicationContact> resultSetPerDimension = new LinkedHashSet<>();
+			Set<ApplicationContact> resultSetPerDimension 
+					= resultSetsPerDimension.computeIfAbsent(dimension, d -> new LinkedHashSet<>());
 
-			for (SkipgraphElement element : actualCapacities.get(dimension)) {
-				if ((rangeStart == null || rangeStart.compareTo(element.getValue()) <= 0) &&
-					(rangeEnd == null || rangeEnd.compareTo(element.getValue()) >= 0)) {
+			for (SkipgraphElement element : actualCapacities.getOrDefault(dimension, new LinkedHashSet<>())) {
+				if (rangeStart <= element.getValue() && element.getValue() <= rangeEnd
+						&& (box == null || box.contains(element.getValue()))) {
 						resultSetPerDimension.add(element.getContact());
 					}
 			}
-			
+		}
+		for (Set<ApplicationContact> resultSetPerDimension : resultSetsPerDimension.values()) {
 			if (targetSearchResults == null) {
 				// the first dimension is reference (no intersection possible)
 				targetSearchResults = resultSetPerDimension;
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2012-2013 Open Source Community - <http://www.peerfact.org>
+ * Copyright (c) 2011-2012 University of Paderborn - UPB
+ * Copyright (c) 2005-2011 KOM - Multimedia Communications Lab
+ *
+ * This file is part of PeerfactSim.KOM.
+ * 
+ * PeerfactSim.KOM is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ * 
+ * PeerfactSim.KOM is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with PeerfactSim.KOM.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.peerfact.impl.service.skipgraph.messages;
+
+import org.peerfact.Constants;
+import org.peerfact.impl.util.communicationmanager.AbstractAppMessage;
+import org.peerfact.impl.util.communicationmanager.ApplicationContact;
+
+/**
+ * Tells a service that a parallel search has enough results. The service stops
+ * processing the search and passes the message on to the services it has forwarded
+ * the search to. Doesn't send (N)ACKs.
+ * 
+ * @author Andreas Funke
+ * @version 1.0, 03/22/2017
+ */
+public class SearchCancelMessage extends AbstractSkipgraphServiceMessage 
+								 implements SearchQueryCategory {
+
+	private static final long serialVersionUID = -3175440262013685520L;
+
+	/* *******************************************
+	 ****************** FIELDS *******************
+	 ******************************************* */
+
+	private final ApplicationContact requesterContact;
+	
+	private final int requestOperationID;
+	
+	
+	
+	/* *************************************************
+	 ****************** CONSTRUCTORS *******************
+	 ************************************************* */
+
+	public SearchCancelMessage(
+			ApplicationContact sender,
+			ApplicationContact receiver,
+			int operationID,
+			ApplicationContact requesterContact,
+			int requestOperationID) 
+	{
+		super(sender, receiver, operationID);
+		this.requesterContact = requesterContact;
+		this.requestOperationID = requestOperationID;
+	}
+	
+	
+	
+	/* ************************************************
+	 ****************** GETTERS ***********************
+	 ************************************************ */
+
+	public ApplicationContact getRequesterContact() {
+		return requesterContact;
+	}
+	
+	public int getRequestOperationID() {
+		return requestOperationID;
+	}
+	
+
+	
+	/* ************************************************
+	 ********** AbstractAppMessage METHODS ************
+	 ************************************************ */
+
+	@Override
+	public AbstractAppMessage copy() {
+		return new SearchCancelMessage (
+				new ApplicationContact(getSender()), 
+				new ApplicationContact(getReceiver()),
+				this.getOperationID(),
+				new ApplicationContact(requesterContact),
+				requestOperationID);
+	}
+	
+	
+	@Override
+	public long getSize() {
+		return super.getSize() + requesterContact.getSize() + Constants.INT_SIZE;
+	}
+	
+	
+	@Override
+	public String toString() {
+		return super.toString()
+				+ ", requesterContact="+requesterContact
+				+ ", requestOperationID="+requestOperationID
+				;
+	}
+
+}
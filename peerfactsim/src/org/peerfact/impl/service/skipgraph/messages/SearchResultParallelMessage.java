@@ -29,6 +29,9 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import org.peerfact.impl.service.skipgraph.SearchAggregate;
+import org.peerfact.impl.service.skipgraph.SearchQuery;
+import org.peerfact.impl.service.skipgraph.SkipgraphServiceConstants;
 import org.peerfact.impl.util.communicationmanager.AbstractAppMessage;
 import org.peerfact.impl.util.communicationmanager.ApplicationContact;
 
@@ -45,7 +48,11 @@ public class SearchResultParallelMessage extends AbstractSkipgraphServiceMessage
 	 ****************** FIELDS *******************
 	 ******************************************* */
 
-	private final Map<String, Set<ApplicationContact>> results;
+	/** result key -> contacts, see {@link SearchQuery#getResultKey()} */
+	private final Map<Integer, Set<ApplicationContact>> results;
+	
+	/** aggregate search: partial aggregates per dimension instead of contacts */
+	private final Map<Integer, SearchAggregate> aggregates;
 	
 	private final Set<BigInteger> messageHopTrackerSet;
 	
@@ -61,12 +68,14 @@ public class SearchResultParallelMessage extends AbstractSkipgraphServiceMessage
 			ApplicationContact sender,
 			ApplicationContact receiver,
 			int operationID,
-			Map<String, Set<ApplicationContact>> results,
+			Map<Integer, Set<ApplicationContact>> results,
+			Map<Integer, SearchAggregate> aggregates,
 			Set<BigInteger> messageHopTrackerSet,
 			BigInteger senderNodeID) 
 	{
 		super(sender, receiver, operationID);
 		this.results = results;
+		this.aggregates = aggregates;
 		this.messageHopTrackerSet = messageHopTrackerSet;
 		this.senderNodeID = senderNodeID;
 	}
@@ -77,10 +86,14 @@ public class SearchResultParallelMessage extends AbstractSkipgraphServiceMessage
 	 ****************** GETTERS ***********************
 	 ************************************************ */
 
-	public Map<String, Set<ApplicationContact>> getResults() {
+	public Map<Integer, Set<ApplicationContact>> getResults() {
 		return results;
 	}
 	
+	public Map<Integer, SearchAggregate> getAggregates() {
+		return aggregates;
+	}
+	
 	public Set<BigInteger> getHopTrackerSet() {
 		return messageHopTrackerSet;
 	}
@@ -96,14 +109,18 @@ public class SearchResultParallelMessage extends AbstractSkipgraphServiceMessage
 
 	@Override
 	public AbstractAppMessage copy() {
-		Map<String, Set<ApplicationContact>> resultsCopy = new LinkedHashMap<>();
-		for (Entry<String, Set<ApplicationContact>> entry : results.entrySet()) {
+		Map<Integer, Set<ApplicationContact>> resultsCopy = new LinkedHashMap<>();
+		for (Entry<Integer, Set<ApplicationContact>> entry : results.entrySet()) {
 			Set<ApplicationContact> dimensionCopy = new LinkedHashSet<>();
 			for (ApplicationContact contact : entry.getValue()) {
 				dimensionCopy.add(new ApplicationContact(contact));
 			}
 			resultsCopy.put(entry.getKey(), dimensionCopy);
 		}
+		Map<Integer, SearchAggregate> aggregatesCopy = new LinkedHashMap<>();
+		for (Entry<Integer, SearchAggregate> entry : aggregates.entrySet()) {
+			aggregatesCopy.put(entry.getKey(), entry.getValue().copy());
+		}
 		Set<BigInteger> forwardedToCopy = new LinkedHashSet<>();
 		for (BigInteger contact : messageHopTrackerSet) {
 			forwardedToCopy.add(contact);
@@ -113,6 +130,7 @@ public class SearchResultParallelMessage extends AbstractSkipgraphServiceMessage
 				new ApplicationContact(getReceiver()),
 				this.getOperationID(),
 				resultsCopy,
+				aggregatesCopy,
 				forwardedToCopy,
 				senderNodeID);
 	}
@@ -122,13 +140,18 @@ public class SearchResultParallelMessage extends AbstractSkipgraphServiceMessage
 	public long getSize() {
 		long size = 0;
 		// results
-		for (Entry<String, Set<ApplicationContact>> entry : results.entrySet()) {
-			// dimension
-			size += 2*entry.getKey().length();
+		for (Entry<Integer, Set<ApplicationContact>> entry : results.entrySet()) {
+			// dimension id
+			size += SkipgraphServiceConstants.DIMENSION_SIZE;
 			for (ApplicationContact contact : entry.getValue()) {
 				size += contact.getSize();
 			}
 		}
+		// aggregates
+		for (SearchAggregate aggregate : aggregates.values()) {
+			size += SkipgraphServiceConstants.DIMENSION_SIZE;
+			size += aggregate.getTransmissionSize();
+		}
 		for (BigInteger contact : messageHopTrackerSet) {
 			size += contact.toByteArray().length;
 		}
@@ -141,6 +164,7 @@ public class SearchResultParallelMessage extends AbstractSkipgraphServiceMessage
 	public String toString() {
 		return super.toString()
 				+ ", results="+results
+				+ (aggregates.isEmpty() ? "" : ", aggregates="+aggregates)
 				+ ", messageHopTrackerSet="+messageHopTrackerSet
 				+ ", sederNodeID="+senderNodeID
 				;
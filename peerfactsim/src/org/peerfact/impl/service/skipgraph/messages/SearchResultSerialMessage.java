@@ -26,6 +26,8 @@ import java.util.LinkedHashSet;
 import java.util.Set;
 
 import org.peerfact.Constants;
+import org.peerfact.impl.service.skipgraph.SkipgraphServiceConstants;
+import org.peerfact.impl.service.skipgraph.util.DimensionRegistry;
 import org.peerfact.impl.util.communicationmanager.AbstractAppMessage;
 import org.peerfact.impl.util.communicationmanager.ApplicationContact;
 
@@ -42,7 +44,8 @@ public class SearchResultSerialMessage extends AbstractSkipgraphServiceMessage
 	 ****************** FIELDS *******************
 	 ******************************************* */
 
-	private final String dimension;
+	/** the dimension id */
+	private final int dimension;
 	
 	private final Set<ApplicationContact> results;
 	
@@ -60,7 +63,7 @@ public class SearchResultSerialMessage extends AbstractSkipgraphServiceMessage
 			ApplicationContact sender,
 			ApplicationContact receiver,
 			int operationID,
-			String dimension,
+			int dimension,
 			Set<ApplicationContact> results,
 			int messageCounter,
 			boolean lastMessage) 
@@ -78,7 +81,7 @@ public class SearchResultSerialMessage extends AbstractSkipgraphServiceMessage
 	 ****************** GETTERS ***********************
 	 ************************************************ */
 
-	public String getDimension() {
+	public int getDimension() {
 		return dimension;
 	}
 	
@@ -129,7 +132,7 @@ public class SearchResultSerialMessage extends AbstractSkipgraphServiceMessage
 		// lastMessage
 		size += Constants.BOOLEAN_SIZE;
 		// dimension
-		size += 2*dimension.length();
+		size += SkipgraphServiceConstants.DIMENSION_SIZE;
 		return super.getSize() + size;
 	}
 	
@@ -137,7 +140,7 @@ public class SearchResultSerialMessage extends AbstractSkipgraphServiceMessage
 	@Override
 	public String toString() {
 		return super.toString()
-				+ "\ndimension="+dimension
+				+ "\ndimension="+DimensionRegistry.getName(dimension)
 				+ ", results="+results
 				+ ", counter="+messageCounter
 				+ ", last="+lastMessage;
@@ -0,0 +1,471 @@
+package org.peerfact.impl.service.skipgraph.node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.peerfact.Constants;
+import org.peerfact.impl.service.skipgraph.SearchAggregate;
+import org.peerfact.impl.service.skipgraph.SkipgraphServiceConstants;
+import org.peerfact.impl.service.skipgraph.util.ContactPool;
+import org.peerfact.impl.service.skipgraph.util.DimensionRegistry;
+import org.peerfact.impl.util.communicationmanager.ApplicationContact;
+
+/**
+ * A columnar {@link ElementStore}. Instead of element objects the store keeps
+ * parallel primitive arrays (one row per element) sorted by value. Dimensions are
+ * stored by their global id, contacts as ids into a small per-store dictionary.
+ *
+ * Elements returned by {@link #get(int)} are materialized on demand and don't carry
+ * any callbacks.
+ *
+ * @author Andreas Funke
+ * @version 1.0, 03/22/2017
+ */
+class ColumnarElementStore implements ElementStore {
+
+	/* *******************************************
+	 ****************** FIELDS *******************
+	 ******************************************* */
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private long[] values = new long[INITIAL_CAPACITY];
+
+	/** dimension ids, see {@link DimensionRegistry} */
+	private int[] dimensions = new int[INITIAL_CAPACITY];
+
+	private int[] contacts = new int[INITIAL_CAPACITY];
+
+	private long[] timestamps = new long[INITIAL_CAPACITY];
+
+	/** number of rows in use */
+	private int size = 0;
+
+	/** contact dictionary: id -> contact and contact -> id */
+	private List<ApplicationContact> contactList = new ArrayList<>();
+	private Map<ApplicationContact, Integer> contactIds = new LinkedHashMap<>();
+
+
+
+	/* ************************************************
+	 ****************** INTERFACE *********************
+	 ************************************************ */
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+
+	@Override
+	public SkipgraphElement get(int index) {
+		checkIndex(index);
+		return new SkipgraphElement(
+				dimensions[index],
+				values[index],
+				contactList.get(contacts[index]),
+				timestamps[index]);
+	}
+
+
+	@Override
+	public long getValue(int index) {
+		checkIndex(index);
+		return values[index];
+	}
+
+
+	@Override
+	public int getDimensionId(int index) {
+		checkIndex(index);
+		return dimensions[index];
+	}
+
+
+	@Override
+	public long getTimestamp(int index) {
+		checkIndex(index);
+		return timestamps[index];
+	}
+
+
+	@Override
+	public void insert(SkipgraphElement element) {
+		int index = upperBound(element.getValue());
+		ensureCapacity(size + 1);
+		int tail = size - index;
+		if (tail > 0) {
+			System.arraycopy(values, index, values, index + 1, tail);
+			System.arraycopy(dimensions, index, dimensions, index + 1, tail);
+			System.arraycopy(contacts, index, contacts, index + 1, tail);
+			System.arraycopy(timestamps, index, timestamps, index + 1, tail);
+		}
+		values[index] = element.getValue();
+		dimensions[index] = element.getDimensionId();
+		contacts[index] = getOrAddContactId(element.getContact());
+		timestamps[index] = element.getTimestamp();
+		size++;
+	}
+
+
+	@Override
+	public boolean remove(SkipgraphElement element) {
+		int index = indexOf(element);
+		if (index < 0) {
+			return false;
+		}
+		removeRow(index);
+		return true;
+	}
+
+
+	@Override
+	public void bulkUpdate(Set<SkipgraphElement> removals, List<SkipgraphElement> insertions) {
+		int capacity = Math.max(INITIAL_CAPACITY, size + insertions.size());
+		long[] mergedValues = new long[capacity];
+		int[] mergedDimensions = new int[capacity];
+		int[] mergedContacts = new int[capacity];
+		long[] mergedTimestamps = new long[capacity];
+		boolean[] removed = new boolean[size];
+		for (SkipgraphElement element : removals) {
+			int index = indexOf(element);
+			if (index >= 0) {
+				removed[index] = true;
+			}
+		}
+		int merged = 0;
+		int i = 0;
+		for (int row = 0; row <= size; row++) {
+			// new elements go behind existing rows with an equal value
+			while (i < insertions.size() && (row == size || insertions.get(i).getValue() < values[row])) {
+				SkipgraphElement element = insertions.get(i++);
+				mergedValues[merged] = element.getValue();
+				mergedDimensions[merged] = element.getDimensionId();
+				mergedContacts[merged] = getOrAddContactId(element.getContact());
+				mergedTimestamps[merged] = element.getTimestamp();
+				merged++;
+			}
+			if (row == size || removed[row]) {
+				continue;
+			}
+			mergedValues[merged] = values[row];
+			mergedDimensions[merged] = dimensions[row];
+			mergedContacts[merged] = contacts[row];
+			mergedTimestamps[merged] = timestamps[row];
+			merged++;
+		}
+		values = mergedValues;
+		dimensions = mergedDimensions;
+		contacts = mergedContacts;
+		timestamps = mergedTimestamps;
+		size = merged;
+		if (contactList.size() > 2 * size + INITIAL_CAPACITY) {
+			compactDictionaries();
+		}
+	}
+
+
+	@Override
+	public boolean removeIfExpired(SkipgraphElement element, long expirationDate) {
+		int index = indexOf(element);
+		if (index < 0 || timestamps[index] > expirationDate) {
+			return false;
+		}
+		removeRow(index);
+		return true;
+	}
+
+
+	@Override
+	public boolean purge(long expirationDate) {
+		// compact the rows in place, the remaining rows stay in sorted order
+		int remaining = 0;
+		for (int i = 0; i < size; i++) {
+			if (timestamps[i] > expirationDate) {
+				if (remaining != i) {
+					values[remaining] = values[i];
+					dimensions[remaining] = dimensions[i];
+					contacts[remaining] = contacts[i];
+					timestamps[remaining] = timestamps[i];
+				}
+				remaining++;
+			}
+		}
+		boolean purged = remaining < size;
+		size = remaining;
+		if (purged && contactList.size() > 2 * size + INITIAL_CAPACITY) {
+			compactDictionaries();
+		}
+		return purged;
+	}
+
+
+	@Override
+	public Set<ApplicationContact> getContacts(
+			int dimension,
+			long start,
+			long end,
+			boolean excludeEnd,
+			int maxNumberOfValues,
+			long expirationDate)
+	{
+		Set<ApplicationContact> results = new LinkedHashSet<>();
+		for (int i = lowerBound(start); i < size; i++) {
+			long value = values[i];
+			// since the rows are sorted we can break out of the loop once the upper interval limit is crossed
+			if (value > end || (excludeEnd && value == end)) {
+				break;
+			}
+			if (dimensions[i] != dimension || timestamps[i] < expirationDate) {
+				continue;
+			}
+			results.add(contactList.get(contacts[i]));
+			if (maxNumberOfValues > 0 && results.size() >= maxNumberOfValues) {
+				break;
+			}
+		}
+		return results;
+	}
+
+
+	@Override
+	public Set<ApplicationContact> getLastContacts(
+			int dimension,
+			long start,
+			long end,
+			boolean excludeEnd,
+			int maxNumberOfValues,
+			long expirationDate)
+	{
+		Set<ApplicationContact> results = new LinkedHashSet<>();
+		for (int i = (excludeEnd ? lowerBound(end) : upperBound(end)) - 1; i >= 0; i--) {
+			// the rows are sorted, so we are done once the lower interval limit is crossed
+			if (values[i] < start) {
+				break;
+			}
+			if (dimensions[i] != dimension || timestamps[i] < expirationDate) {
+				continue;
+			}
+			results.add(contactList.get(contacts[i]));
+			if (maxNumberOfValues > 0 && results.size() >= maxNumberOfValues) {
+				break;
+			}
+		}
+		return results;
+	}
+
+
+	@Override
+	public void aggregate(
+			int dimension,
+			long start,
+			long end,
+			boolean excludeEnd,
+			long expirationDate,
+			SearchAggregate aggregate)
+	{
+		for (int i = lowerBound(start); i < size; i++) {
+			long value = values[i];
+			if (value > end || (excludeEnd && value == end)) {
+				break;
+			}
+			if (dimensions[i] == dimension && timestamps[i] >= expirationDate) {
+				aggregate.add(value);
+			}
+		}
+	}
+
+
+	@Override
+	public void internContacts(ContactPool pool) {
+		contactIds.clear();
+		for (int i = 0; i < contactList.size(); i++) {
+			contactList.set(i, pool.intern(contactList.get(i)));
+			contactIds.put(contactList.get(i), i);
+		}
+	}
+
+
+	@Override
+	public ElementStore subStore(int fromIndex, int toIndex) {
+		ColumnarElementStore store = new ColumnarElementStore();
+		store.ensureCapacity(toIndex - fromIndex);
+		for (int i = fromIndex; i < toIndex; i++) {
+			store.appendRow(this, i);
+		}
+		return store;
+	}
+
+
+	@Override
+	public ElementStore copy() {
+		ColumnarElementStore store = (ColumnarElementStore)subStore(0, size);
+		for (int i = 0; i < store.contactList.size(); i++) {
+			store.contactList.set(i, new ApplicationContact(store.contactList.get(i)));
+		}
+		store.contactIds.clear();
+		for (int i = 0; i < store.contactList.size(); i++) {
+			store.contactIds.put(store.contactList.get(i), i);
+		}
+		return store;
+	}
+
+
+	/**
+	 * the wire format is the same as for the row store, so we account the same size.
+	 */
+	@Override
+	public long getTransmissionSize() {
+		long size = 0;
+		for (int i = 0; i < this.size; i++) {
+			// dimension
+			size += SkipgraphServiceConstants.DIMENSION_SIZE;
+			// value
+			size += SkipgraphServiceConstants.RESOLUTION_SIZE;
+			// contact
+			size += contactList.get(contacts[i]).getSize();
+			// timestamp
+			size += Constants.LONG_SIZE;
+		}
+		return size;
+	}
+
+
+
+	/* *************************************************
+	 ****************** METHODS ************************
+	 ***************************************************/
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size);
+		}
+	}
+
+
+	private void removeRow(int index) {
+		int tail = size - index - 1;
+		if (tail > 0) {
+			System.arraycopy(values, index + 1, values, index, tail);
+			System.arraycopy(dimensions, index + 1, dimensions, index, tail);
+			System.arraycopy(contacts, index + 1, contacts, index, tail);
+			System.arraycopy(timestamps, index + 1, timestamps, index, tail);
+		}
+		size--;
+		if (contactList.size() > 2 * size + INITIAL_CAPACITY) {
+			compactDictionaries();
+		}
+	}
+
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= values.length) {
+			return;
+		}
+		int newCapacity = Math.max(capacity, values.length * 2);
+		values = Arrays.copyOf(values, newCapacity);
+		dimensions = Arrays.copyOf(dimensions, newCapacity);
+		contacts = Arrays.copyOf(contacts, newCapacity);
+		timestamps = Arrays.copyOf(timestamps, newCapacity);
+	}
+
+
+	/**
+	 * appends a row of another store. the row must not be lower than the current last row.
+	 */
+	private void appendRow(ColumnarElementStore source, int index) {
+		ensureCapacity(size + 1);
+		values[size] = source.values[index];
+		dimensions[size] = source.dimensions[index];
+		contacts[size] = getOrAddContactId(source.contactList.get(source.contacts[index]));
+		timestamps[size] = source.timestamps[index];
+		size++;
+	}
+
+
+	private int getOrAddContactId(ApplicationContact contact) {
+		Integer id = contactIds.get(contact);
+		if (id == null) {
+			id = contactList.size();
+			contactList.add(contact);
+			contactIds.put(contact, id);
+		}
+		return id;
+	}
+
+
+	/**
+	 * drops dictionary entries that are no longer referenced by any row
+	 */
+	private void compactDictionaries() {
+		List<ApplicationContact> oldContactList = contactList;
+		contactList = new ArrayList<>();
+		contactIds = new LinkedHashMap<>();
+		for (int i = 0; i < size; i++) {
+			contacts[i] = getOrAddContactId(oldContactList.get(contacts[i]));
+		}
+	}
+
+
+	/**
+	 * binary search on the value column
+	 * @return	the index of the first row with a value greater or equal to the given value
+	 */
+	private int lowerBound(long value) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (values[mid] < value) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+
+	/**
+	 * binary search on the value column
+	 * @return	the index of the first row with a value greater than the given value
+	 */
+	private int upperBound(long value) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (values[mid] <= value) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+
+	/**
+	 * @return	the row of an equal element (same value, dimension and contact) or -1 if not contained
+	 */
+	private int indexOf(SkipgraphElement element) {
+		Integer contact = contactIds.get(element.getContact());
+		if (contact == null) {
+			return -1;
+		}
+		for (int i = lowerBound(element.getValue()); i < size && values[i] == element.getValue(); i++) {
+			if (dimensions[i] == element.getDimensionId() && contacts[i] == contact) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+}
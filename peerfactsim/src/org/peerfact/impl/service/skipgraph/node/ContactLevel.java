@@ -2,6 +2,13 @@ package org.peerfact.impl.service.skipgraph.node;
 
 import static org.peerfact.impl.application.capacitymanager.CapacityManagerApplicationConstants.ind4;
 
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
 import org.peerfact.Constants;
 import org.peerfact.api.overlay.dht.DHTObject;
 
@@ -20,6 +27,11 @@ public class ContactLevel implements DHTObject {
 	private SkipgraphContact prevContact;
 	
 	private SkipgraphContact nextContact;
+	
+	/** per prefix other than our own: the nearest node of that sibling list in NEXT direction.
+	 * only kept if levelPrefixArity > 2 and only used to route searches. 
+	 */
+	private final TreeMap<Integer, SkipgraphContact> neighbours = new TreeMap<>();
 
 
 	
@@ -50,6 +62,13 @@ public class ContactLevel implements DHTObject {
 	public SkipgraphContact getNextContact() {
 		return nextContact;
 	}
+	
+	/**
+	 * @return	the neighbours in the sibling lists of the other prefixes, unmodifiable
+	 */
+	public Collection<SkipgraphContact> getNeighbours() {
+		return Collections.unmodifiableCollection(neighbours.values());
+	}
 
 
 	
@@ -68,7 +87,8 @@ public class ContactLevel implements DHTObject {
 			}
 		}
 		
-		if (prevContact != null && prevContact.equals(contactUpdate))
+		if (prevContact != null && prevContact.equals(contactUpdate) 
+				&& Objects.equals(prevContact.getZoneMap(), contactUpdate.getZoneMap()))
 			return false;
 
 		prevContact = contactUpdate;
@@ -87,7 +107,8 @@ public class ContactLevel implements DHTObject {
 			}
 		}
 		
-		if (nextContact != null && nextContact.equals(contactUpdate))
+		if (nextContact != null && nextContact.equals(contactUpdate) 
+				&& Objects.equals(nextContact.getZoneMap(), contactUpdate.getZoneMap()))
 			return false;
 
 		nextContact = contactUpdate;
@@ -100,8 +121,48 @@ public class ContactLevel implements DHTObject {
 			return false;
 		}
 		prefix = prefixUpdate;
+		// the neighbours were found for the former prefix
+		neighbours.clear();
+		return true;
+	}
+	
+	
+	/**
+	 * replaces the neighbours of this level. the neighbour with our own prefix is dropped.
+	 */
+	boolean setNeighbours(Map<Integer, SkipgraphContact> neighboursUpdate) {
+		TreeMap<Integer, SkipgraphContact> update = new TreeMap<>(neighboursUpdate);
+		update.remove(prefix);
+		if (neighbours.equals(update)) {
+			return false;
+		}
+		neighbours.clear();
+		neighbours.putAll(update);
 		return true;
 	}
+	
+	
+	/**
+	 * replaces a neighbour with an updated contact of the same node
+	 */
+	boolean updateNeighbour(SkipgraphContact contactUpdate) {
+		for (Map.Entry<Integer, SkipgraphContact> entry : neighbours.entrySet()) {
+			SkipgraphContact neighbour = entry.getValue();
+			if (neighbour.getNodeID().equals(contactUpdate.getNodeID())) {
+				if (neighbour.equals(contactUpdate)) {
+					return false;
+				}
+				entry.setValue(contactUpdate);
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	
+	boolean removeNeighbour(BigInteger contactID) {
+		return neighbours.values().removeIf(neighbour -> neighbour.getNodeID().equals(contactID));
+	}
 
 
 	
@@ -111,9 +172,13 @@ public class ContactLevel implements DHTObject {
 
 	@Override
 	public String toString() {
-		return "prefix="+prefix+":\n"
+		String str = "prefix="+prefix+":\n"
 				+ind4+"prev: "+getPrevContact()+"\n"
 				+ind4+"next: "+getNextContact();
+		for (Map.Entry<Integer, SkipgraphContact> entry : neighbours.entrySet()) {
+			str += "\n"+ind4+"neighbour prefix="+entry.getKey()+": "+entry.getValue();
+		}
+		return str;
 	}
 
 
@@ -129,6 +194,10 @@ public class ContactLevel implements DHTObject {
 		size += Constants.INT_SIZE;
 		// prev + next
 		size += prevContact.getTransmissionSize() + nextContact.getTransmissionSize();
+		// neighbours + their prefixes
+		for (SkipgraphContact neighbour : neighbours.values()) {
+			size += Constants.INT_SIZE + neighbour.getTransmissionSize();
+		}
 		return size;
 	}
 
@@ -3,11 +3,14 @@ package org.peerfact.impl.service.skipgraph.node;
 import static org.peerfact.impl.application.capacitymanager.CapacityManagerApplicationConstants.ind1;
 import static org.peerfact.impl.application.capacitymanager.CapacityManagerApplicationConstants.ind3;
 
-import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
 import java.util.Set;
 import java.util.TreeMap;
 
@@ -27,7 +30,24 @@ public class ContactTable implements DHTObject {
 	 ******************************************* */
 
 	private static int generatePrefix() {
-		return Simulator.getRandom().nextInt(2);
+		return Simulator.getRandom().nextInt(SkipgraphServiceConstants.levelPrefixArity);
+	}
+
+	/**
+	 * @return	a random prefix different from the given one. For binary prefixes
+	 * 			this is just the other prefix.
+	 */
+	private static int generatePrefixOtherThan(int prefix) {
+		int arity = SkipgraphServiceConstants.levelPrefixArity;
+		int other = arity > 2 ? Simulator.getRandom().nextInt(arity-1) : 0;
+		return other >= prefix ? other+1 : other;
+	}
+
+	/**
+	 * @return	the number of bits a level prefix takes in the table prefix
+	 */
+	private static int getPrefixBits() {
+		return Math.max(1, 32 - Integer.numberOfLeadingZeros(SkipgraphServiceConstants.levelPrefixArity-1));
 	}
 	
 	
@@ -35,10 +55,22 @@ public class ContactTable implements DHTObject {
 	 ****************** FIELDS *******************
 	 ******************************************* */
 
-	private final LinkedList<ContactLevel> contactLevelList;
+	private final ArrayList<ContactLevel> contactLevelList;
 	
 	private final BigInteger nodeID;
 
+	/** cached, see {@link #getContactRangeMap()}. null if a level has changed since */
+	private NavigableMap<Long, SkipgraphContact> contactRangeMap;
+
+	/** cached, see {@link #getRoutingMap(SkipgraphContact)}. null if a level has changed since */
+	private NavigableMap<Long, SkipgraphContact> routingMap;
+
+	/** the local contact the routing map was built with */
+	private SkipgraphContact routingMapSelf;
+
+	/** learned contacts of distant nodes, added to the routing map. see {@link ShortcutCache} */
+	private final ShortcutCache shortcuts;
+
 	
 	
 	/* *************************************************
@@ -53,7 +85,8 @@ public class ContactTable implements DHTObject {
 	 */
 	public ContactTable(BigInteger nodeID, SkipgraphContact prev, SkipgraphContact next) {
 		this.nodeID = nodeID;
-		this.contactLevelList = new LinkedList<>();
+		this.contactLevelList = new ArrayList<>();
+		this.shortcuts = new ShortcutCache(nodeID, SkipgraphServiceConstants.SHORTCUT_CACHE_SIZE);
 
 		// build level 0 -- always with fixed prefix '1'
 		ContactLevel level0 = new ContactLevel(prev, next, 1);
@@ -81,7 +114,7 @@ public class ContactTable implements DHTObject {
 	}
 	
 	public ContactLevel getTopLevel() {
-		return contactLevelList.getLast();
+		return contactLevelList.get(contactLevelList.size()-1);
 	}
 
 	public SkipgraphContact getPrev() {
@@ -105,11 +138,10 @@ public class ContactTable implements DHTObject {
 	}
 	
 	public int effectiveSize() {
-		Iterator<ContactLevel> it = contactLevelList.descendingIterator();
 		int counter = 1;
-		ContactLevel currentLevel = it.next();
-		while(it.hasNext()) {
-			ContactLevel nextLevel = it.next();
+		ContactLevel currentLevel = getTopLevel();
+		for (int i=size()-2; i>-1; i--) {
+			ContactLevel nextLevel = getLevel(i);
 			if (!currentLevel.equalsExceptPrefix(nextLevel)) {
 				counter++;
 			}
@@ -118,14 +150,33 @@ public class ContactTable implements DHTObject {
 		return counter;
 	}
 	
+	/**
+	 * @return	the number of distinct contacts of the levels, including the neighbours
+	 * 			in the sibling lists of the other prefixes
+	 */
 	public int getNumberOfDistinctContacts() {
-		return getContactSet().size();
+		Set<BigInteger> contactSet = getContactSet();
+		for (ContactLevel level : contactLevelList) {
+			for (SkipgraphContact neighbour : level.getNeighbours()) {
+				contactSet.add(neighbour.getNodeID());
+			}
+		}
+		return contactSet.size();
 	}
 	
-	public int getTablePrefix() {
-		int levelPrefix = 1;
-		for (int i=1; i<size(); i++) {
-			levelPrefix = levelPrefix<<1;
+	/**
+	 * @return	the prefixes of all levels above level 0, getPrefixBits() each, 
+	 * 			with a leading '1' for level 0. 
+	 * 			Only as many levels as fit into a positive long are packed, the prefixes of 
+	 * 			higher levels are left out. A node reading the table prefix will then choose
+	 * 			a random prefix for these levels, see {@link #addDefaultTopLevel(SkipgraphContact)}.
+	 */
+	public long getTablePrefix() {
+		int bits = getPrefixBits();
+		int maxLevels = Math.min(size(), (Long.SIZE-2)/bits + 1);
+		long levelPrefix = 1;
+		for (int i=1; i<maxLevels; i++) {
+			levelPrefix = levelPrefix<<bits;
 			levelPrefix += getLevel(i).getPrefix();
 		}
 		return levelPrefix;
@@ -138,15 +189,28 @@ public class ContactTable implements DHTObject {
 	 ************************************************ */
 
 	boolean setPrevOnLevel(SkipgraphContact skipgraphContatc, int index) {
-		return getLevel(index).setPrevContact(skipgraphContatc);
+		return contactsChanged(getLevel(index).setPrevContact(skipgraphContatc));
 	}
 
 	boolean setNextOnLevel(SkipgraphContact skipgraphContatc, int index) {
-		return getLevel(index).setNextContact(skipgraphContatc);
+		return contactsChanged(getLevel(index).setNextContact(skipgraphContatc));
+	}
+
+	/**
+	 * sets the neighbours of a level in the sibling lists of the other prefixes.
+	 * the zone maps are dropped, see {@link #learnShortcut(SkipgraphContact)}.
+	 * @return	true if the neighbours have changed
+	 */
+	boolean setNeighboursOnLevel(int index, Map<Integer, SkipgraphContact> neighbours) {
+		Map<Integer, SkipgraphContact> stripped = new TreeMap<>();
+		for (Entry<Integer, SkipgraphContact> entry : neighbours.entrySet()) {
+			stripped.put(entry.getKey(), withoutZoneMap(entry.getValue()));
+		}
+		return neighboursChanged(getLevel(index).setNeighbours(stripped));
 	}
 
 	boolean addLevel(ContactLevel level) {
-		return contactLevelList.add(level);
+		return contactsChanged(contactLevelList.add(level));
 	}
 
 	boolean addDefaultTopLevel(SkipgraphContact selfContact) {
@@ -175,11 +239,12 @@ public class ContactTable implements DHTObject {
 		//log += "prev on level="+(size-1)+": "+currentTopLevel.getPrevContact();
 		// we are shifting the table prefix to the right while it's greater than 0 to get the 
 		// size of the prev's table.
+		int bits = getPrefixBits();
 		int prevTableSize = 0;
 		long tmp = prevTablePrefix;
 		while (tmp > 0) {
 			prevTableSize++;
-			tmp >>>= 1;
+			tmp >>>= bits;
 		}
 		//log += " -- prevContactTableSize="+prevTableSize;
 		// if the size of the predecessor's table is smaller or equal our table's size, then 
@@ -189,15 +254,13 @@ public class ContactTable implements DHTObject {
 			//log += " is lower or equal to our own contactTableSize="+size
 			//		+ ". generating random prefix="+prefix;
 		}
-		// else we isolate the prefix bit for that level, switch it and that is our new prefix 
+		// else we isolate the prefix bits for that level and choose a different prefix 
 		else {
-			tmp = prevTablePrefix >>> (prevTableSize-(size()+1));
+			tmp = prevTablePrefix >>> ((prevTableSize-(size()+1))*bits);
 			//log += "\n   prevTablePrefix after shifting by the size-difference-1: "+tmp;
-			tmp = ~tmp;
-			//log += "\n   prevTablePrefix after bitwise complement: "+tmp;
-			tmp &= 1;
-			//log += "\n   prevTablePrefix after applying bitmask '1': "+tmp;
-			prefix = (int)tmp;
+			tmp &= (1 << bits) - 1;
+			//log += "\n   prevTablePrefix after applying bitmask: "+tmp;
+			prefix = generatePrefixOtherThan((int)tmp);
 			//log += "\n   => our prefix for level="+size+" is: "+prefix;
 		}
 		
@@ -220,10 +283,11 @@ public class ContactTable implements DHTObject {
 	 * @return			returns the highest PrevNode on the highest possible level that 
 	 * 					doesn't exceed the value
 	 */
-	public SkipgraphContact getPrevNodeForValue(BigDecimal value) {
+	public SkipgraphContact getPrevNodeForValue(long value) {
 		for (int i=size()-1; i>-1; i--) {
-			if (getLevel(i).getPrevContact().getRangeStart().compareTo(value) > 0) continue;
-			return getPrevOnLevel(i);
+			SkipgraphContact prev = getPrevOnLevel(i);
+			if (prev.getRangeStart() > value) continue;
+			return prev;
 		}
 		return getPrev();
 	}
@@ -234,24 +298,188 @@ public class ContactTable implements DHTObject {
 	 * this method returns an ordered map/list extracted from the contactTable, sorted by rangeStart
 	 * key: rangeStart of each contact in the table
 	 * value: the nodeID that belongs to the rangeStart
-	 * @return	TreeMap
+	 * 
+	 * The map is built once and cached until a level changes. It must not be modified.
+	 * @return	an unmodifiable NavigableMap
 	 */
-	public TreeMap<BigDecimal, SkipgraphContact> getContactRangeMap() {
-		/*
-		 * this is an ordered map/list extracted from the contactTable, sorted by rangeStart
-		 * key: rangeStart of each contact in the table
-		 * value: the nodeID that belongs to the rangeStart
-		 */
-		TreeMap<BigDecimal, SkipgraphContact> contactRangeMap = new TreeMap<>();
-		
+	public NavigableMap<Long, SkipgraphContact> getContactRangeMap() {
+		if (contactRangeMap == null) {
+			contactRangeMap = Collections.unmodifiableNavigableMap(buildContactRangeMap());
+		}
+		return contactRangeMap;
+	}
+	
+	
+	
+	/**
+	 * the contact range map used to route searches: like {@link #getContactRangeMap()}, but
+	 * including the local node and with the lowest entry being responsible for everything 
+	 * below its range, i.e. the first key is NEGATIVE_INFINITY.
+	 * 
+	 * The map contains the neighbours of the levels in the sibling lists of the other prefixes 
+	 * and, if shortcutCache is enabled, the learned shortcuts as well, as long as their range 
+	 * starts are not covered by the local node or a contact of the levels.
+	 * 
+	 * The map is cached until a level, a neighbour or a shortcut changes or the local contact 
+	 * is different.
+	 * It must not be modified.
+	 * 
+	 * @param self	the local contact, added at its range start. null to leave it out
+	 * @return	an unmodifiable NavigableMap
+	 */
+	public NavigableMap<Long, SkipgraphContact> getRoutingMap(SkipgraphContact self) {
+		if (SkipgraphServiceConstants.shortcutCache && shortcuts.purge()) {
+			routingMap = null;
+		}
+		if (routingMap != null && isRoutingMapSelf(self)) {
+			return routingMap;
+		}
+		TreeMap<Long, SkipgraphContact> map = buildContactRangeMap();
+		if (self != null) {
+			map.put(self.getRangeStart(), self);
+		}
+		// the contacts of the levels are more reliable than the neighbours, 
+		// and the neighbours are more reliable than the shortcuts
+		Set<BigInteger> contactSet = getContactSet();
+		for (ContactLevel level : contactLevelList) {
+			addDistantContacts(map, level.getNeighbours(), contactSet);
+		}
+		if (SkipgraphServiceConstants.shortcutCache && !shortcuts.isEmpty()) {
+			addDistantContacts(map, shortcuts.getContacts(), contactSet);
+		}
+		if (map.firstKey() > SkipgraphServiceConstants.NEGATIVE_INFINITY) {
+			SkipgraphContact firstContact = map.pollFirstEntry().getValue();
+			map.put(SkipgraphServiceConstants.NEGATIVE_INFINITY, firstContact);
+		}
+		routingMap = Collections.unmodifiableNavigableMap(map);
+		routingMapSelf = self;
+		return routingMap;
+	}
+	
+	
+	/**
+	 * adds contacts which are not on the levels to the map, unless they are contacts of the levels
+	 * or their range starts are covered by an entry of the map
+	 */
+	private static void addDistantContacts(TreeMap<Long, SkipgraphContact> map, 
+			Collection<SkipgraphContact> contacts, Set<BigInteger> contactSet) {
+		TreeMap<Long, SkipgraphContact> distantMap = new TreeMap<>();
+		for (SkipgraphContact contact : contacts) {
+			Entry<Long, SkipgraphContact> known = map.floorEntry(contact.getRangeStart());
+			if (contactSet.contains(contact.getNodeID())
+					|| (known != null && contact.getRangeStart() < known.getValue().getRangeEnd())) {
+				continue;
+			}
+			distantMap.put(contact.getRangeStart(), contact);
+		}
+		map.putAll(distantMap);
+	}
+	
+	
+	private TreeMap<Long, SkipgraphContact> buildContactRangeMap() {
+		TreeMap<Long, SkipgraphContact> map = new TreeMap<>();
 		for (ContactLevel level : contactLevelList) {
 			SkipgraphContact prev = level.getPrevContact();
 			SkipgraphContact next = level.getNextContact();
-			contactRangeMap.put(prev.getRangeStart(), prev);
-			contactRangeMap.put(next.getRangeStart(), next);
+			map.put(prev.getRangeStart(), prev);
+			map.put(next.getRangeStart(), next);
 		}
-		
-		return contactRangeMap;
+		return map;
+	}
+	
+	
+	/**
+	 * @return	true if the cached routing map was built with the same local contact.
+	 * 			only the node ID and the range start of the local contact are routed on.
+	 */
+	private boolean isRoutingMapSelf(SkipgraphContact self) {
+		if (self == null || routingMapSelf == null) {
+			return self == routingMapSelf;
+		}
+		return self.getNodeID().equals(routingMapSelf.getNodeID())
+				&& self.getRangeStart() == routingMapSelf.getRangeStart();
+	}
+	
+	
+	/**
+	 * adds the contact of a distant node to the shortcuts, if shortcutCache is enabled.
+	 * contacts of the levels are no shortcuts.
+	 * the zone map is dropped: updates of the zone map only reach the level contacts of a node,
+	 * so the search must not prune a shortcut by an outdated zone map.
+	 */
+	void learnShortcut(SkipgraphContact contact) {
+		if (SkipgraphServiceConstants.shortcutCache && contact != null && !isContact(contact.getNodeID())) {
+			shortcuts.learn(withoutZoneMap(contact));
+			routingMap = null;
+		}
+	}
+	
+	
+	private static SkipgraphContact withoutZoneMap(SkipgraphContact contact) {
+		return new SkipgraphContact(contact.getNodeID(), contact.getRangeStart(), 
+				contact.getRangeEnd(), contact.getContactTablePrefix());
+	}
+	
+	
+	/**
+	 * drops the shortcut to a node, e.g. because it didn't answer or has left
+	 */
+	void removeShortcut(BigInteger contactID) {
+		if (shortcuts.remove(contactID)) {
+			routingMap = null;
+		}
+	}
+	
+	
+	/**
+	 * drops a node from the neighbours of all levels, e.g. because it didn't answer or has left
+	 * @return	true if it was a neighbour on any level
+	 */
+	boolean removeNeighbour(BigInteger contactID) {
+		boolean removed = false;
+		for (ContactLevel level : contactLevelList) {
+			removed |= level.removeNeighbour(contactID);
+		}
+		return neighboursChanged(removed);
+	}
+	
+	
+	/**
+	 * marks the shortcut to a node as recently used, see {@link ShortcutCache}
+	 */
+	void shortcutUsed(BigInteger contactID) {
+		if (SkipgraphServiceConstants.shortcutCache) {
+			shortcuts.used(contactID);
+		}
+	}
+	
+	
+	/**
+	 * drops the cached routing map if the neighbours of a level have changed.
+	 * the contact range map holds no neighbours.
+	 * @param changed	true if the neighbours of a level have changed
+	 * @return	changed
+	 */
+	private boolean neighboursChanged(boolean changed) {
+		if (changed) {
+			routingMap = null;
+		}
+		return changed;
+	}
+	
+	
+	/**
+	 * drops the cached maps if the contacts of a level have changed
+	 * @param changed	true if a level has changed
+	 * @return	changed
+	 */
+	private boolean contactsChanged(boolean changed) {
+		if (changed) {
+			contactRangeMap = null;
+			routingMap = null;
+			routingMapSelf = null;
+		}
+		return changed;
 	}
 
 	
@@ -271,6 +499,20 @@ public class ContactTable implements DHTObject {
 	}
 	
 	
+	/**
+	 * @return	true if the node is a contact on any level
+	 */
+	public boolean isContact(BigInteger contactID) {
+		for (ContactLevel level : contactLevelList) {
+			if (level.getPrevContact().getNodeID().equals(contactID) 
+					|| level.getNextContact().getNodeID().equals(contactID)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	
 	public boolean isSelfLinkedLevel(int levelIndex) {
 		if (levelIndex >= 0 && levelIndex < size()) {
 			return isSelfLinkedLevel(getLevel(levelIndex));
@@ -303,11 +545,11 @@ public class ContactTable implements DHTObject {
 		}
 		boolean removed = false;
 		for ( ; counter>1; counter--) {
-			contactLevelList.removeLast();
+			contactLevelList.remove(contactLevelList.size()-1);
 			removed = true;
 			//System.out.println("deleting redundant level");
 		}
-		return removed;
+		return contactsChanged(removed);
 	}
 
 	
@@ -318,14 +560,14 @@ public class ContactTable implements DHTObject {
 		boolean removed = false;
 		for (int i=size()-1; i>0; i--) {
 			if (isSelfLinkedLevel(getLevel(i)) && isSelfLinkedLevel(getLevel(i-1))) {
-				contactLevelList.removeLast();
+				contactLevelList.remove(contactLevelList.size()-1);
 				removed = true;
 			}
 			else {
 				break;
 			}
 		}
-		return removed;
+		return contactsChanged(removed);
 	}
 
 
@@ -342,6 +584,10 @@ public class ContactTable implements DHTObject {
 		if (deprecatedNodes.contains(nodeID)) {
 			deprecatedNodes.remove(nodeID);
 		}
+		for (BigInteger deprecatedNode : deprecatedNodes) {
+			removeShortcut(deprecatedNode);
+			changed |= removeNeighbour(deprecatedNode);
+		}
 		// go through all levels
 		for (ContactLevel level : contactLevelList) {
 			SkipgraphContact prev = level.getPrevContact();
@@ -380,7 +626,7 @@ public class ContactTable implements DHTObject {
 				}
 			}
 		}
-		return changed;
+		return contactsChanged(changed);
 	}
 	
 	
@@ -415,7 +661,7 @@ public class ContactTable implements DHTObject {
 			if (deprecatedNodes.contains(prevID)) {
 				level.setPrevContact(self);
 				level.setNextContact(self);
-				return true;
+				return contactsChanged(true);
 			}
 			return false;
 		}
@@ -424,16 +670,16 @@ public class ContactTable implements DHTObject {
 		// if both are deprecated we make the level self-linked
 		// TODO: this could have side-effects -> a new JoinLevel might be better
 		if (deprecatedNodes.contains(prevID) && deprecatedNodes.contains(nextID)) {
-			return level.setPrevContact(self) | level.setNextContact(self);
+			return contactsChanged(level.setPrevContact(self) | level.setNextContact(self));
 		}
 
 		// if only one of them is deprecated we set the contact to the one which is not 
 		if (deprecatedNodes.contains(prevID) && !deprecatedNodes.contains(nextID)) {
-			return level.setPrevContact(level.getNextContact()); 
+			return contactsChanged(level.setPrevContact(level.getNextContact()));
 		}
 		
 		if (!deprecatedNodes.contains(prevID) && deprecatedNodes.contains(nextID)) {
-			return level.setPrevContact(level.getPrevContact());
+			return contactsChanged(level.setPrevContact(level.getPrevContact()));
 		}
 		
 		// if none of them is deprecated we leave the level as is
@@ -460,7 +706,11 @@ public class ContactTable implements DHTObject {
 				updated |= level.setNextContact(updatedContact);
 			}
 		}
-		return updated;
+		boolean neighbourUpdated = false;
+		for (ContactLevel level : contactLevelList) {
+			neighbourUpdated |= level.updateNeighbour(withoutZoneMap(updatedContact));
+		}
+		return contactsChanged(updated) | neighboursChanged(neighbourUpdated);
 	}
 	
 	
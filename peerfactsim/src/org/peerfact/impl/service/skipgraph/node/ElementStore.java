@@ -0,0 +1,129 @@
+package org.peerfact.impl.service.skipgraph.node;
+
+import java.util.List;
+import java.util.Set;
+
+import org.peerfact.impl.service.skipgraph.SearchAggregate;
+import org.peerfact.impl.service.skipgraph.util.ContactPool;
+import org.peerfact.impl.util.communicationmanager.ApplicationContact;
+
+/**
+ * The storage engine behind an {@link ElementTable}. A store holds the elements
+ * sorted by value and knows nothing about the range of the table.
+ *
+ * @author Andreas Funke
+ * @version 1.0, 03/22/2017
+ */
+interface ElementStore {
+
+	public int size();
+
+	/**
+	 * @return	the element at the given position in value order
+	 */
+	public SkipgraphElement get(int index);
+
+	/**
+	 * @return	the fixed-point value of the element at the given position
+	 */
+	public long getValue(int index);
+
+	/**
+	 * @return	the dimension id of the element at the given position
+	 */
+	public int getDimensionId(int index);
+
+	/**
+	 * @return	the timestamp of the element at the given position
+	 */
+	public long getTimestamp(int index);
+
+	/**
+	 * inserts an element behind all elements with an equal value.
+	 * the caller has to make sure the element is not already contained.
+	 */
+	public void insert(SkipgraphElement element);
+
+	public boolean remove(SkipgraphElement element);
+
+	/**
+	 * removes the given elements and inserts a batch of new elements in a single 
+	 * linear pass. the new elements are placed behind existing elements with an equal value.
+	 * the caller has to make sure the new elements are not already contained.
+	 * @param removals		elements to remove (compared via equals)
+	 * @param insertions	the new elements sorted by value
+	 */
+	public void bulkUpdate(Set<SkipgraphElement> removals, List<SkipgraphElement> insertions);
+
+	/**
+	 * removes an equal element only if the stored one has a timestamp lower or equal 
+	 * to the expiration date, i.e. it was not replaced by a newer version in the meantime
+	 * @return	true if an element was removed
+	 */
+	public boolean removeIfExpired(SkipgraphElement element, long expirationDate);
+
+	/**
+	 * removes all elements with a timestamp lower or equal to the expiration date
+	 * @return	true if elements were removed
+	 */
+	public boolean purge(long expirationDate);
+
+	/**
+	 * @param dimension			the dimension id
+	 * @param start				fixed-point, inclusive
+	 * @param end				fixed-point, inclusive unless excludeEnd is set
+	 * @param maxNumberOfValues	<=0 -> no limit
+	 * @param expirationDate	elements older than this are skipped
+	 */
+	public Set<ApplicationContact> getContacts(
+			int dimension,
+			long start,
+			long end,
+			boolean excludeEnd,
+			int maxNumberOfValues,
+			long expirationDate);
+
+	/**
+	 * like {@link #getContacts} but the elements are visited from the highest value downwards
+	 */
+	public Set<ApplicationContact> getLastContacts(
+			int dimension,
+			long start,
+			long end,
+			boolean excludeEnd,
+			int maxNumberOfValues,
+			long expirationDate);
+
+	/**
+	 * adds the values of the matching elements to the aggregate
+	 * @param dimension			the dimension id
+	 * @param start				fixed-point, inclusive
+	 * @param end				fixed-point, inclusive unless excludeEnd is set
+	 * @param expirationDate	elements older than this are skipped
+	 */
+	public void aggregate(
+			int dimension,
+			long start,
+			long end,
+			boolean excludeEnd,
+			long expirationDate,
+			SearchAggregate aggregate);
+
+	/**
+	 * replaces the contacts of all elements by the equal instances of the pool
+	 */
+	public void internContacts(ContactPool pool);
+
+	/**
+	 * @return	a new store with the elements in [fromIndex, toIndex)
+	 */
+	public ElementStore subStore(int fromIndex, int toIndex);
+
+	/**
+	 * @return	a deep copy of this store
+	 */
+	public ElementStore copy();
+
+	public long getTransmissionSize();
+
+}
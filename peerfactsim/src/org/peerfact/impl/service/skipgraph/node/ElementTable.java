@@ -3,18 +3,28 @@ package org.peerfact.impl.service.skipgraph.node;
 import static org.peerfact.impl.application.capacitymanager.CapacityManagerApplicationConstants.ind1;
 import static org.peerfact.impl.application.capacitymanager.CapacityManagerApplicationConstants.ind3;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
 import java.util.Set;
 
-import org.apache.commons.math.exception.NullArgumentException;
 import org.peerfact.api.overlay.dht.DHTObject;
 import org.peerfact.impl.application.capacitymanager.CapacityManagerApplicationConstants;
+import org.peerfact.impl.service.skipgraph.SearchAggregate;
 import org.peerfact.impl.service.skipgraph.SkipgraphServiceConstants;
+import org.peerfact.impl.service.skipgraph.util.ContactPool;
+import org.peerfact.impl.service.skipgraph.util.SGUtil;
+import org.peerfact.impl.service.skipgraph.util.ZOrderBox;
 import org.peerfact.impl.simengine.Simulator;
 import org.peerfact.impl.util.communicationmanager.ApplicationContact;
 
@@ -28,14 +38,59 @@ public class ElementTable implements DHTObject, Cloneable {
 	 ****************** FIELDS *******************
 	 ******************************************* */
 
-	// TODO: data structure should be sorted: e.g. treemap
-	private List<SkipgraphElement> elementList = new LinkedList<>();
+	/** orders elements by timestamp, oldest first */
+	private static final Comparator<SkipgraphElement> EXPIRY_ORDER = new Comparator<SkipgraphElement>() {
+		@Override
+		public int compare(SkipgraphElement e1, SkipgraphElement e2) {
+			return Long.compare(e1.getTimestamp(), e2.getTimestamp());
+		}
+	};
+
+	/** 
+	 * the elements of this table, always kept sorted by value. 
+	 * the storage engine is chosen via {@link SkipgraphServiceConstants#columnarElementTable}
+	 */
+	private ElementStore store;
+	
+	/**
+	 * the elements ordered by timestamp (oldest first), only maintained in a churn scenario.
+	 * entries of elements that were removed or replaced in the meantime stay in the queue
+	 * until they expire and are skipped then.
+	 */
+	private PriorityQueue<SkipgraphElement> expiryQueue = new PriorityQueue<>(EXPIRY_ORDER);
+	
+	/**
+	 * the current element per dimension and contact. a contact publishes a single value per 
+	 * dimension, so a new value replaces the previous one (upsert).
+	 */
+	private Map<Integer, Map<ApplicationContact, SkipgraphElement>> contactIndex = new LinkedHashMap<>();
+	
+	/** 
+	 * false until the contact index and the expiry queue are needed for the first time.
+	 * tables created by split, merge and copy are often just passed on and never modified.
+	 */
+	private boolean indexed = false;
+	
+	/** 
+	 * dimension id -> {min, max, count}, maintained together with the indexes.
+	 * min and max are only widened incrementally and recomputed on a rebuild.
+	 */
+	private Map<Integer, long[]> zones = new LinkedHashMap<>();
+	
+	/** snapshot of the zones, null if outdated */
+	private ZoneMap zoneMap;
+	
+	/** 
+	 * true if split handed out slices of the store. the store must not be modified 
+	 * in place anymore and is copied before the next modification (copy-on-write).
+	 */
+	private boolean shared = false;
 
-	// TODO: allow negative values; null for -infinity;
-	private BigDecimal rangeStart;
+	// fixed-point; NEGATIVE_INFINITY means: no lower limit (= -infinity)
+	private long rangeStart;
 	
-	// initial null-value means: no upper limit (= infinity)
-	private BigDecimal rangeEnd;
+	// fixed-point; POSITIVE_INFINITY means: no upper limit (= infinity)
+	private long rangeEnd;
 	
 
 
@@ -44,20 +99,54 @@ public class ElementTable implements DHTObject, Cloneable {
 	 ************************************************* */
 
 	public ElementTable() {
-		this(new LinkedList<>(), BigDecimal.ZERO, null);
+		this(new LinkedList<>(), 0, SkipgraphServiceConstants.POSITIVE_INFINITY);
 	}
 
 	
-	public ElementTable(BigDecimal rangeStart, BigDecimal rangeEnd) {
+	public ElementTable(long rangeStart, long rangeEnd) {
 		this(new LinkedList<>(), rangeStart, rangeEnd);
 	}
 
 	
-	public ElementTable(List<SkipgraphElement> elementTable, BigDecimal rangeStart, BigDecimal rangeEnd) {
-		this.elementList = elementTable;
+	/**
+	 * the given list is copied. sorting an already sorted list is linear.
+	 * if the list contains several values of a contact for the same dimension 
+	 * only the most recent one is kept.
+	 */
+	public ElementTable(List<SkipgraphElement> elementTable, long rangeStart, long rangeEnd) {
+		this(createStore(), rangeStart, rangeEnd);
+		List<SkipgraphElement> sortedElements = new ArrayList<>(elementTable);
+		Collections.sort(sortedElements);
+		for (SkipgraphElement element : sortedElements) {
+			SkipgraphElement current = getIndexed(element);
+			if (current == null || current.getTimestamp() <= element.getTimestamp()) {
+				putIndexed(element);
+			}
+		}
+		List<SkipgraphElement> insertions = new ArrayList<>(sortedElements.size());
+		for (SkipgraphElement element : sortedElements) {
+			if (getIndexed(element) == element) {
+				insertions.add(element);
+			}
+		}
+		store.bulkUpdate(Collections.emptySet(), insertions);
+		// the contact index was only needed to drop the outdated values. like the tables
+		// created by split and copy this one is indexed on its first read or modification.
+		contactIndex.clear();
+	}
+
+	
+	private ElementTable(ElementStore store, long rangeStart, long rangeEnd) {
+		this.store = store;
 		this.rangeStart = rangeStart;
 		this.rangeEnd = rangeEnd;
 	}
+	
+	
+	private static ElementStore createStore() {
+		return SkipgraphServiceConstants.columnarElementTable ? 
+				new ColumnarElementStore() : new RowElementStore();
+	}
 
 
 	
@@ -65,71 +154,90 @@ public class ElementTable implements DHTObject, Cloneable {
 	 ****************** GETTERS ***********************
 	 ************************************************ */
 
+	/**
+	 * @return	an unmodifiable list of all elements sorted by value
+	 */
 	public List<SkipgraphElement> getTable() {
-		return elementList;
+		List<SkipgraphElement> elementList = new ArrayList<>(size());
+		for (int i = 0; i < size(); i++) {
+			elementList.add(store.get(i));
+		}
+		return Collections.unmodifiableList(elementList);
 	}
 
-	public BigDecimal getRangeStart() {
+	public long getRangeStart() {
 		return rangeStart;
 	}
 
-	public BigDecimal getRangeEnd() {
+	public long getRangeEnd() {
 		return rangeEnd;
 	}
 	
 	public String getRange() {
 		return String.format("%s, %s",
-				rangeStart == null ? "(-inf" : "["+rangeStart.toString(),
-				rangeEnd == null ? "inf)" : rangeEnd.toString()+")"
+				rangeStart == SkipgraphServiceConstants.NEGATIVE_INFINITY ? "(-inf" : "["+SGUtil.formatValue(rangeStart),
+				rangeEnd == SkipgraphServiceConstants.POSITIVE_INFINITY ? "inf)" : SGUtil.formatValue(rangeEnd)+")"
 				);
 	}
 	
 	public int size() {
-		return elementList.size();
+		return store.size();
 	}
 	
 	
+	/**
+	 * @param dimension	the dimension id
+	 * @param start		fixed-point; NEGATIVE_INFINITY -> from the start of the table
+	 * @param end		fixed-point; POSITIVE_INFINITY -> up to the end of the table
+	 */
 	public Set<ApplicationContact> getContacts(
-			String dimension,
-			BigDecimal start,
-			BigDecimal end,
+			int dimension,
+			long start,
+			long end,
 			int maxNumberOfValues,
 			boolean excludeRangeEnd)
 	{
-		BigDecimal intervalStart = start == null ? rangeStart : start;
-		BigDecimal intervalEnd = end == null ? rangeEnd : end;
+		long intervalStart = start == SkipgraphServiceConstants.NEGATIVE_INFINITY ? rangeStart : start;
+		long intervalEnd = end == SkipgraphServiceConstants.POSITIVE_INFINITY ? rangeEnd : end;
 		
-		Set<ApplicationContact> results = new LinkedHashSet<>();
-		Collections.sort(elementList);
+		// in churn scenario: don't send expired elements (experimental)
+		// reads only skip them, removing is left to the periodic purge.
+		return store.getContacts(dimension, intervalStart, intervalEnd, excludeRangeEnd, 
+				maxNumberOfValues, getReadExpirationDate());
+	}
+	
+	
+	/**
+	 * like {@link #getContacts} but only elements with a value inside the box are collected
+	 * @param box	composite index search: the values are keys of the box' curve. null -> no filter
+	 */
+	public Set<ApplicationContact> getContacts(
+			int dimension,
+			long start,
+			long end,
+			int maxNumberOfValues,
+			boolean excludeRangeEnd,
+			ZOrderBox box)
+	{
+		if (box == null) {
+			return getContacts(dimension, start, end, maxNumberOfValues, excludeRangeEnd);
+		}
+		long intervalStart = start == SkipgraphServiceConstants.NEGATIVE_INFINITY ? rangeStart : start;
+		long intervalEnd = end == SkipgraphServiceConstants.POSITIVE_INFINITY ? rangeEnd : end;
+		long expirationDate = getReadExpirationDate();
 		
-		long expirationDate = Simulator.getCurrentTime()
-				- (CapacityManagerApplicationConstants.getStoreCapacityInterval()
-						+SkipgraphServiceConstants.purgeTolerance);
-
-		for (SkipgraphElement element : elementList) {
-			// in churn scenario: don't send expired elements (experimental)
-			if (SkipgraphServiceConstants.churnScenario && SkipgraphServiceConstants.ignoreExpiredResults) {
-				if (element.getTimestamp() < expirationDate) {
-					continue;
-				}
-			}
-			
-			// since the list is sorted we can break out of the loop once the upper interval limit is crossed
-			if (intervalEnd != null) {
-				if (excludeRangeEnd && element.getValue().compareTo(intervalEnd) == 0) {
-					break;
-				}
-				if (element.getValue().compareTo(intervalEnd) > 0) {
-					break;
-				}
+		Set<ApplicationContact> results = new LinkedHashSet<>();
+		for (int i = lowerBound(intervalStart); i < store.size(); i++) {
+			long value = store.getValue(i);
+			// the store is sorted by value
+			if (value > intervalEnd || (excludeRangeEnd && value == intervalEnd)) {
+				break;
 			}
-			// if the element is higher or equal to the lower interval limit and if the dimension is identical
-			// we add the element to the results list
-			if (element.getValue().compareTo(intervalStart) >= 0 &&
-					element.getDimension().equals(dimension)) {
-				results.add(element.getContact());
+			if (!box.contains(value) || store.getDimensionId(i) != dimension 
+					|| store.getTimestamp(i) < expirationDate) {
+				continue;
 			}
-			// we can also break the loop once we have collected enough elements
+			results.add(store.get(i).getContact());
 			if (maxNumberOfValues > 0 && results.size() >= maxNumberOfValues) {
 				break;
 			}
@@ -138,8 +246,96 @@ public class ElementTable implements DHTObject, Cloneable {
 	}
 	
 	
+	/**
+	 * like {@link #getContacts} but collects the contacts of the highest values first
+	 */
+	public Set<ApplicationContact> getLastContacts(
+			int dimension,
+			long start,
+			long end,
+			int maxNumberOfValues,
+			boolean excludeRangeEnd)
+	{
+		long intervalStart = start == SkipgraphServiceConstants.NEGATIVE_INFINITY ? rangeStart : start;
+		long intervalEnd = end == SkipgraphServiceConstants.POSITIVE_INFINITY ? rangeEnd : end;
+		
+		return store.getLastContacts(dimension, intervalStart, intervalEnd, excludeRangeEnd, 
+				maxNumberOfValues, getReadExpirationDate());
+	}
+	
+	
+	/**
+	 * adds the values of the matching elements to the aggregate, see {@link #getContacts}
+	 */
+	public void aggregate(
+			int dimension,
+			long start,
+			long end,
+			boolean excludeRangeEnd,
+			SearchAggregate aggregate)
+	{
+		long intervalStart = start == SkipgraphServiceConstants.NEGATIVE_INFINITY ? rangeStart : start;
+		long intervalEnd = end == SkipgraphServiceConstants.POSITIVE_INFINITY ? rangeEnd : end;
+		
+		store.aggregate(dimension, intervalStart, intervalEnd, excludeRangeEnd, getReadExpirationDate(), aggregate);
+	}
+	
+	
 	public boolean isEmpty() {
-		return elementList.isEmpty();
+		return store.size() == 0;
+	}
+	
+	
+	/**
+	 * @return	the per-dimension summary of this table
+	 */
+	public ZoneMap getZoneMap() {
+		if (!indexed) {
+			rebuildIndexes();
+		}
+		if (zoneMap == null) {
+			zoneMap = new ZoneMap(zones);
+		}
+		return zoneMap;
+	}
+
+	
+	/**
+	 * expired elements are left out, like in {@link #getContacts}.
+	 * @param buckets	the maximum number of buckets per histogram
+	 * @return			dimension id -> equi-depth histogram of the values of the dimension
+	 */
+	public Map<Integer, SelectivityHistogram> getHistograms(int buckets) {
+		long expirationDate = getReadExpirationDate();
+		Map<Integer, long[]> valuesPerDimension = new LinkedHashMap<>();
+		Map<Integer, Integer> sizes = new LinkedHashMap<>();
+		for (int i = 0; i < store.size(); i++) {
+			if (store.getTimestamp(i) < expirationDate) {
+				continue;
+			}
+			int dimension = store.getDimensionId(i);
+			sizes.put(dimension, sizes.getOrDefault(dimension, 0) + 1);
+		}
+		for (Entry<Integer, Integer> entry : sizes.entrySet()) {
+			valuesPerDimension.put(entry.getKey(), new long[entry.getValue()]);
+			entry.setValue(0);
+		}
+		// the store is sorted by value, so are the values per dimension
+		for (int i = 0; i < store.size(); i++) {
+			if (store.getTimestamp(i) < expirationDate) {
+				continue;
+			}
+			int dimension = store.getDimensionId(i);
+			int index = sizes.get(dimension);
+			valuesPerDimension.get(dimension)[index] = store.getValue(i);
+			sizes.put(dimension, index + 1);
+		}
+		Map<Integer, SelectivityHistogram> histograms = new LinkedHashMap<>();
+		for (Entry<Integer, long[]> entry : valuesPerDimension.entrySet()) {
+			histograms.put(entry.getKey(), 
+					SelectivityHistogram.build(entry.getValue(), entry.getValue().length, buckets));
+		}
+		return histograms;
 	}
 
 
@@ -148,15 +344,11 @@ public class ElementTable implements DHTObject, Cloneable {
 	 ****************** SETTERS ***********************
 	 ************************************************ */
 
-	void setTable(List<SkipgraphElement> elementTable) {
-		this.elementList = elementTable;
-	}
-
-	void setRangeStart(BigDecimal rangeStart) {
+	void setRangeStart(long rangeStart) {
 		this.rangeStart = rangeStart;
 	}
 
-	void setRangeEnd(BigDecimal rangeEnd) {
+	void setRangeEnd(long rangeEnd) {
 		this.rangeEnd = rangeEnd;
 	}
 	
@@ -167,44 +359,162 @@ public class ElementTable implements DHTObject, Cloneable {
 	 ***************************************************/
 
 	boolean add(SkipgraphElement element) {
-		// in a no-churn scenario no update is required
-		if (!SkipgraphServiceConstants.churnScenario) {
-			if (elementList.contains(element)) {
+		prepareModification();
+		SkipgraphElement current = getIndexed(element);
+		if (current != null) {
+			// in a no-churn scenario no update is required
+			if (!SkipgraphServiceConstants.churnScenario && current.getValue() == element.getValue()) {
 				element.confirmInput();
 				return false;
 			}
+			// replace the contact's previous value for this dimension
+			store.remove(current);
+			shrinkZone(current);
+		}
+		store.insert(element);
+		putIndexed(element);
+		widenZone(element);
+		if (SkipgraphServiceConstants.churnScenario) {
+			expiryQueue.add(element);
+			// get rid of stale entries once they dominate the queue
+			if (expiryQueue.size() > 2 * size() + SkipgraphServiceConstants.getElementTableMaxSize()) {
+				rebuildIndexes();
+			}
 		}
-		if (elementList.remove(element)) {
+		element.confirmInput();
+		return true;
+	}
+
+
+	/**
+	 * applies a batch of inputs and deletions. the result is the same as adding all inputs
+	 * and removing all deletions afterwards one by one, but the batch is sorted once and 
+	 * merged into the table in a single linear pass.
+	 * @param inputs		may be null
+	 * @param deletions		may be null
+	 * @return				true if the table was changed
+	 */
+	boolean update(Collection<SkipgraphElement> inputs, Collection<SkipgraphElement> deletions) {
+		if (inputs == null) {
+			inputs = Collections.emptyList();
+		}
+		if (deletions == null) {
+			deletions = Collections.emptyList();
+		}
+		
+		boolean changed = false;
+		
+		// a single element is inserted directly
+		if (inputs.size() + deletions.size() <= 1) {
+			for (SkipgraphElement element : inputs) {
+				changed |= add(element);
+			}
+			for (SkipgraphElement element : deletions) {
+				changed |= remove(element);
+			}
+			return changed;
 		}
-		boolean success = elementList.add(element);
-		if (success)
+		
+		prepareModification();
+		// elements of the store to be removed (replaced or deleted)
+		Set<SkipgraphElement> removals = new HashSet<>();
+		// new elements in input order, replaced ones are filtered out below
+		List<SkipgraphElement> insertions = new ArrayList<>(inputs.size());
+		Set<SkipgraphElement> pending = Collections.newSetFromMap(new IdentityHashMap<>());
+		
+		for (SkipgraphElement element : inputs) {
+			SkipgraphElement current = getIndexed(element);
+			if (current != null) {
+				// in a no-churn scenario no update is required
+				if (!SkipgraphServiceConstants.churnScenario && current.getValue() == element.getValue()) {
+					element.confirmInput();
+					continue;
+				}
+				// replace the contact's previous value for this dimension
+				if (!pending.remove(current)) {
+					removals.add(current);
+				}
+				shrinkZone(current);
+			}
+			pending.add(element);
+			insertions.add(element);
+			putIndexed(element);
+			widenZone(element);
+			if (SkipgraphServiceConstants.churnScenario) {
+				expiryQueue.add(element);
+			}
 			element.confirmInput();
-		return success;
+			changed = true;
+		}
+		
+		for (SkipgraphElement element : deletions) {
+			SkipgraphElement current = getIndexed(element);
+			// the value might have been replaced already
+			if (current != null && current.getValue() == element.getValue()) {
+				if (!pending.remove(current)) {
+					removals.add(current);
+				}
+				removeIndexed(current);
+				shrinkZone(current);
+				changed = true;
+			}
+			element.confirmDelete();
+		}
+		
+		List<SkipgraphElement> sortedInsertions = new ArrayList<>(pending.size());
+		for (SkipgraphElement element : insertions) {
+			if (pending.contains(element)) {
+				sortedInsertions.add(element);
+			}
+		}
+		// stable: equal values keep their input order
+		Collections.sort(sortedInsertions);
+		store.bulkUpdate(removals, sortedInsertions);
+		
+		// get rid of stale entries once they dominate the queue
+		if (SkipgraphServiceConstants.churnScenario 
+				&& expiryQueue.size() > 2 * size() + SkipgraphServiceConstants.getElementTableMaxSize()) {
+			rebuildIndexes();
+		}
+		return changed;
 	}
 
 
 	boolean addAll(Collection<SkipgraphElement> elements) {
-		boolean success = true;
-		for (SkipgraphElement element : elements) {
-			success &= add(element);
-		}
-		return success;
+		return update(elements, null);
 	}
 
 	
 	boolean remove(SkipgraphElement element) {
-		boolean success = elementList.remove(element);
+		prepareModification();
+		boolean success = false;
+		SkipgraphElement current = getIndexed(element);
+		// the value might have been replaced already
+		if (current != null && current.getValue() == element.getValue()) {
+			success = store.remove(current);
+			removeIndexed(current);
+			shrinkZone(current);
+		}
 		element.confirmDelete();
 		return success;
 	}
 
 	
 	boolean removeAll(Collection<SkipgraphElement> elements) {
-		boolean success = true;
-		for (SkipgraphElement element : elements) {
-			success &= remove(element);
+		return update(null, elements);
+	}
+	
+	
+	/**
+	 * replaces the contacts of all elements by the equal instances of the pool.
+	 * used for tables received from other peers.
+	 */
+	void internContacts(ContactPool pool) {
+		store.internContacts(pool);
+		if (indexed) {
+			// the index must not keep the replaced instances alive
+			rebuildIndexes();
 		}
-		return success;
 	}
 	
 	
@@ -213,33 +523,172 @@ public class ElementTable implements DHTObject, Cloneable {
 	 * @return	true if elements were removed, false it the element table was unaltered
 	 */
 	boolean purge() {
-		boolean purged = false;
-		long expirationDate = Simulator.getCurrentTime()
-				- (CapacityManagerApplicationConstants.getStoreCapacityInterval()
-						+SkipgraphServiceConstants.purgeTolerance);
-		List<SkipgraphElement> remainingElements = new LinkedList<>();
-
-		for (SkipgraphElement element : elementList) {
-			if (element.getTimestamp() > expirationDate) {
-				remainingElements.add(element);
+		prepareModification();
+		long expirationDate = getExpirationDate();
+		if (!SkipgraphServiceConstants.churnScenario) {
+			boolean purged = store.purge(expirationDate);
+			if (purged) {
+				// rebuilt on the next modification
+				indexed = false;
 			}
-			else {
+			return purged;
+		}
+		
+		// only the expired head of the queue is touched
+		boolean purged = false;
+		while (!expiryQueue.isEmpty() && expiryQueue.peek().getTimestamp() <= expirationDate) {
+			SkipgraphElement element = expiryQueue.poll();
+			if (store.removeIfExpired(element, expirationDate)) {
+				removeIndexed(element);
+				shrinkZone(element);
 				purged = true;
 			}
 		}
-		elementList = remainingElements;
-
 		return purged;
 	}
 	
 	
-
+	
 	/* *************************************************
 	 ****************** METHODS ************************
 	 ***************************************************/
 
-	public void sort() {
-		Collections.sort(elementList);
+	/**
+	 * detaches the store from slices handed out by split and builds the indexes if necessary
+	 */
+	private void prepareModification() {
+		if (shared) {
+			store = store.subStore(0, store.size());
+			shared = false;
+		}
+		if (!indexed) {
+			rebuildIndexes();
+		}
+	}
+	
+	
+	private void rebuildIndexes() {
+		List<SkipgraphElement> elements = getTable();
+		contactIndex.clear();
+		for (SkipgraphElement element : elements) {
+			putIndexed(element);
+		}
+		expiryQueue.clear();
+		if (SkipgraphServiceConstants.churnScenario) {
+			expiryQueue.addAll(elements);
+		}
+		zones.clear();
+		zoneMap = null;
+		for (SkipgraphElement element : elements) {
+			widenZone(element);
+		}
+		indexed = true;
+	}
+	
+	
+	private void widenZone(SkipgraphElement element) {
+		long[] zone = zones.get(element.getDimensionId());
+		if (zone == null) {
+			zones.put(element.getDimensionId(), new long[] {element.getValue(), element.getValue(), 1});
+		}
+		else {
+			zone[0] = Math.min(zone[0], element.getValue());
+			zone[1] = Math.max(zone[1], element.getValue());
+			zone[2]++;
+		}
+		zoneMap = null;
+	}
+	
+	
+	/**
+	 * min and max are kept, the zone only disappears with the last element of the dimension
+	 */
+	private void shrinkZone(SkipgraphElement element) {
+		long[] zone = zones.get(element.getDimensionId());
+		if (zone == null) {
+			return;
+		}
+		if (--zone[2] <= 0) {
+			zones.remove(element.getDimensionId());
+		}
+		zoneMap = null;
+	}
+	
+	
+	/**
+	 * @return	the current element of the contact in the dimension of the given element or null
+	 */
+	private SkipgraphElement getIndexed(SkipgraphElement element) {
+		Map<ApplicationContact, SkipgraphElement> contacts = contactIndex.get(element.getDimensionId());
+		return contacts == null ? null : contacts.get(element.getContact());
+	}
+	
+	
+	private void putIndexed(SkipgraphElement element) {
+		Map<ApplicationContact, SkipgraphElement> contacts = contactIndex.get(element.getDimensionId());
+		if (contacts == null) {
+			contacts = new LinkedHashMap<>();
+			contactIndex.put(element.getDimensionId(), contacts);
+		}
+		contacts.put(element.getContact(), element);
+	}
+	
+	
+	/**
+	 * removes the index entry if it still refers to the value of the given element
+	 */
+	private void removeIndexed(SkipgraphElement element) {
+		Map<ApplicationContact, SkipgraphElement> contacts = contactIndex.get(element.getDimensionId());
+		if (contacts == null) {
+			return;
+		}
+		SkipgraphElement current = contacts.get(element.getContact());
+		if (current != null && current.getValue() == element.getValue()) {
+			contacts.remove(element.getContact());
+			if (contacts.isEmpty()) {
+				contactIndex.remove(element.getDimensionId());
+			}
+		}
+	}
+	
+	
+	/**
+	 * elements with an older timestamp are considered expired
+	 */
+	private static long getExpirationDate() {
+		return Simulator.getCurrentTime()
+				- (CapacityManagerApplicationConstants.getStoreCapacityInterval()
+						+SkipgraphServiceConstants.purgeTolerance);
+	}
+	
+	
+	/**
+	 * @return	the position of the first element with a value greater or equal to the given value
+	 */
+	private int lowerBound(long value) {
+		int low = 0;
+		int high = store.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (store.getValue(mid) < value) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+	
+	
+	/**
+	 * in churn scenario reads skip expired elements (experimental), otherwise nothing is skipped
+	 */
+	private static long getReadExpirationDate() {
+		if (SkipgraphServiceConstants.churnScenario && SkipgraphServiceConstants.ignoreExpiredResults) {
+			return getExpirationDate();
+		}
+		return Long.MIN_VALUE;
 	}
 	
 	
@@ -249,53 +698,46 @@ public class ElementTable implements DHTObject, Cloneable {
 	 ************************************************ */
 
 	/**
-	 * take care: if value == null than it is undefined if the value is positive infinity
-	 * or negative infinity. Therefore null is not accepted as an argument. Use the more 
-	 * specific {@link #isResponsibleForStart} or {@link #isResponsibleForEnd} in this case. 
-	 * @param value
-	 * @return
+	 * @param value		a fixed-point value
+	 * @return			true if rangeStart <= value < rangeEnd 
 	 */
-	public boolean isResponsibleFor(BigDecimal value)
-			throws NullArgumentException {
-		if (value == null) {
-			throw new NullArgumentException();
-		}
-		return (rangeStart == null || rangeStart.compareTo(value) <= 0) && 
-				(rangeEnd == null || rangeEnd.compareTo(value) > 0 );
+	public boolean isResponsibleFor(long value) {
+		return rangeStart <= value && value < rangeEnd;
 	}
 	
 
-	public boolean isResponsibleForStart(BigDecimal value) {
-		if (value == null) 
-			return rangeStart == null;
+	/**
+	 * like {@link #isResponsibleFor} but an open limit (NEGATIVE_INFINITY) is accepted 
+	 * if this table has no lower limit
+	 */
+	public boolean isResponsibleForStart(long value) {
+		if (value == SkipgraphServiceConstants.NEGATIVE_INFINITY) 
+			return rangeStart == SkipgraphServiceConstants.NEGATIVE_INFINITY;
 		
 		return isResponsibleFor(value);
 	}
 	
 
-	public boolean isResponsibleForEnd(BigDecimal value) {
-		if (value == null) 
-			return rangeEnd == null;
+	/**
+	 * like {@link #isResponsibleFor} but an open limit (POSITIVE_INFINITY) is accepted 
+	 * if this table has no upper limit
+	 */
+	public boolean isResponsibleForEnd(long value) {
+		if (value == SkipgraphServiceConstants.POSITIVE_INFINITY) 
+			return rangeEnd == SkipgraphServiceConstants.POSITIVE_INFINITY;
 		
 		return isResponsibleFor(value);
 	}
 	
 
 	/**
-	 * checks if a given value is below or equal to the minimum value of the element table
+	 * checks if a given value is below the minimum value of the element table
 	 *
 	 * @param value
 	 * @return
 	 */
-	public boolean isBelowElementTablesMinimum(BigDecimal value) {
-		boolean ret;
-		if (value == null) {
-			ret = !(rangeStart == null);
-		}
-		else {
-			ret = !(rangeStart != null && rangeStart.compareTo(value) <= 0);
-		}
-		return ret;
+	public boolean isBelowElementTablesMinimum(long value) {
+		return value < rangeStart;
 	}
 
 	
@@ -305,20 +747,13 @@ public class ElementTable implements DHTObject, Cloneable {
 	 * @param value
 	 * @return
 	 */
-	public boolean isAboveElementTablesMaximum(BigDecimal value) {
-		boolean ret;
-		if (value == null) {
-			ret = !(rangeEnd == null);
-		}
-		else {
-			ret = rangeEnd != null && rangeEnd.compareTo(value) < 0;
-		}
-		return ret;
+	public boolean isAboveElementTablesMaximum(long value) {
+		return value > rangeEnd;
 	}
 
 	
 	public SkipgraphElement get(int i) {
-		return elementList.get(i);
+		return store.get(i);
 	}
 
 	
@@ -346,13 +781,13 @@ public class ElementTable implements DHTObject, Cloneable {
 	
 	/**
 	 * splits the elementTable in two tables via a given ratio.
-	 * the original table stays unchanged.
+	 * the original table stays unchanged. the new tables share the elements 
+	 * of the original table until one of them is modified.
 	 * @param 	ratio
 	 * @return 	an Array with two ElementTables.
 	 */
 	public ElementTable[] split(double ratio) {
 		ElementTable[] et = new ElementTable[2];
-		sort();
 		int splitIndex = (int)Math.ceil( size()*ratio );
 		if (splitIndex >= size()) {
 			splitIndex = size()-1;
@@ -361,21 +796,20 @@ public class ElementTable implements DHTObject, Cloneable {
 		// increase the index where the table will be splitted until there is a different key
 		if (splitIndex == 0) splitIndex = 1;
 		while (splitIndex < size() &&
-				elementList.get(splitIndex-1).compareTo(elementList.get(splitIndex)) == 0) {
+				store.getValue(splitIndex-1) == store.getValue(splitIndex)) {
 			splitIndex++;
 		}
 
 		// build second table
-		LinkedList<SkipgraphElement> et2List = new LinkedList<>(this.elementList.subList(splitIndex, size()));
-		BigDecimal et2Start = et2List.get(0).getValue();
-		BigDecimal et2End = this.rangeEnd;
-		et[1] = new ElementTable(et2List, et2Start, et2End);
+		long et2Start = store.getValue(splitIndex);
+		long et2End = this.rangeEnd;
+		et[1] = new ElementTable(SlicedElementStore.of(store, splitIndex, size()), et2Start, et2End);
 
 		// build first table
-		LinkedList<SkipgraphElement> et1List = new LinkedList<>(this.elementList.subList(0, splitIndex));
-		BigDecimal et1Start = this.rangeStart;
-		BigDecimal et1End = et2Start;
-		et[0] = new ElementTable(et1List, et1Start, et1End);
+		long et1Start = this.rangeStart;
+		long et1End = et2Start;
+		et[0] = new ElementTable(SlicedElementStore.of(store, 0, splitIndex), et1Start, et1End);
+		shared = true;
 
 		if (SkipgraphServiceConstants.logJoin || SkipgraphServiceConstants.logLeave || SkipgraphServiceConstants.logMaintenance)
 			System.out.println(String.format("    split: %d:%d", et[0].size(), et[1].size()));
@@ -387,7 +821,8 @@ public class ElementTable implements DHTObject, Cloneable {
 	/**
 	 * splits the elementTable in three tables. the ranges of those tables are adjusted according to the
 	 * original range limits and the element values in the new table parts.
-	 * the original table stays unchanged.
+	 * the original table stays unchanged. the new tables share the elements 
+	 * of the original table until one of them is modified.
 	 * @param 	m	the size of the table that will be returned in array index 0.
 	 * @param 	n	the size of the table that will be returned in array index 2.
 	 * @return 	an Array of size 3 with 3 ElementTables.
@@ -408,11 +843,10 @@ public class ElementTable implements DHTObject, Cloneable {
 		int nIndex = size() - n;
 
 		ElementTable[] et = new ElementTable[3];
-		sort();
 		
 		// reduce the m-index where the table will be splitted until there is a different key
 		if (mIndex < size()) {
-			while (mIndex > 0 && elementList.get(mIndex-1).compareTo(elementList.get(mIndex)) == 0) {
+			while (mIndex > 0 && store.getValue(mIndex-1) == store.getValue(mIndex)) {
 				mIndex--;
 			}
 		}
@@ -422,69 +856,56 @@ public class ElementTable implements DHTObject, Cloneable {
 		}
 		else {
 			// increase the n-index where the table will be splitted until there is a different key
-			while (nIndex < size() && elementList.get(nIndex-1).compareTo(elementList.get(nIndex)) == 0) {
+			while (nIndex < size() && store.getValue(nIndex-1) == store.getValue(nIndex)) {
 				nIndex++;
 			}
 		}
 
-		LinkedList<SkipgraphElement> etList;
-		BigDecimal etStart = this.rangeStart;
-		BigDecimal etEnd;
+		long etStart = this.rangeStart;
+		long etEnd;
 		
 		if (mIndex > 0) {
-			etList = new LinkedList<>(this.elementList.subList(0, mIndex));
-			etEnd = mIndex < size() ? this.elementList.get(mIndex).getValue() : this.rangeEnd;
-			et[0] = new ElementTable(etList, etStart, etEnd);
+			etEnd = mIndex < size() ? store.getValue(mIndex) : this.rangeEnd;
+			et[0] = new ElementTable(SlicedElementStore.of(store, 0, mIndex), etStart, etEnd);
 			etStart = etEnd;
 		}
 		
 		if (!splitInTwo) {
 			// build second table
-			etList = new LinkedList<>(this.elementList.subList(mIndex, nIndex));
-			etEnd = nIndex < size() ? this.elementList.get(nIndex).getValue() : this.rangeEnd;
-			et[1] = new ElementTable(etList, etStart, etEnd);
+			etEnd = nIndex < size() ? store.getValue(nIndex) : this.rangeEnd;
+			et[1] = new ElementTable(SlicedElementStore.of(store, mIndex, nIndex), etStart, etEnd);
 			etStart = etEnd;
 		}
 
 		// build third table
 		if (nIndex < size()) {
-			etList = new LinkedList<>(this.elementList.subList(nIndex, size()));
 			etEnd = this.rangeEnd;
-			et[2] = new ElementTable(etList, etStart, etEnd);
+			et[2] = new ElementTable(SlicedElementStore.of(store, nIndex, size()), etStart, etEnd);
 		}
+		shared = true;
 
-		// Testing
-		etStart = null;
-		etEnd = null;
+		// Testing (only evaluated with assertions enabled)
+		assert isPartitionedBy(et);
+		
+		return et;
+	}
+	
+	
+	/**
+	 * @return	true if the given tables cover exactly the range and the elements of this table
+	 */
+	private boolean isPartitionedBy(ElementTable[] et) {
+		long etStart = SkipgraphServiceConstants.POSITIVE_INFINITY;
+		long etEnd = SkipgraphServiceConstants.NEGATIVE_INFINITY;
 		int etSize = 0;
 		for (ElementTable e : et) {
 			if (e != null) {
-				if (etStart == null) {
-					etStart = e.getRangeStart();
-				}
-				else {
-					etStart = etStart.compareTo(e.getRangeStart()) < 0 ? etStart : e.getRangeStart();
-				}
-				if (etEnd == null) {
-					etEnd = e.getRangeEnd();
-				}
-				else {
-					if (e.getRangeEnd() == null) {
-						etEnd = null;
-					}
-					else {
-						etEnd = etEnd.compareTo(e.getRangeEnd()) > 0 ? etEnd : e.getRangeEnd();
-					}
-				}
+				etStart = Math.min(etStart, e.getRangeStart());
+				etEnd = Math.max(etEnd, e.getRangeEnd());
 				etSize += e.size();
 			}
 		}
-		
-		assert (rangeStart.equals(etStart) &&
-				((etEnd == null && rangeEnd == null) || rangeEnd.equals(etEnd)) && 
-				size() == etSize);
-		
-		return et;
+		return rangeStart == etStart && rangeEnd == etEnd && size() == etSize;
 	}
 	
 	
@@ -502,7 +923,6 @@ public class ElementTable implements DHTObject, Cloneable {
 						SkipgraphServiceConstants.getElementTableMinSize(), 
 						SkipgraphServiceConstants.getElementTableMaxSize()
 				));
-		sort();
 		for (int i = 0; i < size(); i++) {
 			String index = ind3 /*+ " " + i*/;
 			sb.append(index + get(i) + "\n");
@@ -518,12 +938,10 @@ public class ElementTable implements DHTObject, Cloneable {
 
 	@Override
 	public long getTransmissionSize() {
-		// 2 * BigDecimal (rangeStart+rangeEnd)
+		// 2 * fixed-point long (rangeStart+rangeEnd)
 		long size = 2*SkipgraphServiceConstants.RESOLUTION_SIZE;
-		// elementList
-		for (SkipgraphElement element : elementList) {
-			size += element.getTransmissionSize();
-		}
+		// elements
+		size += store.getTransmissionSize();
 		return size;
 	}
 	
@@ -533,11 +951,7 @@ public class ElementTable implements DHTObject, Cloneable {
 	}
 	
 	public ElementTable copy() {
-		List<SkipgraphElement> elementListCopy = new LinkedList<>();
-		for (SkipgraphElement element : elementList) {
-			elementListCopy.add(element.copy());
-		}
-		return new ElementTable(elementListCopy, rangeStart, rangeEnd);
+		return new ElementTable(store.copy(), rangeStart, rangeEnd);
 	}
 
 
@@ -558,8 +972,8 @@ public class ElementTable implements DHTObject, Cloneable {
 	 * (rangeEnd(B) >= rangeStart(A)) and (rangeStart(B) <= rangeEnd(A))
 	 * 
 	 * remember:
-	 * rangeStart == null -> -inf
-	 * rangeEnd == null -> inf
+	 * rangeStart == NEGATIVE_INFINITY -> -inf
+	 * rangeEnd == POSITIVE_INFINITY -> inf
 	 * 
 	 * @param A		an ElementTable (A) that will be merged with B
 	 * @param B		an ElementTable (B) that will be merged with A
@@ -572,23 +986,31 @@ public class ElementTable implements DHTObject, Cloneable {
 		if (B == null || B.isEmpty())
 			return A.copy();
 		
-		BigDecimal aStart = A.getRangeStart();
-		BigDecimal aEnd = A.getRangeEnd();
-		BigDecimal bStart = B.getRangeStart();
-		BigDecimal bEnd = B.getRangeEnd();
-		BigDecimal cStart = B.getRangeStart();
-		BigDecimal cEnd = B.getRangeEnd();
-		List<SkipgraphElement> cList = new LinkedList<>();
-		
-		if ((aStart == null || bEnd == null || bEnd.compareTo(aStart) >= 0) && 
-			(aEnd == null || bStart == null || bStart.compareTo(aEnd) <= 0)) {
-			cList.addAll(A.getTable());
-			cList.addAll(B.getTable());
-			cStart = (aStart == null || bStart == null) ? null :
-					(aStart.compareTo(bStart) < 0) ? aStart : bStart;
-			cEnd = (aEnd == null || bEnd == null) ? null : 
-					(aEnd.compareTo(bEnd) > 0) ? aEnd : bEnd;
-			return new ElementTable(cList, cStart, cEnd);
+		long aStart = A.getRangeStart();
+		long aEnd = A.getRangeEnd();
+		long bStart = B.getRangeStart();
+		long bEnd = B.getRangeEnd();
+		if (bEnd >= aStart && bStart <= aEnd) {
+			// tables that were split off the same table and are neighbors again share their elements
+			ElementStore joined = aEnd == bStart ? SlicedElementStore.join(A.store, B.store) 
+					: bEnd == aStart ? SlicedElementStore.join(B.store, A.store) : null;
+			if (joined != null) {
+				return new ElementTable(joined, Math.min(aStart, bStart), Math.max(aEnd, bEnd));
+			}
+			
+			// both tables are sorted: a linear merge keeps the result sorted
+			List<SkipgraphElement> cList = new ArrayList<>(A.size() + B.size());
+			int a = 0;
+			int b = 0;
+			while (a < A.size() || b < B.size()) {
+				if (b == B.size() || (a < A.size() && A.store.getValue(a) <= B.store.getValue(b))) {
+					cList.add(A.store.get(a++));
+				}
+				else {
+					cList.add(B.store.get(b++));
+				}
+			}
+			return new ElementTable(cList, Math.min(aStart, bStart), Math.max(aEnd, bEnd));
 		}
 		
 		return null;
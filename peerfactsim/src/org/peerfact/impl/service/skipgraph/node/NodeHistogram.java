@@ -0,0 +1,143 @@
+package org.peerfact.impl.service.skipgraph.node;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.peerfact.Constants;
+import org.peerfact.impl.service.skipgraph.SkipgraphServiceConstants;
+import org.peerfact.impl.service.skipgraph.util.DimensionRegistry;
+import org.peerfact.impl.service.skipgraph.util.SGUtil;
+
+/**
+ * An immutable summary of the elements of a skip graph node at a given time: the range
+ * of the node and an equi-depth histogram per dimension. The summaries are gossiped
+ * between the nodes, see {@link SkipgraphServiceConstants#histogramGossip}.
+ *
+ * @author Andreas Funke
+ * @version 1.0, 03/22/2017
+ */
+public class NodeHistogram {
+
+	/* *******************************************
+	 ****************** FIELDS *******************
+	 ******************************************* */
+
+	private final BigInteger nodeID;
+
+	/** fixed-point, inclusive */
+	private final long rangeStart;
+
+	/** fixed-point, exclusive */
+	private final long rangeEnd;
+
+	/** simulation time of the summary */
+	private final long timestamp;
+
+	/** dimension id -> histogram */
+	private final Map<Integer, SelectivityHistogram> histograms;
+
+
+
+	/* *************************************************
+	 ****************** CONSTRUCTORS *******************
+	 ************************************************* */
+
+	public NodeHistogram(BigInteger nodeID, ElementTable elementTable, long timestamp) {
+		this.nodeID = nodeID;
+		this.rangeStart = elementTable.getRangeStart();
+		this.rangeEnd = elementTable.getRangeEnd();
+		this.timestamp = timestamp;
+		this.histograms = Collections.unmodifiableMap(
+				elementTable.getHistograms(SkipgraphServiceConstants.HISTOGRAM_BUCKETS));
+	}
+
+
+
+	/* ************************************************
+	 ****************** GETTERS ***********************
+	 ************************************************ */
+
+	public BigInteger getNodeID() {
+		return nodeID;
+	}
+
+
+	public long getRangeStart() {
+		return rangeStart;
+	}
+
+
+	public long getRangeEnd() {
+		return rangeEnd;
+	}
+
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+
+	/**
+	 * @return	the histogram of the dimension or null if the node has no element of the dimension
+	 */
+	public SelectivityHistogram getHistogram(int dimension) {
+		return histograms.get(dimension);
+	}
+
+
+	/**
+	 * @return	the number of elements of the dimension
+	 */
+	public int getCount(int dimension) {
+		SelectivityHistogram histogram = histograms.get(dimension);
+		return histogram == null ? 0 : histogram.getCount();
+	}
+
+
+
+	/* *************************************************
+	 ****************** METHODS ************************
+	 ***************************************************/
+
+	/**
+	 * @param end	fixed-point, exclusive
+	 * @return		true if the range of the node intersects [start, end)
+	 */
+	public boolean overlaps(long start, long end) {
+		return rangeStart < end && start < rangeEnd;
+	}
+
+
+	/**
+	 * @return	the estimated number of elements of the dimension in the interval, see 
+	 * 			{@link SelectivityHistogram#estimate}
+	 */
+	public double estimate(int dimension, long start, long end, boolean excludeEnd) {
+		SelectivityHistogram histogram = histograms.get(dimension);
+		return histogram == null ? 0 : histogram.estimate(start, end, excludeEnd);
+	}
+
+
+	public long getTransmissionSize() {
+		long size = nodeID.toByteArray().length + 2*SkipgraphServiceConstants.RESOLUTION_SIZE + Constants.LONG_SIZE;
+		for (SelectivityHistogram histogram : histograms.values()) {
+			size += histogram.getTransmissionSize();
+		}
+		return size;
+	}
+
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("NodeHistogram [node=").append(SGUtil.formatID(nodeID))
+				.append(", range=").append(SGUtil.formatValue(rangeStart)).append("..")
+				.append(SGUtil.formatValue(rangeEnd));
+		for (Entry<Integer, SelectivityHistogram> entry : histograms.entrySet()) {
+			sb.append(", ").append(DimensionRegistry.getName(entry.getKey())).append("=").append(entry.getValue());
+		}
+		return sb.append("]").toString();
+	}
+
+}
@@ -0,0 +1,384 @@
+package org.peerfact.impl.service.skipgraph.node;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.peerfact.impl.service.skipgraph.SearchAggregate;
+import org.peerfact.impl.service.skipgraph.util.ContactPool;
+import org.peerfact.impl.util.communicationmanager.ApplicationContact;
+
+/**
+ * The default {@link ElementStore}: the element objects in a list sorted by value
+ * plus a sorted index per dimension for range lookups.
+ *
+ * @author Andreas Funke
+ * @version 1.0, 03/22/2017
+ */
+class RowElementStore implements ElementStore {
+
+	/* *******************************************
+	 ****************** FIELDS *******************
+	 ******************************************* */
+
+	/** all elements of this store, always kept sorted by value */
+	private List<SkipgraphElement> elementList = new ArrayList<>();
+
+	/**
+	 * sorted index of the elements per dimension: dimension -> (value -> elements).
+	 * range lookups for a single dimension are answered from here.
+	 */
+	private Map<Integer, TreeMap<Long, List<SkipgraphElement>>> dimensionIndex = new LinkedHashMap<>();
+
+
+
+	/* ************************************************
+	 ****************** INTERFACE *********************
+	 ************************************************ */
+
+	@Override
+	public int size() {
+		return elementList.size();
+	}
+
+
+	@Override
+	public SkipgraphElement get(int index) {
+		return elementList.get(index);
+	}
+
+
+	@Override
+	public long getValue(int index) {
+		return elementList.get(index).getValue();
+	}
+
+
+	@Override
+	public int getDimensionId(int index) {
+		return elementList.get(index).getDimensionId();
+	}
+
+
+	@Override
+	public long getTimestamp(int index) {
+		return elementList.get(index).getTimestamp();
+	}
+
+
+	@Override
+	public void insert(SkipgraphElement element) {
+		elementList.add(upperBound(element.getValue()), element);
+		index(element);
+	}
+
+
+	@Override
+	public boolean remove(SkipgraphElement element) {
+		int index = indexOf(element);
+		if (index < 0) {
+			return false;
+		}
+		unindex(elementList.remove(index));
+		return true;
+	}
+
+
+	@Override
+	public void bulkUpdate(Set<SkipgraphElement> removals, List<SkipgraphElement> insertions) {
+		List<SkipgraphElement> mergedElements = new ArrayList<>(elementList.size() + insertions.size());
+		int i = 0;
+		for (SkipgraphElement element : elementList) {
+			// new elements go behind existing elements with an equal value
+			while (i < insertions.size() && insertions.get(i).getValue() < element.getValue()) {
+				mergedElements.add(insertions.get(i));
+				index(insertions.get(i++));
+			}
+			if (removals.contains(element)) {
+				unindex(element);
+			}
+			else {
+				mergedElements.add(element);
+			}
+		}
+		while (i < insertions.size()) {
+			mergedElements.add(insertions.get(i));
+			index(insertions.get(i++));
+		}
+		elementList = mergedElements;
+	}
+
+
+	@Override
+	public boolean removeIfExpired(SkipgraphElement element, long expirationDate) {
+		int index = indexOf(element);
+		if (index < 0 || elementList.get(index).getTimestamp() > expirationDate) {
+			return false;
+		}
+		unindex(elementList.remove(index));
+		return true;
+	}
+
+
+	@Override
+	public boolean purge(long expirationDate) {
+		boolean purged = false;
+		List<SkipgraphElement> remainingElements = new ArrayList<>(size());
+
+		// the remaining elements stay in sorted order
+		for (SkipgraphElement element : elementList) {
+			if (element.getTimestamp() > expirationDate) {
+				remainingElements.add(element);
+			}
+			else {
+				unindex(element);
+				purged = true;
+			}
+		}
+		elementList = remainingElements;
+
+		return purged;
+	}
+
+
+	@Override
+	public Set<ApplicationContact> getContacts(
+			int dimension,
+			long start,
+			long end,
+			boolean excludeEnd,
+			int maxNumberOfValues,
+			long expirationDate)
+	{
+		Set<ApplicationContact> results = new LinkedHashSet<>();
+		TreeMap<Long, List<SkipgraphElement>> valueMap = dimensionIndex.get(dimension);
+		if (valueMap == null || start > end) {
+			return results;
+		}
+
+		// narrow the dimension's index down to the requested interval
+		NavigableMap<Long, List<SkipgraphElement>> interval = valueMap.subMap(start, true, end, !excludeEnd);
+
+		for (List<SkipgraphElement> elements : interval.values()) {
+			for (SkipgraphElement element : elements) {
+				if (element.getTimestamp() < expirationDate) {
+					continue;
+				}
+				results.add(element.getContact());
+				// we can break the loop once we have collected enough elements
+				if (maxNumberOfValues > 0 && results.size() >= maxNumberOfValues) {
+					return results;
+				}
+			}
+		}
+		return results;
+	}
+
+
+	@Override
+	public Set<ApplicationContact> getLastContacts(
+			int dimension,
+			long start,
+			long end,
+			boolean excludeEnd,
+			int maxNumberOfValues,
+			long expirationDate)
+	{
+		Set<ApplicationContact> results = new LinkedHashSet<>();
+		TreeMap<Long, List<SkipgraphElement>> valueMap = dimensionIndex.get(dimension);
+		if (valueMap == null || start > end) {
+			return results;
+		}
+		for (List<SkipgraphElement> elements : valueMap.subMap(start, true, end, !excludeEnd).descendingMap().values()) {
+			for (SkipgraphElement element : elements) {
+				if (element.getTimestamp() < expirationDate) {
+					continue;
+				}
+				results.add(element.getContact());
+				if (maxNumberOfValues > 0 && results.size() >= maxNumberOfValues) {
+					return results;
+				}
+			}
+		}
+		return results;
+	}
+
+
+	@Override
+	public void aggregate(
+			int dimension,
+			long start,
+			long end,
+			boolean excludeEnd,
+			long expirationDate,
+			SearchAggregate aggregate)
+	{
+		TreeMap<Long, List<SkipgraphElement>> valueMap = dimensionIndex.get(dimension);
+		if (valueMap == null || start > end) {
+			return;
+		}
+		for (List<SkipgraphElement> elements : valueMap.subMap(start, true, end, !excludeEnd).values()) {
+			for (SkipgraphElement element : elements) {
+				if (element.getTimestamp() >= expirationDate) {
+					aggregate.add(element.getValue());
+				}
+			}
+		}
+	}
+
+
+	@Override
+	public void internContacts(ContactPool pool) {
+		for (SkipgraphElement element : elementList) {
+			element.internContact(pool);
+		}
+	}
+
+
+	@Override
+	public ElementStore subStore(int fromIndex, int toIndex) {
+		RowElementStore store = new RowElementStore();
+		for (SkipgraphElement element : elementList.subList(fromIndex, toIndex)) {
+			store.append(element);
+		}
+		return store;
+	}
+
+
+	@Override
+	public ElementStore copy() {
+		RowElementStore store = new RowElementStore();
+		for (SkipgraphElement element : elementList) {
+			store.append(element.copy());
+		}
+		return store;
+	}
+
+
+	@Override
+	public long getTransmissionSize() {
+		long size = 0;
+		for (SkipgraphElement element : elementList) {
+			size += element.getTransmissionSize();
+		}
+		return size;
+	}
+
+
+
+	/* *************************************************
+	 ****************** METHODS ************************
+	 ***************************************************/
+
+	/**
+	 * appends an element that is not lower than the current last element
+	 */
+	private void append(SkipgraphElement element) {
+		elementList.add(element);
+		index(element);
+	}
+
+
+	/**
+	 * registers an element in the dimension index
+	 */
+	private void index(SkipgraphElement element) {
+		TreeMap<Long, List<SkipgraphElement>> valueMap = dimensionIndex.get(element.getDimensionId());
+		if (valueMap == null) {
+			valueMap = new TreeMap<>();
+			dimensionIndex.put(element.getDimensionId(), valueMap);
+		}
+		List<SkipgraphElement> elements = valueMap.get(element.getValue());
+		if (elements == null) {
+			elements = new LinkedList<>();
+			valueMap.put(element.getValue(), elements);
+		}
+		elements.add(element);
+	}
+
+
+	/**
+	 * removes an element from the dimension index
+	 */
+	private void unindex(SkipgraphElement element) {
+		TreeMap<Long, List<SkipgraphElement>> valueMap = dimensionIndex.get(element.getDimensionId());
+		if (valueMap == null) {
+			return;
+		}
+		List<SkipgraphElement> elements = valueMap.get(element.getValue());
+		if (elements == null) {
+			return;
+		}
+		elements.remove(element);
+		if (elements.isEmpty()) {
+			valueMap.remove(element.getValue());
+			if (valueMap.isEmpty()) {
+				dimensionIndex.remove(element.getDimensionId());
+			}
+		}
+	}
+
+
+	/**
+	 * binary search on the sorted element list
+	 * @return	the index of the first element with a value greater or equal to the given value
+	 */
+	private int lowerBound(long value) {
+		int low = 0;
+		int high = elementList.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (elementList.get(mid).getValue() < value) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+
+	/**
+	 * binary search on the sorted element list
+	 * @return	the index of the first element with a value greater than the given value
+	 */
+	private int upperBound(long value) {
+		int low = 0;
+		int high = elementList.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (elementList.get(mid).getValue() <= value) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+
+	/**
+	 * @return	the position of an equal element in the sorted element list or -1 if not contained
+	 */
+	private int indexOf(SkipgraphElement element) {
+		for (int i = lowerBound(element.getValue()); i < elementList.size(); i++) {
+			SkipgraphElement candidate = elementList.get(i);
+			if (candidate.getValue() != element.getValue()) {
+				break;
+			}
+			if (candidate.equals(element)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+}
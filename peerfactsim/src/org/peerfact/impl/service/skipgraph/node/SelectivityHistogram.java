@@ -0,0 +1,161 @@
+package org.peerfact.impl.service.skipgraph.node;
+
+import java.util.Arrays;
+
+import org.peerfact.Constants;
+import org.peerfact.impl.service.skipgraph.SkipgraphServiceConstants;
+import org.peerfact.impl.service.skipgraph.util.SGUtil;
+
+/**
+ * An immutable equi-depth histogram of the values of one dimension of an {@link ElementTable}.
+ * Every bucket holds about the same number of elements, so dense value ranges get narrow
+ * buckets. Within a bucket the values are assumed to be uniformly distributed.
+ *
+ * @author Andreas Funke
+ * @version 1.0, 03/22/2017
+ */
+public class SelectivityHistogram {
+
+	/* *******************************************
+	 ****************** FIELDS *******************
+	 ******************************************* */
+
+	/** bucket i covers [bounds[i], bounds[i+1]]. fixed-point: minimum, quantiles, maximum */
+	private final long[] bounds;
+
+	/** number of elements per bucket */
+	private final int[] counts;
+
+
+
+	/* *************************************************
+	 ****************** CONSTRUCTORS *******************
+	 ************************************************* */
+
+	private SelectivityHistogram(long[] bounds, int[] counts) {
+		this.bounds = bounds;
+		this.counts = counts;
+	}
+
+
+	/**
+	 * @param values	fixed-point, sorted ascending
+	 * @param n			the number of values, at least 1
+	 * @param buckets	the maximum number of buckets
+	 */
+	static SelectivityHistogram build(long[] values, int n, int buckets) {
+		buckets = Math.max(1, Math.min(buckets, n));
+		long[] bounds = new long[buckets + 1];
+		int[] counts = new int[buckets];
+		bounds[0] = values[0];
+		int from = 0;
+		for (int i = 0; i < buckets; i++) {
+			// exclusive, at least one value per bucket
+			int to = (int)((long)n * (i + 1) / buckets);
+			bounds[i + 1] = values[to - 1];
+			counts[i] = to - from;
+			from = to;
+		}
+		return new SelectivityHistogram(bounds, counts);
+	}
+
+
+
+	/* ************************************************
+	 ****************** GETTERS ***********************
+	 ************************************************ */
+
+	public int getCount() {
+		int count = 0;
+		for (int c : counts) {
+			count += c;
+		}
+		return count;
+	}
+
+
+	public int getNumberOfBuckets() {
+		return counts.length;
+	}
+
+
+	/** fixed-point */
+	public long getMin() {
+		return bounds[0];
+	}
+
+
+	/** fixed-point */
+	public long getMax() {
+		return bounds[bounds.length - 1];
+	}
+
+
+
+	/* *************************************************
+	 ****************** METHODS ************************
+	 ***************************************************/
+
+	/**
+	 * @param start			fixed-point, inclusive
+	 * @param end			fixed-point, inclusive unless excludeEnd is set
+	 * @return				the estimated number of elements in the interval
+	 */
+	public double estimate(long start, long end, boolean excludeEnd) {
+		double estimate = 0;
+		for (int i = 0; i < counts.length; i++) {
+			long low = bounds[i];
+			long high = bounds[i + 1];
+			if (high < start || low > end || (excludeEnd && low == end)) {
+				continue;
+			}
+			if (low >= start && (high < end || (!excludeEnd && high == end))) {
+				// the bucket lies within the interval
+				estimate += counts[i];
+			}
+			else {
+				double overlap = (double)Math.min(high, end) - (double)Math.max(low, start);
+				estimate += counts[i] * overlap / ((double)high - (double)low);
+			}
+		}
+		return estimate;
+	}
+
+
+	public long getTransmissionSize() {
+		return SkipgraphServiceConstants.DIMENSION_SIZE 
+				+ bounds.length * SkipgraphServiceConstants.RESOLUTION_SIZE 
+				+ counts.length * Constants.INT_SIZE;
+	}
+
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof SelectivityHistogram)) {
+			return false;
+		}
+		SelectivityHistogram other = (SelectivityHistogram)obj;
+		return Arrays.equals(bounds, other.bounds) && Arrays.equals(counts, other.counts);
+	}
+
+
+	@Override
+	public int hashCode() {
+		return 31 * Arrays.hashCode(bounds) + Arrays.hashCode(counts);
+	}
+
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < counts.length; i++) {
+			sb.append(i == 0 ? "" : ", ").append(SGUtil.formatValue(bounds[i])).append("..")
+					.append(SGUtil.formatValue(bounds[i + 1])).append(": ").append(counts[i]);
+		}
+		return sb.append("]").toString();
+	}
+
+}
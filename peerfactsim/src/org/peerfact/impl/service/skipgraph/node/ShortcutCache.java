@@ -0,0 +1,157 @@
+package org.peerfact.impl.service.skipgraph.node;
+
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.peerfact.impl.service.skipgraph.SkipgraphServiceConstants;
+import org.peerfact.impl.simengine.Simulator;
+
+/**
+ * Contacts of distant nodes a node has learned about (e.g. from range adjustments),
+ * together with their ranges. The contacts are added to the routing map of the
+ * {@link ContactTable}, so a search for a range the node has seen before is sent
+ * to the responsible node directly instead of through the levels.
+ *
+ * A shortcut is dropped if the node doesn't answer, if another learned contact
+ * overlaps its range or after SHORTCUT_MAX_AGE. The least recently used shortcuts
+ * are dropped if the cache is full.
+ *
+ * @author Andreas Funke
+ * @version 1.0, 03/22/2017
+ */
+public class ShortcutCache {
+
+	/* *******************************************
+	 ****************** FIELDS *******************
+	 ******************************************* */
+
+	private final LinkedHashMap<BigInteger, Shortcut> shortcuts;
+
+	/** the local node, never a shortcut */
+	private final BigInteger nodeID;
+
+
+
+	/* *************************************************
+	 ****************** CONSTRUCTORS *******************
+	 ************************************************* */
+
+	public ShortcutCache(BigInteger nodeID, final int capacity) {
+		this.nodeID = nodeID;
+		this.shortcuts = new LinkedHashMap<BigInteger, Shortcut>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 4417043349524640791L;
+
+			@Override
+			protected boolean removeEldestEntry(Entry<BigInteger, Shortcut> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+
+
+	/* ************************************************
+	 ****************** GETTERS ***********************
+	 ************************************************ */
+
+	/**
+	 * @return	the learned contacts, including expired ones. see {@link #purge()}
+	 */
+	public Collection<SkipgraphContact> getContacts() {
+		List<SkipgraphContact> contacts = new LinkedList<>();
+		for (Shortcut shortcut : shortcuts.values()) {
+			contacts.add(shortcut.contact);
+		}
+		return contacts;
+	}
+
+	public int size() {
+		return shortcuts.size();
+	}
+
+	public boolean isEmpty() {
+		return shortcuts.isEmpty();
+	}
+
+
+
+	/* *************************************************
+	 ****************** METHODS ************************
+	 ***************************************************/
+
+	/**
+	 * adds or refreshes the contact. learned contacts of other nodes with an overlapping
+	 * range are outdated and removed.
+	 */
+	public void learn(SkipgraphContact contact) {
+		if (contact == null || contact.getNodeID().equals(nodeID)) {
+			return;
+		}
+		Iterator<Shortcut> it = shortcuts.values().iterator();
+		while (it.hasNext()) {
+			SkipgraphContact other = it.next().contact;
+			if (!other.getNodeID().equals(contact.getNodeID())
+					&& other.getRangeStart() < contact.getRangeEnd()
+					&& contact.getRangeStart() < other.getRangeEnd()) {
+				it.remove();
+			}
+		}
+		shortcuts.put(contact.getNodeID(),
+				new Shortcut(contact, Simulator.getCurrentTime() + SkipgraphServiceConstants.SHORTCUT_MAX_AGE));
+	}
+
+
+	/**
+	 * marks the shortcut as recently used
+	 */
+	public void used(BigInteger contactID) {
+		shortcuts.get(contactID);
+	}
+
+
+	/**
+	 * @return	true if there was a shortcut to the node
+	 */
+	public boolean remove(BigInteger contactID) {
+		return shortcuts.remove(contactID) != null;
+	}
+
+
+	/**
+	 * removes the expired shortcuts
+	 * @return	true if a shortcut was removed
+	 */
+	public boolean purge() {
+		long now = Simulator.getCurrentTime();
+		boolean removed = false;
+		Iterator<Shortcut> it = shortcuts.values().iterator();
+		while (it.hasNext()) {
+			if (it.next().expirationDate <= now) {
+				it.remove();
+				removed = true;
+			}
+		}
+		return removed;
+	}
+
+
+
+	private static class Shortcut {
+
+		private final SkipgraphContact contact;
+
+		private final long expirationDate;
+
+		private Shortcut(SkipgraphContact contact, long expirationDate) {
+			this.contact = contact;
+			this.expirationDate = expirationDate;
+		}
+	}
+
+}
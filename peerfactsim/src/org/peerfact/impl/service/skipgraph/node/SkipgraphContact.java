@@ -1,6 +1,5 @@
 package org.peerfact.impl.service.skipgraph.node;
 
-import java.math.BigDecimal;
 import java.math.BigInteger;
 
 import org.peerfact.Constants;
@@ -20,15 +19,23 @@ public class SkipgraphContact implements DHTObject, Cloneable {
 
 	private final BigInteger nodeID;
 
-	private final BigDecimal rangeStart;
+	/** fixed-point, NEGATIVE_INFINITY for an open range start */
+	private final long rangeStart;
 	
-	private final BigDecimal rangeEnd;
+	/** fixed-point, POSITIVE_INFINITY for an open range end */
+	private final long rangeEnd;
 	
 	/**
 	 * the prefix is only used for level optimization
 	 */
 	private final long contactTablePrefix;
 	
+	/**
+	 * summary of the node's elements, only used to prune search forwarding. 
+	 * null if unknown.
+	 */
+	private final ZoneMap zoneMap;
+	
 
 
 	/* *************************************************
@@ -37,14 +44,25 @@ public class SkipgraphContact implements DHTObject, Cloneable {
 
 	public SkipgraphContact(
 			BigInteger nodeID, 
-			BigDecimal rangeStart, 
-			BigDecimal rangeEnd, 
+			long rangeStart, 
+			long rangeEnd, 
 			long contactTablePrefix) 
+	{
+		this(nodeID, rangeStart, rangeEnd, contactTablePrefix, null);
+	}
+
+	public SkipgraphContact(
+			BigInteger nodeID, 
+			long rangeStart, 
+			long rangeEnd, 
+			long contactTablePrefix,
+			ZoneMap zoneMap) 
 	{
 		this.nodeID = nodeID;
 		this.rangeStart = rangeStart;
 		this.rangeEnd = rangeEnd;
 		this.contactTablePrefix = contactTablePrefix;
+		this.zoneMap = zoneMap;
 	}
 
 
@@ -57,11 +75,11 @@ public class SkipgraphContact implements DHTObject, Cloneable {
 		return nodeID;
 	}
 
-	public BigDecimal getRangeStart() {
+	public long getRangeStart() {
 		return rangeStart;
 	}
 
-	public BigDecimal getRangeEnd() {
+	public long getRangeEnd() {
 		return rangeEnd;
 	}
 
@@ -69,10 +87,25 @@ public class SkipgraphContact implements DHTObject, Cloneable {
 		return contactTablePrefix;
 	}
 
+	/**
+	 * @return	the zone map of the node or null if unknown
+	 */
+	public ZoneMap getZoneMap() {
+		return zoneMap;
+	}
+	
+	/**
+	 * @return	true if the node certainly holds no element of the dimension in the interval.
+	 * 			always false if the zone map is unknown.
+	 */
+	public boolean isEmptyFor(int dimension, long start, long end, boolean excludeEnd) {
+		return zoneMap != null && !zoneMap.mayContain(dimension, start, end, excludeEnd);
+	}
+
 	public String getRangeToString() {
 		return String.format("%s, %s",
-				rangeStart == null ? "(-inf" : "["+rangeStart.toString(),
-				rangeEnd == null ? "inf)" : rangeEnd.toString()+")"
+				rangeStart == SkipgraphServiceConstants.NEGATIVE_INFINITY ? "(-inf" : "["+SGUtil.formatValue(rangeStart),
+				rangeEnd == SkipgraphServiceConstants.POSITIVE_INFINITY ? "inf)" : SGUtil.formatValue(rangeEnd)+")"
 				);
 	}
 	
@@ -104,14 +137,10 @@ public class SkipgraphContact implements DHTObject, Cloneable {
 		if (!nodeID.equals(ext.getNodeID()))
 			return false;
 		
-		if ((rangeStart == null && ext.getRangeStart() != null) ||
-				(rangeStart != null && ext.getRangeStart() == null) ||
-				(rangeStart != null && !rangeStart.equals(ext.getRangeStart())))
+		if (rangeStart != ext.getRangeStart())
 			return false;
 		
-		if ((rangeEnd == null && ext.getRangeEnd() != null) ||
-				(rangeEnd != null && ext.getRangeEnd() == null) ||
-				(rangeEnd != null && !rangeEnd.equals(ext.getRangeEnd())))
+		if (rangeEnd != ext.getRangeEnd())
 			return false;
 		
 		if (SkipgraphServiceConstants.optimizeLevelPrefix)
@@ -128,11 +157,9 @@ public class SkipgraphContact implements DHTObject, Cloneable {
 		int result = 1;
 		result = prime * result + Long.hashCode(contactTablePrefix);
 		result = prime * result + ((nodeID == null) ? 0 : nodeID.hashCode());
-		result = prime * result
-				+ ((rangeEnd == null) ? 0 : rangeEnd.hashCode());
+		result = prime * result + Long.hashCode(rangeEnd);
 		if (SkipgraphServiceConstants.optimizeLevelPrefix)
-			result = prime * result
-					+ ((rangeStart == null) ? 0 : rangeStart.hashCode());
+			result = prime * result + Long.hashCode(rangeStart);
 		return result;
 	}
 
@@ -145,6 +172,8 @@ public class SkipgraphContact implements DHTObject, Cloneable {
 		size += 2*(SkipgraphServiceConstants.RESOLUTION_SIZE);
 		if (SkipgraphServiceConstants.optimizeLevelPrefix)
 			size += Constants.LONG_SIZE;
+		if (zoneMap != null)
+			size += zoneMap.getTransmissionSize();
 		return size;
 	}
 	
@@ -156,7 +185,7 @@ public class SkipgraphContact implements DHTObject, Cloneable {
 	
 	
 	public SkipgraphContact copy() {
-		return new SkipgraphContact(nodeID, rangeStart, rangeEnd, contactTablePrefix);
+		return new SkipgraphContact(nodeID, rangeStart, rangeEnd, contactTablePrefix, zoneMap);
 	}
 
 }
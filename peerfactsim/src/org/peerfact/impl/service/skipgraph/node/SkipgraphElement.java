@@ -8,6 +8,8 @@ import org.peerfact.api.overlay.dht.DHTObject;
 import org.peerfact.impl.service.skipgraph.SkipgraphServiceConstants;
 import org.peerfact.impl.service.skipgraph.operations.AbstractSkipgraphServiceOperation.TrackerCallback;
 import org.peerfact.impl.service.skipgraph.operations.UpdateOperation.ConfirmationCallback;
+import org.peerfact.impl.service.skipgraph.util.ContactPool;
+import org.peerfact.impl.service.skipgraph.util.DimensionRegistry;
 import org.peerfact.impl.service.skipgraph.util.SGUtil;
 import org.peerfact.impl.simengine.Simulator;
 import org.peerfact.impl.util.communicationmanager.ApplicationContact;
@@ -22,9 +24,12 @@ public class SkipgraphElement implements DHTObject, Comparable<SkipgraphElement>
 	 ****************** FIELDS *******************
 	 *********************************************/
 
-	private final String dimension;
-	private final BigDecimal value;
-	private final ApplicationContact contact;
+	/** see {@link DimensionRegistry} */
+	private final int dimension;
+	/** fixed-point representation, see {@link SGUtil#toFixedPoint} */
+	private final long value;
+	/** not final: replaced by an equal, pooled instance, see {@link #internContact} */
+	private ApplicationContact contact;
 	private final long timestamp;
 	
 	
@@ -40,15 +45,19 @@ public class SkipgraphElement implements DHTObject, Comparable<SkipgraphElement>
 	 ****************** CONSTRUCTORS *******************
 	 ***************************************************/
 
+	/**
+	 * @param value		the decimal value is encoded as fixed-point long. 
+	 * 					must not be null.
+	 */
 	public SkipgraphElement(
 			String dimension, 
 			BigDecimal value, 
 			ApplicationContact contact) 
 	{
-		this.dimension = dimension;
-		this.value = value;
-		this.contact = contact;
-		this.timestamp = Simulator.getCurrentTime();
+		this(DimensionRegistry.getId(dimension), 
+				SGUtil.toFixedPoint(value, SkipgraphServiceConstants.NEGATIVE_INFINITY), 
+				contact, 
+				Simulator.getCurrentTime());
 	}
 
 	public SkipgraphElement(
@@ -56,6 +65,18 @@ public class SkipgraphElement implements DHTObject, Comparable<SkipgraphElement>
 			BigDecimal value, 
 			ApplicationContact contact, 
 			long timestamp) 
+	{
+		this(DimensionRegistry.getId(dimension), 
+				SGUtil.toFixedPoint(value, SkipgraphServiceConstants.NEGATIVE_INFINITY), 
+				contact, 
+				timestamp);
+	}
+
+	SkipgraphElement(
+			int dimension, 
+			long value, 
+			ApplicationContact contact, 
+			long timestamp) 
 	{
 		this.dimension = dimension;
 		this.value = value;
@@ -70,13 +91,30 @@ public class SkipgraphElement implements DHTObject, Comparable<SkipgraphElement>
 	 **************************************************/
 
 	public String getDimension() {
+		return DimensionRegistry.getName(dimension);
+	}
+
+	/**
+	 * @return	the id of the dimension, see {@link DimensionRegistry}
+	 */
+	public int getDimensionId() {
 		return dimension;
 	}
 
-	public BigDecimal getValue() {
+	/**
+	 * @return	the fixed-point value
+	 */
+	public long getValue() {
 		return value;
 	}
 
+	/**
+	 * @return	the decimal value (for the application layer and logging)
+	 */
+	public BigDecimal getDecimalValue() {
+		return SGUtil.toDecimal(value);
+	}
+
 	public ApplicationContact getContact() {
 		return this.contact;
 	}
@@ -125,6 +163,13 @@ public class SkipgraphElement implements DHTObject, Comparable<SkipgraphElement>
 		}
 	}
 
+	/**
+	 * replaces the contact by the equal instance of the pool
+	 */
+	void internContact(ContactPool pool) {
+		contact = pool.intern(contact);
+	}
+
 	
 	
 	/* *************************************************
@@ -133,17 +178,17 @@ public class SkipgraphElement implements DHTObject, Comparable<SkipgraphElement>
 
 	@Override
 	public String toString() {
-		return String.format("(%s, %s, peer=%s)", value, dimension, SGUtil.formatContact(contact));
+		return String.format("(%s, %s, peer=%s)", SGUtil.formatValue(value), getDimension(), SGUtil.formatContact(contact));
 	}
 
 	public String toStringFull() {
-		return String.format("(%s, %s, peer=%s, %s)", value, dimension, SGUtil.formatContact(contact),
+		return String.format("(%s, %s, peer=%s, %s)", SGUtil.formatValue(value), getDimension(), SGUtil.formatContact(contact),
 				Simulator.getFormattedTime(timestamp));
 	}
 
 	@Override
 	public int compareTo(SkipgraphElement t) {
-		return this.value.compareTo(t.getValue());
+		return Long.compare(this.value, t.getValue());
 	}
 
 	@Override
@@ -151,10 +196,8 @@ public class SkipgraphElement implements DHTObject, Comparable<SkipgraphElement>
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + ((contact == null) ? 0 : contact.hashCode());
-		result = prime * result
-				+ ((dimension == null) ? 0 : dimension.hashCode());
-		// TODO: this is not ideal but fine for the current implementation
-		result = prime * result + ((value == null) ? 0 : value.hashCode());
+		result = prime * result + dimension;
+		result = prime * result + Long.hashCode(value);
 		return result;
 	}
 
@@ -172,15 +215,9 @@ public class SkipgraphElement implements DHTObject, Comparable<SkipgraphElement>
 				return false;
 		} else if (!contact.equals(other.contact))
 			return false;
-		if (dimension == null) {
-			if (other.dimension != null)
-				return false;
-		} else if (!dimension.equals(other.dimension))
+		if (dimension != other.dimension)
 			return false;
-		if (value == null) {
-			if (other.value != null)
-				return false;
-		} else if (!(this.value.compareTo(other.value) == 0))
+		if (value != other.value)
 			return false;
 		return true;
 	}
@@ -192,8 +229,8 @@ public class SkipgraphElement implements DHTObject, Comparable<SkipgraphElement>
 	public long getTransmissionSize() {
 		long size = 0;
 		// dimension
-		size += dimension.length() * 2;
-		// value - BigDecimal approximated
+		size += SkipgraphServiceConstants.DIMENSION_SIZE;
+		// value - fixed-point long
 		size += SkipgraphServiceConstants.RESOLUTION_SIZE;
 		// contact
 		size += contact.getSize();
@@ -1,6 +1,5 @@
 package org.peerfact.impl.service.skipgraph.node;
 
-import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.List;
 
@@ -139,9 +138,10 @@ public class SkipgraphNode implements DHTObject, Comparable<SkipgraphNode> {
 	public SkipgraphContact getContact() {
 		return new SkipgraphContact(
 				nodeID,
-				elementTable == null ? BigDecimal.ZERO : elementTable.getRangeStart(), 
-				elementTable == null ? BigDecimal.ZERO : elementTable.getRangeEnd(),
-				(contactTable != null ? contactTable.getTablePrefix() : 0 ));
+				elementTable == null ? 0 : elementTable.getRangeStart(), 
+				elementTable == null ? 0 : elementTable.getRangeEnd(),
+				(contactTable != null ? contactTable.getTablePrefix() : 0 ),
+				(elementTable != null && SkipgraphServiceConstants.zoneMaps ? elementTable.getZoneMap() : null));
 	}
 
 
@@ -160,12 +160,16 @@ public class SkipgraphNode implements DHTObject, Comparable<SkipgraphNode> {
 	 ************** DATA MODIFICATION *****************
 	 ************************************************ */
 
-	boolean add(List<SkipgraphElement> elements) {
-		if (elements == null || elements.isEmpty()) {
+	/**
+	 * applies inputs and deletions to the element table in one batch
+	 */
+	boolean update(List<SkipgraphElement> inputElements, List<SkipgraphElement> deleteElements) {
+		if ((inputElements == null || inputElements.isEmpty()) 
+				&& (deleteElements == null || deleteElements.isEmpty())) {
 			return false;
 		}
 		try {
-			return elementTable.addAll(elements);
+			return elementTable.update(inputElements, deleteElements);
 		}
 		catch (NullPointerException e) {
 			log("seed");
@@ -173,20 +177,6 @@ public class SkipgraphNode implements DHTObject, Comparable<SkipgraphNode> {
 		}
 		return false;
 	}
-
-	
-	boolean remove(List<SkipgraphElement> elements) {
-		if (elements == null || elements.isEmpty()) {
-			return false;
-		}
-		try {
-			return elementTable.removeAll(elements);
-		}
-		catch (NullPointerException e) {
-			e.printStackTrace();
-		}
-		return false;
-	}
 	
 	
 	
@@ -234,23 +224,13 @@ public class SkipgraphNode implements DHTObject, Comparable<SkipgraphNode> {
 
 	@Override
 	public int compareTo(SkipgraphNode externalNode) {
-		BigDecimal internalValue = elementTable == null ? null : elementTable.getRangeStart();
-		BigDecimal externalValue = externalNode.elementTable == null ? null : externalNode.elementTable.getRangeStart();
-
-		if (internalValue == null) {
-			if (externalValue == null) {
-				return 0;
-			}
-			else {
-				return -1;
-			}
-		}
-		else if (externalValue == null) {
-			return 1;
-		}
-		else {
-			return internalValue.compareTo(externalValue);
-		}
+		// nodes without an element table are sorted first
+		long internalValue = elementTable == null ? 
+				SkipgraphServiceConstants.NEGATIVE_INFINITY : elementTable.getRangeStart();
+		long externalValue = externalNode.elementTable == null ? 
+				SkipgraphServiceConstants.NEGATIVE_INFINITY : externalNode.elementTable.getRangeStart();
+
+		return Long.compare(internalValue, externalValue);
 	}
 
 
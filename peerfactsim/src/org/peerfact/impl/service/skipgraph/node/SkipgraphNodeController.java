@@ -2,16 +2,17 @@ package org.peerfact.impl.service.skipgraph.node;
 
 import static org.peerfact.impl.application.capacitymanager.CapacityManagerApplicationConstants.ind1;
 
-import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NavigableMap;
 import java.util.Set;
-import java.util.TreeMap;
 
 import org.peerfact.api.overlay.dht.DHTKey;
+import org.peerfact.impl.service.skipgraph.SearchQuery;
 import org.peerfact.impl.service.skipgraph.SkipgraphService;
 import org.peerfact.impl.service.skipgraph.SkipgraphServiceConstants;
 import org.peerfact.impl.service.skipgraph.messages.SearchQueryMessage;
@@ -48,7 +49,7 @@ public class SkipgraphNodeController {
 		valid = true;
 		for (SkipgraphElement element : elements) {
 			valid &= (element.getDimension() != null);
-			valid &= (element.getValue() != null);
+			valid &= (element.getValue() != SkipgraphServiceConstants.NEGATIVE_INFINITY);
 			valid &= (element.getContact() != null);
 			if (!valid) {
 				System.out.println("elements not valid. data corrupt.");
@@ -120,6 +121,9 @@ public class SkipgraphNodeController {
 		this.oc = new OperationCaller(this);
 		this.or = new OperationResponder(this);
 		init();
+		if (node.getElementTable() != null) {
+			node.getElementTable().internContacts(service.getContactPool());
+		}
 		oc.callHandshakeOperation(getContactTable().getNext().getNodeID(), 0, 1, SGUtil.Route.NEXT);
 	}
 
@@ -172,7 +176,7 @@ public class SkipgraphNodeController {
 	}
 
 	public SkipgraphContact getContact() {
-		return disabled ? new SkipgraphContact(getNodeID(), BigDecimal.ZERO, BigDecimal.ZERO, 0)
+		return disabled ? new SkipgraphContact(getNodeID(), 0, 0, 0)
 				: node.getContact();
 	}
 
@@ -269,6 +273,13 @@ public class SkipgraphNodeController {
 			return false;
 		}
 		
+		// stored and buffered elements share the contact instances of this service
+		if (inputElements != null) {
+			for (SkipgraphElement element : inputElements) {
+				element.internContact(service.getContactPool());
+			}
+		}
+		
 		if (disabled) {
 			oc.callUpdateForwardingOperation(getContactTable().getNext().getNodeID(), operationID, 
 					inputElements, deleteElements);
@@ -277,6 +288,10 @@ public class SkipgraphNodeController {
 		
 		Map<BigInteger, UpdateTuple> map = mapElementsToContactsByRange(inputElements, deleteElements);
 		
+		// the zone map our contacts know
+		ZoneMap publishedZoneMap = SkipgraphServiceConstants.zoneMaps && getElementTable() != null ? 
+				getElementTable().getZoneMap() : null;
+		
 		boolean changed = false;
 		for (Entry<BigInteger, UpdateTuple> entry : map.entrySet()) {
 			BigInteger contactID = entry.getKey();
@@ -284,8 +299,7 @@ public class SkipgraphNodeController {
 			List<SkipgraphElement> deleteSublist = entry.getValue().getDeleteList(); 
 			
 			if (contactID.equals(getNodeID())) {
-				changed |= add(inputSublist);
-				changed |= remove(deleteSublist);
+				changed |= apply(inputSublist, deleteSublist);
 			}
 			else {
 				oc.callUpdateForwardingOperation(contactID, operationID, inputSublist, deleteSublist);
@@ -294,6 +308,12 @@ public class SkipgraphNodeController {
 
 		if (changed) {
 			save();
+			// contacts must learn about new dimensions or wider limits, otherwise they would prune queries
+			// for the new elements. narrower limits don't need to be published.
+			if (publishedZoneMap != null && getElementTable() != null 
+					&& !publishedZoneMap.covers(getElementTable().getZoneMap())) {
+				oc.callRangeAdjustmentOperation();
+			}
 			inspectElementTableSize();
 		}
 		
@@ -301,23 +321,13 @@ public class SkipgraphNodeController {
 	}
 	
 	
-	private boolean add(List<SkipgraphElement> elements) {
-		if (disabled || locked) {
-			elementBuffer.addInputs(elements);
-			return false;
-		}
-
-		return node.add(elements);
-	}
-
-	
-	private boolean remove(List<SkipgraphElement> elements) {
+	private boolean apply(List<SkipgraphElement> inputElements, List<SkipgraphElement> deleteElements) {
 		if (disabled || locked) {
-			elementBuffer.addDeletions(elements);
+			elementBuffer.addAll(inputElements, deleteElements);
 			return false;
 		}
 
-		return node.remove(elements);
+		return node.update(inputElements, deleteElements);
 	}
 		
 	
@@ -331,24 +341,38 @@ public class SkipgraphNodeController {
 			return false;
 		}
 
-		if (SkipgraphServiceConstants.parallelSearch) {
+		// aggregates and batched searches are always collected in parallel, ordered queries
+		// always walk the nodes serially. an adaptive search may mix both, see SearchPlan.
+		List<SearchQuery> parallelQueries = new LinkedList<>();
+		List<SearchQuery> serialQueries = new LinkedList<>();
+		for (SearchQuery query : message.getQueries()) {
+			if (query.getOrder() == null && (SkipgraphServiceConstants.parallelSearch 
+					|| SkipgraphServiceConstants.adaptiveSearch
+					|| query.getAggregate() != null || query.getSearchIndex() >= 0)) {
+				parallelQueries.add(query);
+			}
+			else {
+				serialQueries.add(query);
+			}
+		}
+		
+		if (!parallelQueries.isEmpty()) {
 			oc.prepareSearchParallelForwardingOperation(
 					message.getSender(),
 					message.getOperationID(),
-					message.getQueries(),
+					parallelQueries,
 					message.getTracker(),
 					null);
-			return true;
 		}
-		else {
+		if (!serialQueries.isEmpty()) {
 			oc.prepareSearchSerialDistribution(
 					message.getSender(),
 					message.getOperationID(),
-					message.getQueries(),
+					serialQueries,
 					0,
 					message.getTracker());
-			return true;
 		}
+		return true;
 	}
 	
 	
@@ -381,7 +405,7 @@ public class SkipgraphNodeController {
 		 * key: rangeStart of each contact in the table
 		 * value: the nodeID that belongs to the rangeStart
 		 */
-		TreeMap<BigDecimal, SkipgraphContact> contactRangeMap = getContactTable().getContactRangeMap();
+		NavigableMap<Long, SkipgraphContact> contactRangeMap = getContactTable().getContactRangeMap();
 
 		if (inputElements != null && !inputElements.isEmpty()) {
 			for (SkipgraphElement element : inputElements) {
@@ -391,7 +415,7 @@ public class SkipgraphNodeController {
 				 * If no such node exist we use the node that is responsible for the smallest key 
 				 * in our contactTable.
 				 */
-				Entry<BigDecimal, SkipgraphContact>  entry = contactRangeMap.floorEntry(element.getValue());
+				Entry<Long, SkipgraphContact>  entry = contactRangeMap.floorEntry(element.getValue());
 				BigInteger responsibleNode;
 				if (entry != null) {
 					responsibleNode = entry.getValue().getNodeID();
@@ -408,7 +432,7 @@ public class SkipgraphNodeController {
 		// repeat the same for the delete list
 		if (deleteElements != null && !deleteElements.isEmpty()) {
 			for (SkipgraphElement element : deleteElements) {
-				Entry<BigDecimal, SkipgraphContact>  entry = contactRangeMap.floorEntry(element.getValue());
+				Entry<Long, SkipgraphContact>  entry = contactRangeMap.floorEntry(element.getValue());
 				BigInteger responsibleNode;
 				if (entry != null) {
 					responsibleNode = entry.getValue().getNodeID();
@@ -426,11 +450,11 @@ public class SkipgraphNodeController {
 	}
 	
 	
-	public boolean isResponsibleForStart(BigDecimal value) {
+	public boolean isResponsibleForStart(long value) {
 		return disabled ? false : getElementTable().isResponsibleForStart(value);
 	}
 
-	public boolean isResponsibleForEnd(BigDecimal value) {
+	public boolean isResponsibleForEnd(long value) {
 		return disabled ? false : getElementTable().isResponsibleForEnd(value);
 	}
 
@@ -497,6 +521,9 @@ public class SkipgraphNodeController {
 		if (disabled) return false;
 
 		if (locked) {
+			if (et != null) {
+				et.internContacts(service.getContactPool());
+			}
 			setElementTable(et);
 			getContactTable().updateContacts(getContact());
 			if (updatedPrev != null) {
@@ -610,13 +637,24 @@ public class SkipgraphNodeController {
 	}
 	
 	public void setPrevOnLevel(SkipgraphContact contact, int level) {
+		SkipgraphContact formerContact = getContactTable().getPrevOnLevel(level);
 		if (getContactTable().setPrevOnLevel(contact, level)) {
+			// the former contact is still alive, just not our neighbour on this level anymore
+			getContactTable().learnShortcut(formerContact);
 			save();
 		}
 	}
 	
 	public void setNextOnLevel(SkipgraphContact contact, int level) {
+		SkipgraphContact formerContact = getContactTable().getNextOnLevel(level);
 		if (getContactTable().setNextOnLevel(contact, level)) {
+			getContactTable().learnShortcut(formerContact);
+			save();
+		}
+	}
+	
+	public void setNeighboursOnLevel(int level, Map<Integer, SkipgraphContact> neighbours) {
+		if (getContactTable().setNeighboursOnLevel(level, neighbours)) {
 			save();
 		}
 	}
@@ -635,6 +673,12 @@ public class SkipgraphNodeController {
 	public boolean setContactOnLevelAndCleanUp(Route route, SkipgraphContact replacement, 
 			int levelIndex, Set<BigInteger> deprecatedNodes, BigInteger leavingNodeID) {
 		boolean changed = false;
+		getContactTable().removeShortcut(leavingNodeID);
+		changed |= getContactTable().removeNeighbour(leavingNodeID);
+		for (BigInteger deprecatedNode : deprecatedNodes) {
+			getContactTable().removeShortcut(deprecatedNode);
+			changed |= getContactTable().removeNeighbour(deprecatedNode);
+		}
 		
 		// set the new contact if it's not a deprecated id (i.e. a node that has already left)
 		if (!deprecatedNodes.contains(replacement)) {
@@ -656,6 +700,24 @@ public class SkipgraphNodeController {
 		if (getContactTable().updateContacts(contact)) {
 			save();
 		}
+		else {
+			// not one of our neighbours, but we know its range now
+			getContactTable().learnShortcut(contact);
+		}
+	}
+	
+	/**
+	 * drops a node we could not forward to from the shortcuts and the neighbours of the levels
+	 */
+	public void removeShortcut(BigInteger contactID) {
+		getContactTable().removeShortcut(contactID);
+		if (getContactTable().removeNeighbour(contactID)) {
+			save();
+		}
+	}
+	
+	public void shortcutUsed(BigInteger contactID) {
+		getContactTable().shortcutUsed(contactID);
 	}
 	
 	public boolean optimizeTopLevelPrefix(BigInteger joiningID, int joiningPrefix, Route route) {
@@ -689,6 +751,7 @@ public class SkipgraphNodeController {
 		}
 		ElementTable mergedTable = ElementTable.merge(getElementTable(), extension);
 		if (mergedTable != null) {
+			mergedTable.internContacts(service.getContactPool());
 			getNode().setElementTable(mergedTable);
 			getContactTable().updateContacts(getContact());
 			save();
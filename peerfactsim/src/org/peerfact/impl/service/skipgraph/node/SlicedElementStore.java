@@ -0,0 +1,326 @@
+package org.peerfact.impl.service.skipgraph.node;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.peerfact.impl.service.skipgraph.SearchAggregate;
+import org.peerfact.impl.service.skipgraph.util.ContactPool;
+import org.peerfact.impl.util.communicationmanager.ApplicationContact;
+
+/**
+ * A read-only view on the index range [from, to) of another {@link ElementStore}.
+ * Splitting an {@link ElementTable} hands out slices instead of copying the elements.
+ * The slice copies its range into a store of its own on the first modification
+ * (copy-on-write). The underlying store must not be modified while slices on it
+ * are in use, see {@link ElementTable}.
+ *
+ * @author Andreas Funke
+ * @version 1.0, 03/22/2017
+ */
+class SlicedElementStore implements ElementStore {
+
+	/* *******************************************
+	 ****************** FIELDS *******************
+	 ******************************************* */
+
+	private final ElementStore base;
+
+	private final int from;
+
+	private final int to;
+
+	/** the own copy of the range, null as long as the slice was not modified */
+	private ElementStore materialized;
+
+
+
+	/* *************************************************
+	 ****************** CONSTRUCTORS *******************
+	 ************************************************* */
+
+	private SlicedElementStore(ElementStore base, int from, int to) {
+		this.base = base;
+		this.from = from;
+		this.to = to;
+	}
+
+
+	/**
+	 * @return	a slice on the index range [from, to) of the given store.
+	 * 			slices of slices refer to the original store.
+	 */
+	static ElementStore of(ElementStore store, int from, int to) {
+		if (store instanceof SlicedElementStore) {
+			SlicedElementStore slice = (SlicedElementStore)store;
+			if (slice.materialized == null) {
+				return new SlicedElementStore(slice.base, slice.from + from, slice.from + to);
+			}
+			store = slice.materialized;
+		}
+		return new SlicedElementStore(store, from, to);
+	}
+
+
+	/**
+	 * @return	a slice covering both given stores if they are unmodified, adjacent slices
+	 * 			of the same store (lower first), null otherwise
+	 */
+	static ElementStore join(ElementStore lower, ElementStore upper) {
+		if (!(lower instanceof SlicedElementStore) || !(upper instanceof SlicedElementStore)) {
+			return null;
+		}
+		SlicedElementStore first = (SlicedElementStore)lower;
+		SlicedElementStore second = (SlicedElementStore)upper;
+		if (first.materialized != null || second.materialized != null
+				|| first.base != second.base || first.to != second.from) {
+			return null;
+		}
+		return new SlicedElementStore(first.base, first.from, second.to);
+	}
+
+
+
+	/* ************************************************
+	 ****************** INTERFACE *********************
+	 ************************************************ */
+
+	@Override
+	public int size() {
+		if (materialized != null) {
+			return materialized.size();
+		}
+		return to - from;
+	}
+
+
+	@Override
+	public SkipgraphElement get(int index) {
+		if (materialized != null) {
+			return materialized.get(index);
+		}
+		checkIndex(index);
+		return base.get(from + index);
+	}
+
+
+	@Override
+	public long getValue(int index) {
+		if (materialized != null) {
+			return materialized.getValue(index);
+		}
+		checkIndex(index);
+		return base.getValue(from + index);
+	}
+
+
+	@Override
+	public int getDimensionId(int index) {
+		if (materialized != null) {
+			return materialized.getDimensionId(index);
+		}
+		checkIndex(index);
+		return base.getDimensionId(from + index);
+	}
+
+
+	@Override
+	public long getTimestamp(int index) {
+		if (materialized != null) {
+			return materialized.getTimestamp(index);
+		}
+		checkIndex(index);
+		return base.getTimestamp(from + index);
+	}
+
+
+	@Override
+	public void insert(SkipgraphElement element) {
+		materialize().insert(element);
+	}
+
+
+	@Override
+	public boolean remove(SkipgraphElement element) {
+		return materialize().remove(element);
+	}
+
+
+	@Override
+	public void bulkUpdate(Set<SkipgraphElement> removals, List<SkipgraphElement> insertions) {
+		materialize().bulkUpdate(removals, insertions);
+	}
+
+
+	@Override
+	public boolean removeIfExpired(SkipgraphElement element, long expirationDate) {
+		return materialize().removeIfExpired(element, expirationDate);
+	}
+
+
+	@Override
+	public boolean purge(long expirationDate) {
+		return materialize().purge(expirationDate);
+	}
+
+
+	@Override
+	public Set<ApplicationContact> getContacts(
+			int dimension,
+			long start,
+			long end,
+			boolean excludeEnd,
+			int maxNumberOfValues,
+			long expirationDate)
+	{
+		if (materialized == null && isValueAligned()) {
+			if (from == to) {
+				return new LinkedHashSet<>();
+			}
+			// the index range covers exactly a value range of the base store
+			long first = base.getValue(from);
+			long last = base.getValue(to - 1);
+			if (end > last) {
+				end = last;
+				excludeEnd = false;
+			}
+			return base.getContacts(dimension, Math.max(start, first), end,
+					excludeEnd, maxNumberOfValues, expirationDate);
+		}
+		return materialize().getContacts(dimension, start, end, excludeEnd, maxNumberOfValues, expirationDate);
+	}
+
+
+	@Override
+	public Set<ApplicationContact> getLastContacts(
+			int dimension,
+			long start,
+			long end,
+			boolean excludeEnd,
+			int maxNumberOfValues,
+			long expirationDate)
+	{
+		if (materialized == null && isValueAligned()) {
+			if (from == to) {
+				return new LinkedHashSet<>();
+			}
+			// see getContacts
+			long first = base.getValue(from);
+			long last = base.getValue(to - 1);
+			if (end > last) {
+				end = last;
+				excludeEnd = false;
+			}
+			return base.getLastContacts(dimension, Math.max(start, first), end,
+					excludeEnd, maxNumberOfValues, expirationDate);
+		}
+		return materialize().getLastContacts(dimension, start, end, excludeEnd, maxNumberOfValues, expirationDate);
+	}
+
+
+	@Override
+	public void aggregate(
+			int dimension,
+			long start,
+			long end,
+			boolean excludeEnd,
+			long expirationDate,
+			SearchAggregate aggregate)
+	{
+		if (materialized == null && isValueAligned()) {
+			if (from == to) {
+				return;
+			}
+			// see getContacts
+			long first = base.getValue(from);
+			long last = base.getValue(to - 1);
+			if (end > last) {
+				end = last;
+				excludeEnd = false;
+			}
+			base.aggregate(dimension, Math.max(start, first), end, excludeEnd, expirationDate, aggregate);
+			return;
+		}
+		materialize().aggregate(dimension, start, end, excludeEnd, expirationDate, aggregate);
+	}
+
+
+	/**
+	 * interning doesn't change the elements, so the underlying store may be interned as well
+	 */
+	@Override
+	public void internContacts(ContactPool pool) {
+		if (materialized != null) {
+			materialized.internContacts(pool);
+		}
+		else {
+			base.internContacts(pool);
+		}
+	}
+
+
+	@Override
+	public ElementStore subStore(int fromIndex, int toIndex) {
+		if (materialized != null) {
+			return materialized.subStore(fromIndex, toIndex);
+		}
+		return base.subStore(from + fromIndex, from + toIndex);
+	}
+
+
+	@Override
+	public ElementStore copy() {
+		if (materialized != null) {
+			return materialized.copy();
+		}
+		return base.subStore(from, to).copy();
+	}
+
+
+	@Override
+	public long getTransmissionSize() {
+		if (materialized != null) {
+			return materialized.getTransmissionSize();
+		}
+		long size = 0;
+		for (int i = from; i < to; i++) {
+			size += base.get(i).getTransmissionSize();
+		}
+		return size;
+	}
+
+
+
+	/* *************************************************
+	 ****************** METHODS ************************
+	 ***************************************************/
+
+	private ElementStore materialize() {
+		if (materialized == null) {
+			materialized = base.subStore(from, to);
+		}
+		return materialized;
+	}
+
+
+	/**
+	 * @return	true if no value is shared with an element outside of the slice
+	 */
+	private boolean isValueAligned() {
+		if (from > 0 && from < base.size() && base.getValue(from - 1) == base.getValue(from)) {
+			return false;
+		}
+		if (to > from && to < base.size() && base.getValue(to - 1) == base.getValue(to)) {
+			return false;
+		}
+		return true;
+	}
+
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= to - from) {
+			throw new IndexOutOfBoundsException("Index: "+index+", Size: "+(to - from));
+		}
+	}
+
+}
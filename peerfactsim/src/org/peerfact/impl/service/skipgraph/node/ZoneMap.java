@@ -0,0 +1,180 @@
+package org.peerfact.impl.service.skipgraph.node;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.peerfact.Constants;
+import org.peerfact.impl.service.skipgraph.SkipgraphServiceConstants;
+import org.peerfact.impl.service.skipgraph.util.DimensionRegistry;
+import org.peerfact.impl.service.skipgraph.util.SGUtil;
+
+/**
+ * An immutable summary of an {@link ElementTable}: the minimum value, maximum value and
+ * number of elements per dimension. A {@link SkipgraphContact} carries the zone map of
+ * its node, so search queries that can't hit any element of the node don't have to be
+ * forwarded to it.
+ *
+ * The limits are conservative: after deletions the real values may be narrower.
+ *
+ * @author Andreas Funke
+ * @version 1.0, 03/22/2017
+ */
+public class ZoneMap {
+
+	/* *******************************************
+	 ****************** FIELDS *******************
+	 ******************************************* */
+
+	/** dimension ids in ascending order */
+	private final int[] dimensions;
+
+	private final long[] min;
+
+	private final long[] max;
+
+	private final int[] count;
+
+
+
+	/* *************************************************
+	 ****************** CONSTRUCTORS *******************
+	 ************************************************* */
+
+	/**
+	 * @param zones		dimension id -> {min, max, count}
+	 */
+	ZoneMap(Map<Integer, long[]> zones) {
+		TreeMap<Integer, long[]> sortedZones = new TreeMap<>(zones);
+		int size = sortedZones.size();
+		dimensions = new int[size];
+		min = new long[size];
+		max = new long[size];
+		count = new int[size];
+		int i = 0;
+		for (Entry<Integer, long[]> entry : sortedZones.entrySet()) {
+			dimensions[i] = entry.getKey();
+			min[i] = entry.getValue()[0];
+			max[i] = entry.getValue()[1];
+			count[i] = (int)entry.getValue()[2];
+			i++;
+		}
+	}
+
+
+
+	/* ************************************************
+	 ****************** GETTERS ***********************
+	 ************************************************ */
+
+	/**
+	 * @return	the number of elements of the dimension, 0 if there are none
+	 */
+	public int getCount(int dimension) {
+		int i = indexOf(dimension);
+		return i < 0 ? 0 : count[i];
+	}
+
+
+	/**
+	 * @param start			fixed-point, inclusive
+	 * @param end			fixed-point, inclusive unless excludeEnd is set
+	 * @return				false if the node has no element of the dimension in the interval
+	 */
+	public boolean mayContain(int dimension, long start, long end, boolean excludeEnd) {
+		int i = indexOf(dimension);
+		if (i < 0) {
+			return false;
+		}
+		if (max[i] < start || min[i] > end || (excludeEnd && min[i] == end)) {
+			return false;
+		}
+		return true;
+	}
+
+
+	/**
+	 * @return	true if every element summarized by the given zone map is covered by this one
+	 */
+	public boolean covers(ZoneMap other) {
+		if (other == null) {
+			return true;
+		}
+		for (int j = 0; j < other.dimensions.length; j++) {
+			int i = indexOf(other.dimensions[j]);
+			if (i < 0 || other.min[j] < min[i] || other.max[j] > max[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+
+	/* *************************************************
+	 ****************** METHODS ************************
+	 ***************************************************/
+
+	private int indexOf(int dimension) {
+		int low = 0;
+		int high = dimensions.length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (dimensions[mid] < dimension) {
+				low = mid + 1;
+			}
+			else if (dimensions[mid] > dimension) {
+				high = mid - 1;
+			}
+			else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+
+	public long getTransmissionSize() {
+		return dimensions.length * (SkipgraphServiceConstants.DIMENSION_SIZE
+				+ 2*SkipgraphServiceConstants.RESOLUTION_SIZE + Constants.INT_SIZE);
+	}
+
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this)
+			return true;
+		if (!(obj instanceof ZoneMap))
+			return false;
+		ZoneMap other = (ZoneMap)obj;
+		return Arrays.equals(dimensions, other.dimensions)
+				&& Arrays.equals(min, other.min)
+				&& Arrays.equals(max, other.max)
+				&& Arrays.equals(count, other.count);
+	}
+
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + Arrays.hashCode(dimensions);
+		result = prime * result + Arrays.hashCode(min);
+		result = prime * result + Arrays.hashCode(max);
+		return result;
+	}
+
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("ZoneMap {");
+		for (int i = 0; i < dimensions.length; i++) {
+			sb.append(String.format("%s%s: [%s, %s] #%d", i > 0 ? ", " : "",
+					DimensionRegistry.getName(dimensions[i]),
+					SGUtil.formatValue(min[i]), SGUtil.formatValue(max[i]), count[i]));
+		}
+		return sb.append("}").toString();
+	}
+
+}
@@ -35,6 +35,15 @@ public abstract class AbstractSkipgraphNodeRequestMessage extends AbstractSkipgr
 
 	private static final long serialVersionUID = 7723198541658991134L;
 	
+
+	/* *******************************************
+	 ****************** FIELDS *******************
+	 ******************************************* */
+
+	/** the addressed node if the message is sent to the peer hosting it, null if the 
+	 *  receiver is the node itself (routed by the DHT) */
+	private BigInteger receivingNodeID;
+	
 	
 	/* *************************************************
 	 ****************** CONSTRUCTORS *******************
@@ -55,7 +64,47 @@ public abstract class AbstractSkipgraphNodeRequestMessage extends AbstractSkipgr
 	 **************************************************/
 
 	public BigInteger getReceivingNodeID() {
-		return getReceiver().getPeerID();
+		return receivingNodeID != null ? receivingNodeID : getReceiver().getPeerID();
+	}
+	
+	public boolean isDirectlyAddressed() {
+		return receivingNodeID != null;
+	}
+
+
+	
+	/* ************************************************
+	 ****************** SETTERS ***********************
+	 ************************************************ */
+
+	/**
+	 * addresses the given node on the peer of the receiver. see directAddressing
+	 */
+	public void setReceivingNodeID(BigInteger receivingNodeID) {
+		this.receivingNodeID = receivingNodeID;
+	}
+
+
+	
+	/* ************************************************
+	 ********** AbstractAppMessage METHODS ************
+	 ************************************************ */
+
+	/**
+	 * @return	the given copy of this message, addressed like this message
+	 */
+	protected <T extends AbstractSkipgraphNodeRequestMessage> T addressLike(T copy) {
+		copy.setReceivingNodeID(receivingNodeID);
+		return copy;
+	}
+	
+	
+	/**
+	 * @return message size in bytes
+	 */
+	@Override
+	public long getSize() {
+		return super.getSize() + (receivingNodeID == null ? 0 : receivingNodeID.toByteArray().length);
 	}
 	
 	
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2012-2013 Open Source Community - <http://www.peerfact.org>
+ * Copyright (c) 2011-2012 University of Paderborn - UPB
+ * Copyright (c) 2005-2011 KOM - Multimedia Communications Lab
+ *
+ * This file is part of PeerfactSim.KOM.
+ * 
+ * PeerfactSim.KOM is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ * 
+ * PeerfactSim.KOM is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with PeerfactSim.KOM.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.peerfact.impl.service.skipgraph.node.messages;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.peerfact.impl.service.skipgraph.node.NodeHistogram;
+import org.peerfact.impl.util.communicationmanager.AbstractAppMessage;
+import org.peerfact.impl.util.communicationmanager.ApplicationContact;
+
+/**
+ * Pushes the most recent node histograms of the sender. The receiver replies with its own.
+ *
+ * @author Andreas Funke
+ * @version 1.0, 03/22/2017
+ */
+public class HistogramGossipMessage extends AbstractSkipgraphNodeRequestMessage 
+									implements HistogramGossipCategory {
+
+	private static final long serialVersionUID = -966174575471383613L;
+	
+	
+	private final BigInteger senderNodeID;
+	
+	private final List<NodeHistogram> histograms;
+	
+	
+	/* *************************************************
+	 ****************** CONSTRUCTORS *******************
+	 ************************************************* */
+
+	public HistogramGossipMessage(
+			ApplicationContact sender,
+			ApplicationContact receiver,
+			int operationID,
+			BigInteger senderNodeID,
+			List<NodeHistogram> histograms) 
+	{
+		super(sender, receiver, operationID);
+		this.senderNodeID = senderNodeID;
+		this.histograms = histograms;
+	}
+	
+
+	
+	/* ************************************************
+	 ****************** GETTERS ***********************
+	 **************************************************/
+
+	public BigInteger getSenderNodeID() {
+		return senderNodeID;
+	}
+
+	public List<NodeHistogram> getHistograms() {
+		return histograms;
+	}
+
+
+
+	/* ************************************************
+	 ********** AbstractAppMessage METHODS ************
+	 ************************************************ */
+
+	@Override
+	public AbstractAppMessage copy() {
+		// the histograms are immutable
+		return new HistogramGossipMessage (
+				new ApplicationContact(getSender()), 
+				new ApplicationContact(getReceiver()),
+				this.getOperationID(),
+				this.senderNodeID,
+				new ArrayList<>(this.histograms)
+			);
+	}
+	
+	
+	@Override
+	public long getSize() {
+		long size = senderNodeID.toByteArray().length;
+		for (NodeHistogram histogram : histograms) {
+			size += histogram.getTransmissionSize();
+		}
+		return super.getSize() + size;
+	}
+	
+	
+	@Override
+	public String toString() {
+		return super.toString()
+				+ "\nsenderNodeID="+senderNodeID
+				+ ", histograms="+histograms.size();
+	}
+
+}
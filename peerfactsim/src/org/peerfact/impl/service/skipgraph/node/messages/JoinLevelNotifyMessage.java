@@ -24,6 +24,8 @@ package org.peerfact.impl.service.skipgraph.node.messages;
 
 import java.math.BigInteger;
 
+import org.peerfact.Constants;
+import org.peerfact.impl.service.skipgraph.node.SkipgraphContact;
 import org.peerfact.impl.service.skipgraph.util.SGUtil;
 import org.peerfact.impl.util.communicationmanager.AbstractAppMessage;
 import org.peerfact.impl.util.communicationmanager.ApplicationContact;
@@ -46,6 +48,12 @@ public class JoinLevelNotifyMessage extends AbstractSkipgraphNodeRequestMessage
 	
 	private final BigInteger forwardedToNodeID;
 	
+	/** the contact of the forwarding node. null if it is not linked on the requested level */
+	private final SkipgraphContact forwarderContact;
+	
+	/** the prefix of the forwarding node on the requested level */
+	private final int forwarderPrefix;
+	
 	
 	
 	/* *************************************************
@@ -57,11 +65,15 @@ public class JoinLevelNotifyMessage extends AbstractSkipgraphNodeRequestMessage
 			ApplicationContact receiver,
 			int operationID,
 			BigInteger receiverNodeID,
-			BigInteger forwardedToNodeID) 
+			BigInteger forwardedToNodeID,
+			SkipgraphContact forwarderContact,
+			int forwarderPrefix) 
 	{
 		super(sender, receiver, operationID);
 		this.receiverNodeID = receiverNodeID;
 		this.forwardedToNodeID = forwardedToNodeID;
+		this.forwarderContact = forwarderContact;
+		this.forwarderPrefix = forwarderPrefix;
 	}
 	
 
@@ -79,6 +91,16 @@ public class JoinLevelNotifyMessage extends AbstractSkipgraphNodeRequestMessage
 	public BigInteger getForwardedToNodeID() {
 		return forwardedToNodeID;
 	}
+	
+	
+	public SkipgraphContact getForwarderContact() {
+		return forwarderContact;
+	}
+	
+	
+	public int getForwarderPrefix() {
+		return forwarderPrefix;
+	}
 
 
 
@@ -93,7 +115,9 @@ public class JoinLevelNotifyMessage extends AbstractSkipgraphNodeRequestMessage
 				new ApplicationContact(getReceiver()),
 				this.getOperationID(),
 				this.receiverNodeID,
-				this.forwardedToNodeID
+				this.forwardedToNodeID,
+				this.forwarderContact,
+				this.forwarderPrefix
 				);
 	}
 	
@@ -106,6 +130,8 @@ public class JoinLevelNotifyMessage extends AbstractSkipgraphNodeRequestMessage
 		return super.getSize()
 				+ receiverNodeID.toByteArray().length
 				+ forwardedToNodeID.toByteArray().length
+				+ (forwarderContact != null 
+					? forwarderContact.getTransmissionSize() + Constants.INT_SIZE : 0)
 				;
 	}
 	
@@ -114,6 +140,8 @@ public class JoinLevelNotifyMessage extends AbstractSkipgraphNodeRequestMessage
 	public String toString() {
 		return super.toString() 
 				+ ", forawardedTo="+SGUtil.formatID(forwardedToNodeID)
+				+ (forwarderContact != null 
+					? ", forwarder="+forwarderContact+", forwarderPrefix="+forwarderPrefix : "")
 				;
 	}
 
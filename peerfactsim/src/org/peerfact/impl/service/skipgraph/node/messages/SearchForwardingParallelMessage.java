@@ -122,7 +122,7 @@ public class SearchForwardingParallelMessage extends AbstractSkipgraphNodeReques
 		for (SearchQuery query : queries) {
 			queriesCopy.add(query.copy());
 		}
-		return new SearchForwardingParallelMessage(
+		return addressLike(new SearchForwardingParallelMessage(
 				new ApplicationContact(getSender()), 
 				new ApplicationContact(getReceiver()),
 				this.getOperationID(),
@@ -130,7 +130,7 @@ public class SearchForwardingParallelMessage extends AbstractSkipgraphNodeReques
 				this.requestOperationID,
 				queriesCopy,
 				tracker,
-				senderNodeID);
+				senderNodeID));
 	}
 	
 
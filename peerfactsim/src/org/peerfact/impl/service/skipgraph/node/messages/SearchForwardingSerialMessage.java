@@ -114,7 +114,7 @@ public class SearchForwardingSerialMessage extends AbstractSkipgraphNodeRequestM
 
 	@Override
 	public AbstractAppMessage copy() {
-		return new SearchForwardingSerialMessage(
+		return addressLike(new SearchForwardingSerialMessage(
 				new ApplicationContact(getSender()), 
 				new ApplicationContact(getReceiver()),
 				this.getOperationID(),
@@ -122,7 +122,7 @@ public class SearchForwardingSerialMessage extends AbstractSkipgraphNodeRequestM
 				this.requestOperationID,
 				query.copy(),
 				this.messageCounter,
-				tracker);
+				tracker));
 	}
 	
 
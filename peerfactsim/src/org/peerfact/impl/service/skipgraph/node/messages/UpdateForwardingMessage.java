@@ -116,12 +116,12 @@ public class UpdateForwardingMessage extends AbstractSkipgraphNodeRequestMessage
 				deleteElementsClone.add(element.copy());
 			}
 		}
-		return new UpdateForwardingMessage(
+		return addressLike(new UpdateForwardingMessage(
 				new ApplicationContact(getSender()), 
 				new ApplicationContact(getReceiver()),
 				this.getOperationID(),
 				inputElementsClone,
-				deleteElementsClone);
+				deleteElementsClone));
 	}
 	
 
@@ -2,9 +2,14 @@ package org.peerfact.impl.service.skipgraph.node.operations;
 
 import java.math.BigInteger;
 
+import org.peerfact.api.common.Message;
 import org.peerfact.api.common.OperationCallback;
 import org.peerfact.impl.service.skipgraph.SkipgraphServiceConstants;
+import org.peerfact.impl.service.skipgraph.messages.AbstractSkipgraphMessage;
+import org.peerfact.impl.service.skipgraph.messages.DefaultNACKMessage;
 import org.peerfact.impl.service.skipgraph.node.SkipgraphNodeController;
+import org.peerfact.impl.service.skipgraph.node.messages.AbstractSkipgraphNodeRequestMessage;
+import org.peerfact.impl.service.skipgraph.node.messages.AbstractSkipgraphNodeResponseMessage;
 import org.peerfact.impl.service.skipgraph.operations.AbstractSkipgraphOperation;
 import org.peerfact.impl.util.communicationmanager.ApplicationContact;
 
@@ -29,6 +34,12 @@ public abstract class AbstractSkipgraphNodeOperation<S> extends AbstractSkipgrap
 	private ApplicationContact receiver;
 	
 	private long timeout = SkipgraphServiceConstants.NODE_OP_TIMEOUT;
+
+	/** send the message to the known peer hosting the receiving node, see {@link #redirected} */
+	private boolean directAddressing = false;
+
+	/** true if the last message was sent to the peer hosting the receiving node */
+	private boolean sentDirectly = false;
 	 
 	
 
@@ -87,6 +98,13 @@ public abstract class AbstractSkipgraphNodeOperation<S> extends AbstractSkipgrap
 	void setTimeout(long timeout) {
 		this.timeout = timeout;
 	}
+
+	/**
+	 * the operation must call {@link #redirected} with every answer
+	 */
+	void setDirectAddressing(boolean directAddressing) {
+		this.directAddressing = directAddressing && SkipgraphServiceConstants.directAddressing;
+	}
 	
 	@Override
 	public void setLogging(boolean logging) {
@@ -105,7 +123,7 @@ public abstract class AbstractSkipgraphNodeOperation<S> extends AbstractSkipgrap
 			logFull("executing");
 			scheduleOperationTimeout(getTimeout());
 			receiver = new ApplicationContact(receiverNodeID, null);
-			sendMessage(buildMessage(getReceiver()));
+			sendMessage(buildAddressedMessage());
 		}
 		else {
 			log("not present!");
@@ -119,7 +137,11 @@ public abstract class AbstractSkipgraphNodeOperation<S> extends AbstractSkipgrap
 	protected void retry() {
 		if (getComponent().getLocalNode().isPresent()) {
 			log("lookupCounter="+getNumberOfStartedLookups()+". resending message.");
-			sendMessage(buildMessage(getReceiver()));
+			if (sentDirectly) {
+				// the peer didn't answer as expected -> fall back to the DHT
+				getComponent().getPeerAddressCache().remove(receiverNodeID);
+			}
+			sendMessage(buildAddressedMessage());
 		}
 		else {
 			log("not present!");
@@ -129,6 +151,59 @@ public abstract class AbstractSkipgraphNodeOperation<S> extends AbstractSkipgrap
 	}
 	
 
+	/**
+	 * builds the message for the receiver. With direct addressing and a known peer hosting
+	 * the receiving node, the message is addressed to that peer.
+	 */
+	private AbstractSkipgraphMessage buildAddressedMessage() {
+		ApplicationContact peer = directAddressing 
+				? getComponent().getPeerAddressCache().get(receiverNodeID) : null;
+		if (peer != null) {
+			AbstractSkipgraphMessage message = buildMessage(peer);
+			if (message instanceof AbstractSkipgraphNodeRequestMessage) {
+				((AbstractSkipgraphNodeRequestMessage)message).setReceivingNodeID(receiverNodeID);
+				sentDirectly = true;
+				return message;
+			}
+		}
+		sentDirectly = false;
+		return buildMessage(getReceiver());
+	}
+	
+	
+	/**
+	 * With direct addressing the answers of the receiving node tell us which peer is hosting it. 
+	 * If the peer we have addressed directly doesn't host the node (anymore) the message is 
+	 * resent by the DHT.
+	 * 
+	 * @param answerMsg	an answer to the message of this operation
+	 * @return	true if the message has been resent, i.e. the answer is to be ignored
+	 */
+	protected boolean redirected(Message answerMsg) {
+		if (!directAddressing || !(answerMsg instanceof AbstractSkipgraphMessage)) {
+			return false;
+		}
+		if (answerMsg instanceof DefaultNACKMessage) {
+			getComponent().getPeerAddressCache().remove(receiverNodeID);
+			if (sentDirectly && getNumberOfStartedLookups() < getMaxNumberOfLookups()) {
+				log("DefaultNACK received -> the peer doesn't host the receiving node. resending by the DHT.");
+				sendMessage(buildAddressedMessage());
+				return true;
+			}
+			return false;
+		}
+		if (answerMsg instanceof AbstractSkipgraphNodeResponseMessage
+				&& ((AbstractSkipgraphNodeResponseMessage)answerMsg).isSenderDisabled()) {
+			// the node is about to leave
+			getComponent().getPeerAddressCache().remove(receiverNodeID);
+			return false;
+		}
+		getComponent().getPeerAddressCache().put(receiverNodeID, ((AbstractSkipgraphMessage)answerMsg).getSender());
+		return false;
+	}
+	
+	
+
 	/* ************************************************
 	 ****************** LOGGING ***********************
 	 ************************************************ */
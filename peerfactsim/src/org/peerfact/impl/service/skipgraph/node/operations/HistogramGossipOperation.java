@@ -0,0 +1,122 @@
+package org.peerfact.impl.service.skipgraph.node.operations;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import org.peerfact.api.common.Message;
+import org.peerfact.api.common.OperationCallback;
+import org.peerfact.api.transport.TransInfo;
+import org.peerfact.impl.service.skipgraph.SkipgraphServiceConstants;
+import org.peerfact.impl.service.skipgraph.messages.AbstractSkipgraphMessage;
+import org.peerfact.impl.service.skipgraph.messages.DefaultNACKMessage;
+import org.peerfact.impl.service.skipgraph.node.NodeHistogram;
+import org.peerfact.impl.service.skipgraph.node.SkipgraphNodeController;
+import org.peerfact.impl.service.skipgraph.node.messages.HistogramGossipACKMessage;
+import org.peerfact.impl.service.skipgraph.node.messages.HistogramGossipMessage;
+import org.peerfact.impl.service.skipgraph.node.messages.HistogramGossipNACKMessage;
+import org.peerfact.impl.simengine.Simulator;
+import org.peerfact.impl.util.communicationmanager.ApplicationContact;
+
+/**
+ * One push-pull gossip round with a single contact: sends the most recent node histograms
+ * of the catalog of this service and adds the histograms of the reply to the catalog.
+ *
+ * @author Andreas Funke
+ * @version 1.0, 03/22/2017
+ */
+public class HistogramGossipOperation extends AbstractSkipgraphNodeOperation<List<NodeHistogram>> {
+	
+	/* *******************************************
+	 ****************** FIELDS *******************
+	 ******************************************* */
+
+	private List<NodeHistogram> result;
+	
+
+	 
+	/* *************************************************
+	 ****************** CONSTRUCTORS *******************
+	 ************************************************* */
+
+	public HistogramGossipOperation(
+			SkipgraphNodeController nodeController,
+			OperationCallback<List<NodeHistogram>> callback,
+			BigInteger receiverID) 
+	{
+		super(nodeController, callback, receiverID);
+		setTimeout(10*Simulator.SECOND_UNIT);
+		// gossip is not worth a retry, the next round follows anyway
+		setMaxNumberOfLookups(1);
+	}
+
+
+	
+	/* ************************************************
+	 ****************** GETTERS ***********************
+	 ************************************************ */
+
+	@Override
+	public List<NodeHistogram> getResult() {
+		return result;
+	}
+	
+
+
+	/* ************************************************
+	 ***************** Helper METHODS *****************
+	 ************************************************ */
+	
+	@Override
+	protected HistogramGossipMessage buildMessage(ApplicationContact receiver) {
+		return new HistogramGossipMessage(
+				getComponent().getLocalContact(),
+				receiver, 
+				getOperationID(),
+				getNodeController().getNodeID(),
+				getComponent().getHistogramCatalog().getRecent(SkipgraphServiceConstants.HISTOGRAM_GOSSIP_ENTRIES));
+	}
+
+
+	@Override
+	protected void sendMessage(AbstractSkipgraphMessage message) {
+		getNodeController().incrementOutgoingMessages();
+		
+		getComponent().getCommunicationManager().send(
+				message,
+
+				new DefaultSkipGTransMessageCallback() {
+
+					@Override
+					public void receive(Message answerMsg, TransInfo senderInfo, int commId) {
+						getNodeController().incrementIncomingMessages();
+						
+						// successful
+						if (answerMsg instanceof HistogramGossipACKMessage) {
+							HistogramGossipACKMessage hgMsg = (HistogramGossipACKMessage)answerMsg;
+							logFull("ACK received -> "+hgMsg);
+							result = hgMsg.getHistograms();
+							getComponent().getHistogramCatalog().putAll(result);
+							finishOperation(true);
+							return;
+						} 
+
+						// unsuccessful - no retry
+						if (answerMsg instanceof HistogramGossipNACKMessage) {
+							log("NACK received -> failed! receiving node disabled.");
+						} 
+						else if (answerMsg instanceof DefaultNACKMessage) {
+							log("DefaultNACK received -> skip graph node unavailable");
+						} 
+						else {
+							log("an error occurred! We received a message we are not expecting:\n"+answerMsg);
+						}
+						finishOperation(false);
+					}
+				},
+				
+				new DefaultSGCommunicationCallback()
+			);
+		this.incrementLookupCounter();
+	}
+	
+}
@@ -0,0 +1,93 @@
+package org.peerfact.impl.service.skipgraph.node.operations;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.peerfact.impl.service.skipgraph.SkipgraphServiceConstants;
+import org.peerfact.impl.service.skipgraph.node.NodeHistogram;
+import org.peerfact.impl.service.skipgraph.node.SkipgraphNodeController;
+import org.peerfact.impl.simengine.Simulator;
+
+/**
+ * Publishes the histogram of the node to the catalog of its service and starts a gossip
+ * round with a random contact of the contact table. The contacts on the higher levels
+ * are far away in the key space, so the histograms spread over the whole skip graph
+ * in a logarithmic number of rounds.
+ *
+ * @author Andreas Funke
+ * @version 1.0, 03/22/2017
+ */
+public class HistogramGossipPeriodicOperation extends AbstractSkipgraphNodePeriodicOperation<Object> {
+	
+	/* *************************************************
+	 ****************** CONSTRUCTORS *******************
+	 ************************************************* */
+
+	public HistogramGossipPeriodicOperation(SkipgraphNodeController nodeController) {
+		super(nodeController);
+		log("construct new "+this);
+	}
+
+
+	
+	/* ************************************************
+	 ****************** GETTERS ***********************
+	 ************************************************ */
+
+	@Override
+	public Object getResult() {
+		// not used
+		return null;
+	}
+	
+	public boolean isStopped() {
+		return stopped;
+	}
+	
+
+
+	/* ************************************************
+	 ***************** Helper METHODS *****************
+	 ************************************************ */
+	
+	@Override
+	protected void executeOnce() {
+		if (!getComponent().getLocalNode().isPresent() || getNodeController().isDisabled()) {
+			stop();
+			log("-> stopping");
+			return;
+		}
+		if (isStopped() || isFinished())
+			return;
+
+		getComponent().getHistogramCatalog().put(new NodeHistogram(
+				getNodeController().getNodeID(), 
+				getNodeController().getElementTable(), 
+				Simulator.getCurrentTime()));
+		
+		List<BigInteger> contacts = new ArrayList<>(getNodeController().getContactTable().getContactSet());
+		contacts.remove(getNodeController().getNodeID());
+		if (contacts.isEmpty()) {
+			log("no contacts to gossip with");
+			return;
+		}
+		BigInteger receiverID = contacts.get(Simulator.getRandom().nextInt(contacts.size()));
+		getNodeController().getOperationCaller().callHistogramGossipOperation(receiverID);
+	}
+
+
+	@Override
+	protected long getInterval() {
+		return SkipgraphServiceConstants.HISTOGRAM_GOSSIP_INTERVAL 
+				+ ((Simulator.getRandom().nextInt(20)-10)*Simulator.SECOND_UNIT);
+	}
+	
+	
+	@Override
+	public void stop() {
+		super.stop();
+		operationFinished(true);
+	}
+
+}
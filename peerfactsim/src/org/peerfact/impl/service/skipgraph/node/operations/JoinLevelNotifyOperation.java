@@ -4,6 +4,7 @@ import java.math.BigInteger;
 
 import org.peerfact.impl.service.skipgraph.SkipgraphServiceConstants;
 import org.peerfact.impl.service.skipgraph.messages.AbstractSkipgraphMessage;
+import org.peerfact.impl.service.skipgraph.node.SkipgraphContact;
 import org.peerfact.impl.service.skipgraph.node.SkipgraphNodeController;
 import org.peerfact.impl.service.skipgraph.node.messages.JoinLevelNotifyMessage;
 import org.peerfact.impl.service.skipgraph.util.SGUtil;
@@ -23,6 +24,10 @@ public class JoinLevelNotifyOperation extends AbstractSkipgraphNodeOperation<Boo
 	
 	private final BigInteger forwardedToNodeID;
 	
+	private final SkipgraphContact forwarderContact;
+	
+	private final int forwarderPrefix;
+	
 	private final boolean result = true;
 	
 	
@@ -36,12 +41,16 @@ public class JoinLevelNotifyOperation extends AbstractSkipgraphNodeOperation<Boo
 			BigInteger receiverNodeID,
 			ApplicationContact requesterPeer,
 			int requestOperationID,
-			BigInteger forwardedToNodeID) 
+			BigInteger forwardedToNodeID,
+			SkipgraphContact forwarderContact,
+			int forwarderPrefix) 
 	{
 		super(node, null, receiverNodeID);
 		setReceiver(requesterPeer);
 		this.requestOperationID = requestOperationID;
 		this.forwardedToNodeID = forwardedToNodeID;
+		this.forwarderContact = forwarderContact;
+		this.forwarderPrefix = forwarderPrefix;
 		
 		setLogging(SkipgraphServiceConstants.logJoin);
 	}
@@ -86,7 +95,9 @@ public class JoinLevelNotifyOperation extends AbstractSkipgraphNodeOperation<Boo
 				receiver,
 				requestOperationID,
 				getReceiverNodeID(),
-				forwardedToNodeID);
+				forwardedToNodeID,
+				forwarderContact,
+				forwarderPrefix);
 	}
 
 
@@ -1,6 +1,9 @@
 package org.peerfact.impl.service.skipgraph.node.operations;
 
 import java.math.BigInteger;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.peerfact.api.common.Message;
 import org.peerfact.api.common.OperationCallback;
@@ -63,6 +66,11 @@ public class JoinLevelRequestOperation
 	
 	private SkipgraphContact[] result = new SkipgraphContact[2];
 	
+	/** per prefix other than our own: the first node of that sibling list the request was 
+	 * forwarded by, i.e. our nearest neighbour in that list. see {@link #handleNotification}
+	 */
+	private final Map<Integer, SkipgraphContact> neighbours = new LinkedHashMap<>();
+	
 	
 	 
 	/* *************************************************
@@ -113,6 +121,15 @@ public class JoinLevelRequestOperation
 		result[1] = formerContact;
 		return result;
 	}
+	
+	
+	/**
+	 * @return	the neighbours on the requested level in the sibling lists of the other prefixes, 
+	 * 			by prefix. empty for binary prefixes.
+	 */
+	public Map<Integer, SkipgraphContact> getNeighbours() {
+		return Collections.unmodifiableMap(neighbours);
+	}
 
 	
 
@@ -252,6 +269,12 @@ public class JoinLevelRequestOperation
 		
 	private boolean handleNotification(JoinLevelNotifyMessage messsage) {
 		log("received a forwarding notification. Still waiting for final reply.");
+		// the request passes the nodes of the parent level in order, so the first forwarder 
+		// of each prefix is the nearest node of that sibling list
+		SkipgraphContact forwarder = messsage.getForwarderContact();
+		if (forwarder != null && messsage.getForwarderPrefix() != prefix) {
+			neighbours.putIfAbsent(messsage.getForwarderPrefix(), forwarder);
+		}
 		return true;
 	}
 	
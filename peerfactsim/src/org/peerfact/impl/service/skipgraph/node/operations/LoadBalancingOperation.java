@@ -1,6 +1,5 @@
 package org.peerfact.impl.service.skipgraph.node.operations;
 
-import java.math.BigDecimal;
 import java.math.BigInteger;
 
 import org.peerfact.api.common.Operation;
@@ -117,7 +116,7 @@ public class LoadBalancingOperation extends AbstractSkipgraphNodeOperation<Boole
 		log("executing" + (preparingLeave ? " (preparing leave)" : ""));
 		
 		// don't call prev when responsible for rangeStart==0
-		if (getNodeController().getElementTable().getRangeStart().equals(BigDecimal.ZERO)) {
+		if (getNodeController().getElementTable().getRangeStart() == 0) {
 			prevFinished = true;
 		}
 		else {
@@ -147,8 +146,8 @@ public class LoadBalancingOperation extends AbstractSkipgraphNodeOperation<Boole
 					getOperationID());
 			remainingSizeOp.scheduleImmediately();
 		}
-		// don't call next when responsible for rangeEnd==null (inf)
-		if (getNodeController().getElementTable().getRangeEnd() == null) {
+		// don't call next when responsible for rangeEnd==POSITIVE_INFINITY (inf)
+		if (getNodeController().getElementTable().getRangeEnd() == SkipgraphServiceConstants.POSITIVE_INFINITY) {
 			nextFinished = true;
 		}
 		else {
@@ -22,22 +22,25 @@
 
 package org.peerfact.impl.service.skipgraph.node.operations;
 
-import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NavigableMap;
 import java.util.Set;
-import java.util.TreeMap;
 
 import org.peerfact.api.common.Operation;
 import org.peerfact.api.common.OperationCallback;
+import org.peerfact.impl.service.skipgraph.SearchAggregate;
 import org.peerfact.impl.service.skipgraph.SearchQuery;
+import org.peerfact.impl.service.skipgraph.SearchQuery.Order;
 import org.peerfact.impl.service.skipgraph.SkipgraphServiceConstants;
 import org.peerfact.impl.service.skipgraph.node.ContactLevel;
+import org.peerfact.impl.service.skipgraph.node.NodeHistogram;
 import org.peerfact.impl.service.skipgraph.node.Replacement;
 import org.peerfact.impl.service.skipgraph.node.SkipgraphContact;
 import org.peerfact.impl.service.skipgraph.node.SkipgraphElement;
@@ -48,6 +51,7 @@ import org.peerfact.impl.service.skipgraph.operations.Addressable;
 import org.peerfact.impl.service.skipgraph.operations.DelayBuildOperation;
 import org.peerfact.impl.service.skipgraph.operations.SearchResultParallelOperation;
 import org.peerfact.impl.service.skipgraph.operations.SearchResultSerialOperation;
+import org.peerfact.impl.service.skipgraph.util.ContactFilter;
 import org.peerfact.impl.service.skipgraph.util.SGUtil;
 import org.peerfact.impl.service.skipgraph.util.SGUtil.Route;
 import org.peerfact.impl.simengine.Simulator;
@@ -99,6 +103,8 @@ public class OperationCaller {
 	
 	private PurgeElementTablePeriodicOperation purgeOp;
 	
+	private HistogramGossipPeriodicOperation histogramGossipOp;
+	
 	
 	// logging
 	private boolean logJoin = SkipgraphServiceConstants.logJoin;
@@ -131,6 +137,10 @@ public class OperationCaller {
 			this.purgeOp = new PurgeElementTablePeriodicOperation(nodeController);
 			purgeOp.scheduleWithDelay(4);
 		}
+		if (SkipgraphServiceConstants.histogramGossip) {
+			this.histogramGossipOp = new HistogramGossipPeriodicOperation(nodeController);
+			histogramGossipOp.scheduleWithDelay(1*Simulator.SECOND_UNIT+5);
+		}
 	}
 
 
@@ -147,6 +157,10 @@ public class OperationCaller {
 			purgeOp.stop();
 			purgeOp = null;
 		}
+		if (histogramGossipOp != null) {
+			histogramGossipOp.stop();
+			histogramGossipOp = null;
+		}
 		if (loadbalancingResponseOp != null) {
 			loadbalancingResponseOp = null;
 		}
@@ -430,6 +444,8 @@ public class OperationCaller {
 							if (!forwarding) {
 								SkipgraphContact[] result = op.getResult();
 								nodeController.setNextOnLevel(result[0], levelIndex);
+								nodeController.setNeighboursOnLevel(levelIndex, 
+										((JoinLevelRequestOperation)op).getNeighbours());
 								//node.print();
 								addressableOperations.remove(op.getOperationID());
 								callHandshakeOperation(result[1].getNodeID(), levelIndex, prefix,
@@ -459,19 +475,26 @@ public class OperationCaller {
 	 * @param requestOperationID
 	 * @param requesterID
 	 * @param forwardedToID
+	 * @param forwarderContact	the local contact, reported as a neighbour of the requester 
+	 * 							on the requested level. null to leave it out
+	 * @param forwarderPrefix	the local prefix on the requested level
 	 */
 	public void callJoinLevelNotifyOperation(
 			int requestOperationID, 
 			ApplicationContact requesterPeer,
 			BigInteger requesterNodeID,
-			BigInteger forwardedToID) 
+			BigInteger forwardedToID,
+			SkipgraphContact forwarderContact,
+			int forwarderPrefix) 
 	{
 		JoinLevelNotifyOperation calledOperation = new JoinLevelNotifyOperation(
 				nodeController,
 				requesterNodeID,
 				requesterPeer,
 				requestOperationID,
-				forwardedToID);
+				forwardedToID,
+				forwarderContact,
+				forwarderPrefix);
 		calledOperation.scheduleImmediately();
 	}
 
@@ -614,6 +637,16 @@ public class OperationCaller {
 	
 	
 	
+	/**
+	 * @return	the limit of values a query of a parallel search has. 0 (no limit) 
+	 * 			unless kSearchLimit is enabled.
+	 */
+	private static int getParallelLimit(SearchQuery query) {
+		return SkipgraphServiceConstants.kSearchLimit ? query.getMaxNumberOfValues() : 0;
+	}
+	
+	
+	
 	/** 
 	 * the parallel search implementation follows the following approach:
 	 * split the query and distributes it to several SkipgraphNodes at the same time.
@@ -626,7 +659,8 @@ public class OperationCaller {
 			TrackerCallback tracker,
 			BigInteger forwardedFrom) 
 	{
-		Map<String, Set<ApplicationContact>> localResults = new LinkedHashMap<>();
+		Map<Integer, Set<ApplicationContact>> localResults = new LinkedHashMap<>();
+		Map<Integer, SearchAggregate> localAggregates = new LinkedHashMap<>();
 		Set<BigInteger> messageHopTrackerSet = new LinkedHashSet<>();
 		
 		if (nodeController.isDisabled()) {
@@ -642,30 +676,25 @@ public class OperationCaller {
 					requester,
 					requestOperationID,
 					localResults,
+					localAggregates,
 					messageHopTrackerSet,
 					tracker);
 			return;
 		}
 		
-		TreeMap<BigDecimal, SkipgraphContact> contactRangeMap = nodeController.getContactTable().getContactRangeMap();
-		
-		// adding this node to the TreeMap - just in case. The node should actually be linked to itself
-		// on the top level. If so, there is no need to add the node to the TreeMap again, but we want to
-		// be sure it's in the map.
-		contactRangeMap.put(nodeController.getElementTable().getRangeStart(), nodeController.getContact());
+		// the routing map contains this node - just in case. The node should actually be linked to itself
+		// on the top level. If so, there is no need to add the node to the map again, but we want to
+		// be sure it's in the map. The lowest (first) entry in the map is responsible for everything 
+		// below its range. The map is cached by the contact table.
+		NavigableMap<Long, SkipgraphContact> contactRangeMap 
+				= nodeController.getContactTable().getRoutingMap(nodeController.getContact());
 
 		// parallel approach
 		// splitting the query by the ranges of our known contacts and sending these partitions accordingly
 		
-		// make sure the lowest (first) entry in the tree-map is responsible for 0
-		if (contactRangeMap.firstKey().compareTo(BigDecimal.ZERO) > 0) {
-			SkipgraphContact firstContact = contactRangeMap.firstEntry().getValue();
-			contactRangeMap.remove(contactRangeMap.firstKey());
-			contactRangeMap.put(BigDecimal.ZERO, firstContact);
-		}
-		
 		List<SearchQuery> remainingQueries = new LinkedList<>(queries);
 		List<SearchQuery> queriesWeAreResponsibleFor = new LinkedList<>();
+		Map<BigInteger, List<SearchQuery>> queriesToForward = new LinkedHashMap<>();
 		if (forwardedFrom != null) {
 			messageHopTrackerSet.add(forwardedFrom);
 		}
@@ -673,35 +702,34 @@ public class OperationCaller {
 //		log("contactRangeMap="+contactRangeMap);
 //		log("queries="+queries);
 
-		for (Entry<BigDecimal, SkipgraphContact> entry : contactRangeMap.descendingMap().entrySet()) {
+		for (Entry<Long, SkipgraphContact> entry : contactRangeMap.descendingMap().entrySet()) {
 			BigInteger contactID = entry.getValue().getNodeID();
-			BigDecimal contactStart = entry.getKey();
+			long contactStart = entry.getKey();
 			List<SearchQuery> queriesContactIsResponsibleFor = new LinkedList<>();
 			List<SearchQuery> queriesContactIsNotResponsibleFor = new LinkedList<>();
 
 			// each query stands for one dimension
 			for (SearchQuery query : remainingQueries) {
-				String dimension = query.getDimension();
-				BigDecimal queryStart = query.getRangeStart();
-				BigDecimal queryEnd = query.getRangeEnd();
+				int dimension = query.getDimensionId();
+				long queryStart = query.getRangeStart();
+				long queryEnd = query.getRangeEnd();
 
 				// is the contact responsible for the end of the query?
-				if (queryEnd == null || contactStart == null || contactStart.compareTo(queryEnd) < 0
-						|| (!query.hasOpenRangeEnd() && contactStart.compareTo(queryEnd) == 0)) {
+				if (contactStart < queryEnd || (!query.hasOpenRangeEnd() && contactStart == queryEnd)) {
 					// yes -> process the query
 					// is the contact resonsible for the entire query or only for a part of it?
-					if (contactStart == null || contactStart.compareTo(queryStart) <= 0) {
+					if (contactStart <= queryStart) {
 						// responsible for the entire query -> add it to the currentQueries 
 						queriesContactIsResponsibleFor.add(query);
 					}
 					else {
 						// responsible only for the end of the query -> split the query
 						// end of the query -> send to this contact
-						queriesContactIsResponsibleFor.add(
-								new SearchQuery(dimension, contactStart, queryEnd, 0, query.hasOpenRangeEnd()));
+						queriesContactIsResponsibleFor.add(query.subQuery(contactStart, queryEnd, 
+								getParallelLimit(query), query.hasOpenRangeEnd()));
 						// start of the query -> needs further processing
-						queriesContactIsNotResponsibleFor.add(
-								new SearchQuery(dimension, queryStart, contactStart, 0, true));
+						queriesContactIsNotResponsibleFor.add(query.subQuery(queryStart, contactStart, 
+								getParallelLimit(query), true));
 					}
 				}
 				else {
@@ -711,6 +739,23 @@ public class OperationCaller {
 				}
 			}
 
+			// don't forward queries the contact's zone map rules out. only queries within the
+			// contact's own range qualify, otherwise the contact would have to forward them.
+			if (SkipgraphServiceConstants.zoneMaps && !contactID.equals(nodeController.getNodeID())) {
+				SkipgraphContact contact = entry.getValue();
+				Iterator<SearchQuery> it = queriesContactIsResponsibleFor.iterator();
+				while (it.hasNext()) {
+					SearchQuery query = it.next();
+					boolean withinRange = contact.getRangeStart() <= query.getRangeStart() 
+							&& (query.getRangeEnd() < contact.getRangeEnd() 
+									|| (query.hasOpenRangeEnd() && query.getRangeEnd() == contact.getRangeEnd()));
+					if (withinRange && contact.isEmptyFor(query.getDimensionId(), 
+							query.getRangeStart(), query.getRangeEnd(), query.hasOpenRangeEnd())) {
+						it.remove();
+					}
+				}
+			}
+
 			// send current queries to the contact or save the queries for local processing and inform requester
 			// check if we are responsible for this part of the query
 			if (contactID.equals(nodeController.getNodeID())) {
@@ -718,15 +763,8 @@ public class OperationCaller {
 				queriesWeAreResponsibleFor = queriesContactIsResponsibleFor;
 			}
 			else if (!queriesContactIsResponsibleFor.isEmpty()) {
-				// no, it's a foreign contact -> forward the message to it and add it to the messageHopTrackerSet
-//				log("send to contact="+SGUtil.formatID(contactID)+" queries="+queriesContactIsResponsibleFor);
-				callSearchParallelForwardingOperation(
-						contactID,
-						requester,
-						requestOperationID,
-						queriesContactIsResponsibleFor,
-						tracker);
-				messageHopTrackerSet.add(contactID);
+				// no, it's a foreign contact -> forward the queries after the local processing
+				queriesToForward.put(contactID, queriesContactIsResponsibleFor);
 			}
 
 			// update the remaining queries
@@ -743,14 +781,78 @@ public class OperationCaller {
 //		log("messageHopTrackerSet="+messageHopTrackerSet);
 //		log("forwardedFrom="+SGUtil.formatID(forwardedFrom));
 		for (SearchQuery query : queriesWeAreResponsibleFor) {
+			if (query.getAggregate() != null) {
+				// aggregate search: summarize the values instead of collecting the contacts
+				SearchAggregate aggregate = localAggregates.get(query.getDimensionId());
+				if (aggregate == null) {
+					aggregate = query.getAggregate().empty();
+					localAggregates.put(query.getDimensionId(), aggregate);
+				}
+				nodeController.getElementTable().aggregate(
+						query.getDimensionId(),
+						query.getRangeStart(),
+						query.getRangeEnd(),
+						query.hasOpenRangeEnd(),
+						aggregate);
+				continue;
+			}
+			ContactFilter candidates = query.getCandidates();
 			Set<ApplicationContact> resultsPerDimension 
 					= nodeController.getElementTable().getContacts(
-							query.getDimension(),
+							query.getDimensionId(),
 							query.getRangeStart(),
 							query.getRangeEnd(),
-							0,
-							query.hasOpenRangeEnd());
-			localResults.put(query.getDimension(), resultsPerDimension);
+							candidates == null ? getParallelLimit(query) : 0,
+							query.hasOpenRangeEnd(),
+							query.getBox());
+			if (candidates != null) {
+				// semi-join search: only return contacts which may qualify for the other dimensions
+				resultsPerDimension.removeIf(contact -> !candidates.mightContain(contact));
+				int limit = getParallelLimit(query);
+				if (limit > 0 && resultsPerDimension.size() > limit) {
+					resultsPerDimension = new LinkedHashSet<>(new LinkedList<>(resultsPerDimension)
+							.subList(0, limit));
+				}
+			}
+			// a node can be responsible for several ranges of the same dimension
+			if (localResults.containsKey(query.getResultKey())) {
+				localResults.get(query.getResultKey()).addAll(resultsPerDimension);
+			}
+			else {
+				localResults.put(query.getResultKey(), resultsPerDimension);
+			}
+		}
+
+		// forward the remaining queries to the contacts and add them to the messageHopTrackerSet.
+		// a limited query only needs the values we couldn't deliver locally. We can't tell how
+		// the remaining values are distributed among the contacts, so each of them gets the
+		// entire remaining limit.
+		for (Entry<BigInteger, List<SearchQuery>> entry : queriesToForward.entrySet()) {
+			List<SearchQuery> limitedQueries = new LinkedList<>();
+			for (SearchQuery query : entry.getValue()) {
+				int maxNumberOfValues = getParallelLimit(query);
+				if (maxNumberOfValues > 0 && localResults.containsKey(query.getResultKey())) {
+					maxNumberOfValues -= localResults.get(query.getResultKey()).size();
+					if (maxNumberOfValues <= 0) {
+						// we have already enough results for this dimension
+						continue;
+					}
+					query = query.subQuery(query.getRangeStart(), query.getRangeEnd(), 
+							maxNumberOfValues, query.hasOpenRangeEnd());
+				}
+				limitedQueries.add(query);
+			}
+			if (limitedQueries.isEmpty()) {
+				continue;
+			}
+//			log("send to contact="+SGUtil.formatID(entry.getKey())+" queries="+limitedQueries);
+			callSearchParallelForwardingOperation(
+					entry.getKey(),
+					requester,
+					requestOperationID,
+					limitedQueries,
+					tracker);
+			messageHopTrackerSet.add(entry.getKey());
 		}
 //		if (nodeController.getNode().getGlobalCountID() == 5
 //				|| nodeController.getNode().getGlobalCountID() == 3
@@ -764,6 +866,7 @@ public class OperationCaller {
 				requester,
 				requestOperationID,
 				localResults,
+				localAggregates,
 				messageHopTrackerSet,
 				tracker);
 	}
@@ -784,12 +887,15 @@ public class OperationCaller {
 
 					@Override
 					public void calledOperationFailed(
-							Operation<Boolean> op) {//
+							Operation<Boolean> op) {
+						// don't route over a node that doesn't answer
+						nodeController.removeShortcut(receiverNodeID);
 					}
 
 					@Override
 					public void calledOperationSucceeded(
-							Operation<Boolean> op) {//
+							Operation<Boolean> op) {
+						nodeController.shortcutUsed(receiverNodeID);
 					}
 				},
 				receiverNodeID,
@@ -806,7 +912,8 @@ public class OperationCaller {
 	public void callSearchParallelResultOperation(
 			ApplicationContact requester,
 			int requestOperationID,
-			Map<String, Set<ApplicationContact>> results,
+			Map<Integer, Set<ApplicationContact>> results,
+			Map<Integer, SearchAggregate> aggregates,
 			Set<BigInteger> forwardedTo,
 			TrackerCallback tracker)
 	{
@@ -823,6 +930,7 @@ public class OperationCaller {
 				requester,
 				requestOperationID,
 				results,
+				aggregates,
 				forwardedTo,
 				nodeController.getNodeID(),
 				tracker);
@@ -844,24 +952,17 @@ public class OperationCaller {
 			int messageCounter,
 			TrackerCallback tracker) 
 	{
-		TreeMap<BigDecimal, SkipgraphContact> contactRangeMap = nodeController.getContactTable().getContactRangeMap();
-
-		// adding this node to the TreeMap - just in case. The node should actually be linked to itself
-		// on the top level. If so, there is no need to add the node to the TreeMap again, but we want to
+		// the routing map contains this node - just in case. The node should actually be linked to itself
+		// on the top level. If so, there is no need to add the node to the map again, but we want to
 		// be sure it's in the map.
-		if (!nodeController.isDisabled()) {
-			contactRangeMap.put(nodeController.getElementTable().getRangeStart(), nodeController.getContact());
-		}
+		NavigableMap<Long, SkipgraphContact> contactRangeMap = nodeController.getContactTable()
+				.getRoutingMap(nodeController.isDisabled() ? null : nodeController.getContact());
 
 		// serial approach
 		// getting the node that is responsible for a specific rangeStart and calling a operation for each query
 		for (SearchQuery query : queries) {
-			Entry<BigDecimal, SkipgraphContact> entry = contactRangeMap.floorEntry(query.getRangeStart());
-			if (entry == null) {
-				entry = contactRangeMap.firstEntry();
-			}
 			callSearchSerialForwardingOperation(
-					entry.getValue().getNodeID(),
+					getSerialSearchContact(contactRangeMap, query).getNodeID(),
 					requester,
 					requestOperationID,
 					query,
@@ -887,16 +988,10 @@ public class OperationCaller {
 					+". query="+query
 					+". messageCounter="+messageCounter);
 		}
-		TreeMap<BigDecimal, SkipgraphContact> contactRangeMap = nodeController.getContactTable().getContactRangeMap();
-		if (!nodeController.isDisabled()) {
-			contactRangeMap.put(nodeController.getElementTable().getRangeStart(), nodeController.getContact());
-		}
-		Entry<BigDecimal, SkipgraphContact> entry = contactRangeMap.floorEntry(query.getRangeStart());
-		if (entry == null) {
-			entry = contactRangeMap.firstEntry();
-		}
+		NavigableMap<Long, SkipgraphContact> contactRangeMap = nodeController.getContactTable()
+				.getRoutingMap(nodeController.isDisabled() ? null : nodeController.getContact());
 		callSearchSerialForwardingOperation(
-				entry.getValue().getNodeID(),
+				getSerialSearchContact(contactRangeMap, query).getNodeID(),
 				requester,
 				requestOperationID,
 				query,
@@ -906,6 +1001,25 @@ public class OperationCaller {
 	
 	
 	
+	/**
+	 * @return	the known contact closest to the node a serial search starts at. A descending
+	 * 			search starts at the node responsible for the range end, any other search at
+	 * 			the node responsible for the range start.
+	 */
+	private static SkipgraphContact getSerialSearchContact(
+			NavigableMap<Long, SkipgraphContact> contactRangeMap, 
+			SearchQuery query) 
+	{
+		long value = query.getOrder() == Order.DESCENDING ? query.getLastValue() : query.getRangeStart();
+		Entry<Long, SkipgraphContact> entry = contactRangeMap.floorEntry(value);
+		if (entry == null) {
+			entry = contactRangeMap.firstEntry();
+		}
+		return entry.getValue();
+	}
+	
+	
+	
 	@SuppressWarnings("rawtypes")
 	public void callSearchSerialForwardingOperation(
 			BigInteger receiverNodeID,
@@ -921,12 +1035,15 @@ public class OperationCaller {
 
 					@Override
 					public void calledOperationFailed(
-							Operation<Boolean> op) {//
+							Operation<Boolean> op) {
+						// don't route over a node that doesn't answer
+						nodeController.removeShortcut(receiverNodeID);
 					}
 
 					@Override
 					public void calledOperationSucceeded(
-							Operation<Boolean> op) {//
+							Operation<Boolean> op) {
+						nodeController.shortcutUsed(receiverNodeID);
 					}
 				},
 				receiverNodeID,
@@ -943,7 +1060,7 @@ public class OperationCaller {
 	public void callSearchSerialResultOperation(
 			ApplicationContact requester,
 			int requestOperationID,
-			String dimension,
+			int dimension,
 			Set<ApplicationContact> results,
 			int messageCounter,
 			boolean last,
@@ -1093,6 +1210,32 @@ public class OperationCaller {
 
 
 
+	public void callHistogramGossipOperation(BigInteger receiverID) {
+		HistogramGossipOperation calledOperation = new HistogramGossipOperation(
+				nodeController,
+				new OperationCallback<List<NodeHistogram>>() {
+
+					@Override
+					public void calledOperationFailed(
+							Operation<List<NodeHistogram>> op) {
+						if (logMaintenance || nodeController.enforcesLogging())
+							log("histogram gossip with "+SGUtil.formatID(receiverID)+" failed");
+					}
+
+					@Override
+					public void calledOperationSucceeded(
+							Operation<List<NodeHistogram>> op) {
+						if (logMaintenance || nodeController.enforcesLogging())
+							log("histogram gossip with "+SGUtil.formatID(receiverID)+" succeeded. received "
+									+op.getResult().size()+" histograms");
+					}
+				},
+				receiverID);
+		calledOperation.scheduleImmediately();
+	}
+
+
+
 	public boolean callAwaitElementTableExtensionOperation(
 			BigInteger requesterNodeID,
 			int requestOperationID)
@@ -22,7 +22,6 @@
 
 package org.peerfact.impl.service.skipgraph.node.operations;
 
-import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -32,10 +31,12 @@ import java.util.Map;
 import java.util.Set;
 
 import org.peerfact.impl.service.skipgraph.SearchQuery;
+import org.peerfact.impl.service.skipgraph.SearchQuery.Order;
 import org.peerfact.impl.service.skipgraph.SkipgraphService;
 import org.peerfact.impl.service.skipgraph.SkipgraphServiceConstants;
 import org.peerfact.impl.service.skipgraph.messages.AbstractSkipgraphMessage;
 import org.peerfact.impl.service.skipgraph.node.ContactLevel;
+import org.peerfact.impl.service.skipgraph.node.NodeHistogram;
 import org.peerfact.impl.service.skipgraph.node.Replacement;
 import org.peerfact.impl.service.skipgraph.node.SkipgraphContact;
 import org.peerfact.impl.service.skipgraph.node.SkipgraphNodeController;
@@ -58,6 +59,9 @@ import org.peerfact.impl.service.skipgraph.node.messages.UpdateForwardingNACKMes
 import org.peerfact.impl.service.skipgraph.node.messages.RangeAdjustmentACKMessage;
 import org.peerfact.impl.service.skipgraph.node.messages.RangeAdjustmentMessage;
 import org.peerfact.impl.service.skipgraph.node.messages.RangeAdjustmentNACKMessage;
+import org.peerfact.impl.service.skipgraph.node.messages.HistogramGossipACKMessage;
+import org.peerfact.impl.service.skipgraph.node.messages.HistogramGossipMessage;
+import org.peerfact.impl.service.skipgraph.node.messages.HistogramGossipNACKMessage;
 import org.peerfact.impl.service.skipgraph.node.messages.RemainingSizeACKMessage;
 import org.peerfact.impl.service.skipgraph.node.messages.RemainingSizeMessage;
 import org.peerfact.impl.service.skipgraph.node.messages.RemainingSizeNACKMessage;
@@ -67,8 +71,10 @@ import org.peerfact.impl.service.skipgraph.node.messages.SearchForwardingACKMess
 import org.peerfact.impl.service.skipgraph.node.messages.SearchForwardingSerialMessage;
 import org.peerfact.impl.service.skipgraph.node.messages.SearchForwardingNACKMessage;
 import org.peerfact.impl.service.skipgraph.node.messages.SearchForwardingParallelMessage;
+import org.peerfact.impl.service.skipgraph.util.HistogramCatalog;
 import org.peerfact.impl.service.skipgraph.util.SGUtil;
 import org.peerfact.impl.service.skipgraph.util.SGUtil.Route;
+import org.peerfact.impl.service.skipgraph.util.ZOrderBox;
 import org.peerfact.impl.util.communicationmanager.ApplicationContact;
 
 /**
@@ -212,6 +218,10 @@ public class OperationResponder {
 					message.getOperationID());
 		}
 		
+		if (query.getOrder() == Order.DESCENDING) {
+			return executeDescendingSearchSerialForwarding(message, query);
+		}
+		
 		// here we only test if the start of a query is inside our range.
 		// - for the serial search approach this should be sufficient
 		// - for a parallel search approach we need to test, if the query range and our range 
@@ -224,15 +234,16 @@ public class OperationResponder {
 			// 1) adding results to the result-set -> send to requester
 			// 2) adjusting query (updatedQuery) -> forward along the skip graph
 
-			BigDecimal rangeStart = query.getRangeStart();
-			BigDecimal rangeEnd = query.getRangeEnd();
+			long rangeStart = query.getRangeStart();
+			long rangeEnd = query.getRangeEnd();
 			int maxNumberOfValues = query.getMaxNumberOfValues();
 			Set<ApplicationContact> results = nodeController.getElementTable().getContacts(
-					query.getDimension(),
+					query.getDimensionId(),
 					rangeStart,
 					rangeEnd,
 					maxNumberOfValues,
-					false);
+					false,
+					query.getBox());
 
 			// do we have to continue the search for this dimension?
 			last = nodeController.isResponsibleForEnd(rangeEnd);
@@ -245,7 +256,7 @@ public class OperationResponder {
 			nodeController.getOperationCaller().callSearchSerialResultOperation(
 					message.getRequesterContact(),
 					message.getRequestOperationID(),
-					query.getDimension(),
+					query.getDimensionId(),
 					results,
 					counter,
 					last,
@@ -255,11 +266,14 @@ public class OperationResponder {
 				// if not finished: let's update our query
 				maxNumberOfValues = maxNumberOfValues > 0 ? (maxNumberOfValues-results.size()) : 0;
 				rangeStart = nodeController.getElementTable().getRangeEnd();
+				ZOrderBox box = query.getBox();
 				query = new SearchQuery(
-						query.getDimension(), 
+						query.getDimensionId(), 
 						rangeStart, 
 						rangeEnd, 
-						maxNumberOfValues);
+						maxNumberOfValues,
+						false);
+				query.setBox(box);
 			}
 		}
 		
@@ -279,6 +293,79 @@ public class OperationResponder {
 
 
 
+	/**
+	 * a top-k search: starts at the node responsible for the range end and walks the 
+	 * predecessors until the range start is reached or enough results are collected.
+	 */
+	private AbstractSkipgraphMessage executeDescendingSearchSerialForwarding(
+			SearchForwardingSerialMessage message, 
+			SearchQuery query) 
+	{
+		if (!nodeController.isResponsibleForEnd(query.getLastValue())) {
+			// we are not part of the walk yet -> route the query towards the range end
+			nodeController.getOperationCaller().prepareSearchSerialForwardingOperation(
+					message.getRequesterContact(),
+					message.getRequestOperationID(),
+					query,
+					message.getMessageCounter(),
+					message.getTracker());
+			return new SearchForwardingACKMessage(getService().getLocalContact(), message.getSender(), 
+					message.getOperationID());
+		}
+		
+		int counter = message.getMessageCounter() + 1;
+		int maxNumberOfValues = query.getMaxNumberOfValues();
+		Set<ApplicationContact> results = nodeController.getElementTable().getLastContacts(
+				query.getDimensionId(),
+				query.getRangeStart(),
+				query.getRangeEnd(),
+				maxNumberOfValues,
+				query.hasOpenRangeEnd());
+		
+		// we are done if our node is responsible for the lower limit or if we have enough results.
+		// the walk never goes past the lowest node of the ring: its predecessor wraps around 
+		// to the highest node.
+		long localRangeStart = nodeController.getElementTable().getRangeStart();
+		SkipgraphContact prev = nodeController.getContactTable().getPrev();
+		boolean lowestNode = prev.getNodeID().equals(nodeController.getNodeID())
+				|| prev.getRangeStart() >= localRangeStart;
+		boolean last = nodeController.isResponsibleForStart(query.getRangeStart())
+				|| localRangeStart <= query.getRangeStart()
+				|| lowestNode;
+		last |= maxNumberOfValues > 0 && results.size() >= maxNumberOfValues;
+		
+		// send results to requester
+		nodeController.getOperationCaller().callSearchSerialResultOperation(
+				message.getRequesterContact(),
+				message.getRequestOperationID(),
+				query.getDimensionId(),
+				results,
+				counter,
+				last,
+				message.getTracker());
+		
+		if (!last) {
+			// continue below our range at the predecessor
+			query = query.subQuery(
+					query.getRangeStart(), 
+					localRangeStart, 
+					maxNumberOfValues > 0 ? (maxNumberOfValues-results.size()) : 0, 
+					true);
+			nodeController.getOperationCaller().callSearchSerialForwardingOperation(
+					prev.getNodeID(),
+					message.getRequesterContact(),
+					message.getRequestOperationID(),
+					query,
+					counter,
+					message.getTracker());
+		}
+		
+		return new SearchForwardingACKMessage(getService().getLocalContact(), message.getSender(), 
+				message.getOperationID());
+	}
+
+
+
 	/**
 	 * 
 	 * @param message
@@ -289,6 +376,15 @@ public class OperationResponder {
 			log("executing SearchParallelForwarding. operationID="+message.getOperationID());
 		
 		message.getTracker().addHop(nodeController.getService().getLocalContact().getPeerID());
+		
+		// the requester already has enough results -> don't process the search any further
+		if (getService().isSearchCancelled(message.getRequesterContact(), message.getRequestOperationID())) {
+			if (logSearch)
+				log("search has been cancelled by the requester. operationID="+message.getOperationID());
+			return new SearchForwardingACKMessage(getService().getLocalContact(), message.getSender(), 
+					message.getOperationID());
+		}
+		
 		nodeController.getOperationCaller().prepareSearchParallelForwardingOperation(
 				message.getRequesterContact(), 
 				message.getRequestOperationID(), 
@@ -315,12 +411,30 @@ public class OperationResponder {
 					message.getOperationID(), true);
 
 		nodeController.updateContacts(message.getSenderContact());
+		learnPeer(message.getSenderContact().getNodeID(), message.getSender());
 		return new RangeAdjustmentACKMessage(getService().getLocalContact(), message.getSender(), 
 				message.getOperationID());
 	}
 
 
 
+	/**
+	 * adds the pushed histograms to the catalog of the service and replies with its most recent ones
+	 */
+	public AbstractSkipgraphMessage executeHistogramGossip(HistogramGossipMessage message) {
+		if (nodeController.isDisabled())
+			return new HistogramGossipNACKMessage(getService().getLocalContact(), message.getSender(), 
+					message.getOperationID(), true);
+		
+		HistogramCatalog catalog = getService().getHistogramCatalog();
+		List<NodeHistogram> reply = catalog.getRecent(SkipgraphServiceConstants.HISTOGRAM_GOSSIP_ENTRIES);
+		catalog.putAll(message.getHistograms());
+		return new HistogramGossipACKMessage(getService().getLocalContact(), message.getSender(), 
+				message.getOperationID(), nodeController.getNodeID(), reply);
+	}
+
+
+
 	/**
 	 * 
 	 * @param message
@@ -410,7 +524,9 @@ public class OperationResponder {
 							requestOperationID,
 							message.getRequesterPeer(),
 							requesterContact.getNodeID(), 
-							newReceiverID);
+							newReceiverID,
+							null,
+							0);
 					success = true;
 				}
 			}
@@ -534,11 +650,16 @@ public class OperationResponder {
 								route, 
 								true);
 						// notifiying requester about forwarding
+						// with more than two prefixes we are the nearest node of another sibling list
+						// the requester has seen so far, so we report ourselves as its neighbour
 						nodeController.getOperationCaller().callJoinLevelNotifyOperation(
 								requestOperationID,	
 								message.getRequesterPeer(),
 								requesterContact.getNodeID(), 
-								newReceiverID);
+								newReceiverID,
+								(SkipgraphServiceConstants.levelPrefixArity > 2 
+										? nodeController.getContact() : null),
+								level.getPrefix());
 						success = true;
 
 		//				logStr += "different prefix="+level.getPrefix()+" -> forwaring request to "
@@ -633,6 +754,7 @@ public class OperationResponder {
 		Route route = message.getRoute();
 		Route backroute = SGUtil.switchRoute(route);
 		SkipgraphContact senderContact = message.getSenderContact();
+		learnPeer(senderContact.getNodeID(), message.getSender());
 		
 		if (handshakeBusyMap.containsKey((backroute==Route.PREV?-1:1)*levelIndex)) {
 			if (!handshakeBusyMap.get((backroute==Route.PREV?-1:1)*levelIndex)
@@ -830,4 +952,19 @@ public class OperationResponder {
 				nodeID);
 	}
 
+
+
+	/* ************************************************
+	 ***************** Helper METHODS *****************
+	 ************************************************ */
+
+	/**
+	 * remembers the peer hosting a node we got a message from, see directAddressing
+	 */
+	private void learnPeer(BigInteger nodeID, ApplicationContact peer) {
+		if (SkipgraphServiceConstants.directAddressing) {
+			getService().getPeerAddressCache().put(nodeID, peer);
+		}
+	}
+
 }
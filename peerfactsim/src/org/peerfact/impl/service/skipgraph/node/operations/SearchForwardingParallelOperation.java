@@ -60,6 +60,7 @@ public class SearchForwardingParallelOperation extends AbstractSkipgraphNodeOper
 		this.tracker = tracker;
 	
 		setLogging(SkipgraphServiceConstants.logSearch);
+		setDirectAddressing(true);
 		setTimeout(15*Simulator.SECOND_UNIT);
 	}
 
@@ -108,10 +109,15 @@ public class SearchForwardingParallelOperation extends AbstractSkipgraphNodeOper
 					public void receive(Message answerMsg, TransInfo senderInfo, int commId) {
 						getNodeController().incrementIncomingMessages();
 						tracker.incrementN_ACKCount();
+						if (redirected(answerMsg)) {
+							return;
+						}
 
 						// successful
 						if(answerMsg instanceof SearchForwardingACKMessage) {
 							log("ACK received -> succeeded - search has been forwarded");
+							getComponent().searchForwarded(requesterContact, requestOperationID, 
+									((SearchForwardingACKMessage) answerMsg).getSender());
 							finishOperation(result = true);
 							return;
 						} 
@@ -63,6 +63,7 @@ public class SearchForwardingSerialOperation extends AbstractSkipgraphNodeOperat
 		this.tracker = tracker;
 		
 		setLogging(SkipgraphServiceConstants.logSearch);
+		setDirectAddressing(true);
 		setTimeout(15*Simulator.SECOND_UNIT);
 	}
 
@@ -111,6 +112,9 @@ public class SearchForwardingSerialOperation extends AbstractSkipgraphNodeOperat
 					public void receive(Message answerMsg, TransInfo senderInfo, int commId) {
 						getNodeController().incrementIncomingMessages();
 						tracker.incrementN_ACKCount();
+						if (redirected(answerMsg)) {
+							return;
+						}
 
 						// successful
 						if(answerMsg instanceof SearchForwardingACKMessage) {
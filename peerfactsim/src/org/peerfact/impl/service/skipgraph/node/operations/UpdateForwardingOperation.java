@@ -55,6 +55,7 @@ public class UpdateForwardingOperation extends AbstractSkipgraphNodeOperation<Bo
 		this.deleteList = deleteList;
 
 		setLogging(SkipgraphServiceConstants.logUpdate);
+		setDirectAddressing(true);
 		setTimeout(10*Simulator.SECOND_UNIT);
 	}
 
@@ -97,7 +98,10 @@ public class UpdateForwardingOperation extends AbstractSkipgraphNodeOperation<Bo
 					@Override
 					public void receive(Message answerMsg, TransInfo senderInfo, int commId) {
 						getNodeController().incrementIncomingMessages();
-						
+						if (redirected(answerMsg)) {
+							return;
+						}
+
 						// successful
 						if(answerMsg instanceof UpdateForwardingACKMessage) {
 							log("ACK received -> succeeded: data forwarded to the receiving skip graph node");
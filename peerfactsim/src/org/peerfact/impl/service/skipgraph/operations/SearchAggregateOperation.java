@@ -0,0 +1,220 @@
+package org.peerfact.impl.service.skipgraph.operations;
+
+import java.math.BigInteger;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import org.peerfact.api.common.Message;
+import org.peerfact.api.common.OperationCallback;
+import org.peerfact.api.transport.TransInfo;
+import org.peerfact.impl.service.skipgraph.SearchAggregate;
+import org.peerfact.impl.service.skipgraph.SearchQuery;
+import org.peerfact.impl.service.skipgraph.SkipgraphService;
+import org.peerfact.impl.service.skipgraph.SkipgraphServiceConstants;
+import org.peerfact.impl.service.skipgraph.messages.AbstractSkipgraphMessage;
+import org.peerfact.impl.service.skipgraph.messages.DefaultNACKMessage;
+import org.peerfact.impl.service.skipgraph.messages.SearchQueryACKMessage;
+import org.peerfact.impl.service.skipgraph.messages.SearchQueryMessage;
+import org.peerfact.impl.service.skipgraph.messages.SearchQueryNACKMessage;
+import org.peerfact.impl.service.skipgraph.messages.SearchResultParallelMessage;
+import org.peerfact.impl.util.communicationmanager.ApplicationContact;
+
+
+/**
+ * An aggregate range query on a single dimension. The query is distributed like a
+ * parallel search, but every node replies with a partial {@link SearchAggregate} of
+ * its elements instead of their contacts. The partial aggregates are merged here.
+ *
+ * @author Andreas Funke
+ * @version 1.0, 03/22/2017
+ */
+public class SearchAggregateOperation
+		extends AbstractSkipgraphServiceOperation<SearchAggregate>
+		implements Addressable {
+
+	/* *******************************************
+	 ****************** FIELDS *******************
+	 ******************************************* */
+
+	private final SearchQuery query;
+
+	private final SearchAggregate result;
+
+	private final Set<BigInteger> expectResultsFrom = new LinkedHashSet<>();
+
+	private final Set<BigInteger> receivedResultsFrom = new LinkedHashSet<>();
+
+	private TrackerCallback tracker;
+
+
+
+	/* *************************************************
+	 ****************** CONSTRUCTORS *******************
+	 ***************************************************/
+
+	/**
+	 * @param query		a query with an empty aggregate, see {@link SearchQuery#setAggregate}
+	 */
+	public SearchAggregateOperation(
+			SkipgraphService component,
+			OperationCallback<SearchAggregate> callback,
+			SearchQuery query)
+	{
+		super(component, callback);
+		this.query = query;
+		this.result = query.getAggregate().empty();
+		setLogging(SkipgraphServiceConstants.logSearch);
+	}
+
+
+
+	/* ************************************************
+	 ****************** GETTERS ***********************
+	 ************************************************ */
+
+	@Override
+	public SearchAggregate getResult() {
+		return result;
+	}
+
+
+
+	/* ************************************************
+	 ***************** Helper METHODS *****************
+	 ************************************************ */
+
+	@Override
+	protected void execute() {
+		if (getComponent().getLocalNode().isPresent()) {
+			scheduleOperationTimeout(SkipgraphServiceConstants.NODE_OP_TIMEOUT);
+			localContact = getComponent().getLocalContact();
+			tracker = new TrackerCallback();
+			toEntryPoint();
+		}
+		else {
+			log("not present!");
+			operationFinished(false);
+		}
+	}
+
+
+
+	@Override
+	protected SearchQueryMessage buildMessage(ApplicationContact entryPoint) {
+		List<SearchQuery> queries = new LinkedList<>();
+		queries.add(query);
+		return new SearchQueryMessage(
+				localContact,
+				entryPoint,
+				getOperationID(),
+				queries,
+				tracker);
+	}
+
+
+
+	@Override
+	protected void sendMessage(AbstractSkipgraphMessage message) {
+		this.getComponent().getCommunicationManager().send(
+				message,
+
+				new DefaultSkipGTransMessageCallback() {
+
+					@Override
+					public void receive(Message answerMsg, TransInfo senderInfo, int commId) {
+						bootstrapMessages++;
+						// successful
+						if (answerMsg instanceof SearchQueryACKMessage) {
+							log("ACK received -> waiting for partial aggregates.");
+							return;
+						}
+
+						// unsuccessful
+						if (answerMsg instanceof SearchQueryNACKMessage){
+							log("NACK received -> no skip graph node available.");
+						}
+						else if (answerMsg instanceof DefaultNACKMessage){
+							log("DefaultNACK received -> no skip graph node available.");
+						}
+						else {
+							log("an error occurred! We received a message we are not expecting: "+answerMsg);
+						}
+
+						if (getNumberOfStartedLookups() < getMaxNumberOfLookups()) {
+							retry();
+						}
+						else {
+							// all retries failed
+							log("lookupCounter="+getNumberOfStartedLookups()+". all retries failed. giving up.");
+							finishOperation(false);
+						}
+					}
+
+				},
+
+				new DefaultSGCommunicationCallback()
+			);
+
+		this.incrementLookupCounter();
+		bootstrapMessages++;
+	}
+
+
+
+	@Override
+	public boolean deliverMessage(AbstractSkipgraphMessage message) {
+		if (message instanceof SearchResultParallelMessage) {
+			hops.add(getComponent().getLocalContact().getPeerID());
+			handleResults((SearchResultParallelMessage)message);
+			return true;
+		}
+		else {
+			log("received a message we can not understand "+message);
+			return false;
+		}
+	}
+
+
+
+	private void handleResults(SearchResultParallelMessage message) {
+		log("handle "+message);
+
+		receivedResultsFrom.add(message.getSenderNodeID());
+		expectResultsFrom.addAll(message.getHopTrackerSet());
+
+		SearchAggregate partial = message.getAggregates().get(query.getDimensionId());
+		if (partial != null) {
+			result.merge(partial);
+		}
+
+		// if we have received all messages we end the operation
+		expectResultsFrom.removeAll(receivedResultsFrom);
+		log("expectResultsFrom="+expectResultsFrom+" aggregate="+result);
+
+		if (expectResultsFrom.isEmpty()) {
+			log("all partial aggregates received");
+			finishOperation(true);
+			return;
+		}
+
+		log("not done");
+	}
+
+
+	@Override
+	protected void operationTimeoutOccured() {
+		log("operation timeout occured. ", true);
+		finishOperation(false);
+	}
+
+
+	@Override
+	protected void finishOperation(boolean success) {
+		log("aggregate="+result);
+		operationFinished(success);
+	}
+
+
+}
@@ -0,0 +1,321 @@
+package org.peerfact.impl.service.skipgraph.operations;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.peerfact.api.common.Message;
+import org.peerfact.api.common.OperationCallback;
+import org.peerfact.api.transport.TransInfo;
+import org.peerfact.impl.service.skipgraph.SearchQuery;
+import org.peerfact.impl.service.skipgraph.SkipgraphService;
+import org.peerfact.impl.service.skipgraph.SkipgraphServiceConstants;
+import org.peerfact.impl.service.skipgraph.analyzer.SkipgraphMonitor;
+import org.peerfact.impl.service.skipgraph.messages.AbstractSkipgraphMessage;
+import org.peerfact.impl.service.skipgraph.messages.DefaultNACKMessage;
+import org.peerfact.impl.service.skipgraph.messages.SearchQueryACKMessage;
+import org.peerfact.impl.service.skipgraph.messages.SearchQueryMessage;
+import org.peerfact.impl.service.skipgraph.messages.SearchQueryNACKMessage;
+import org.peerfact.impl.service.skipgraph.messages.SearchResultParallelMessage;
+import org.peerfact.impl.simengine.Simulator;
+import org.peerfact.impl.util.communicationmanager.ApplicationContact;
+
+
+/**
+ * Several searches of this service in one parallel search. The queries of all searches
+ * are sent in one message, so the bootstrap and the forwarding tree are shared. Every
+ * query is tagged with the index of its search (see {@link SearchQuery#getSearchIndex()}),
+ * the nodes return their results per search and dimension.
+ *
+ * The result holds the results of the searches in the order of the batch.
+ *
+ * @author Andreas Funke
+ * @version 1.0, 03/22/2017
+ */
+public class SearchBatchOperation
+		extends AbstractSkipgraphServiceOperation<List<Set<ApplicationContact>>>
+		implements Addressable {
+
+	/* *******************************************
+	 ****************** FIELDS *******************
+	 ******************************************* */
+
+	private final List<List<SearchQuery>> searches;
+
+	/** the tagged queries of all searches */
+	private final List<SearchQuery> queries = new LinkedList<>();
+
+	/** per search: result key -> contacts, see {@link SearchQuery#getResultKey()} */
+	private final List<Map<Integer, Set<ApplicationContact>>> resultsPerKey = new ArrayList<>();
+
+	/** per search: the final results, null as long as the search is not done */
+	private final List<Set<ApplicationContact>> results = new ArrayList<>();
+
+	private final int k;
+
+	private final Set<BigInteger> expectResultsFrom = new LinkedHashSet<>();
+
+	private final Set<BigInteger> receivedResultsFrom = new LinkedHashSet<>();
+
+	/** the services which have sent results, see {@link SkipgraphService#cancelSearch} */
+	private final Set<ApplicationContact> resultSenders = new LinkedHashSet<>();
+
+	private TrackerCallback tracker;
+
+
+
+	/* *************************************************
+	 ****************** CONSTRUCTORS *******************
+	 ***************************************************/
+
+	/**
+	 * @param searches	the queries per search. a search with several dimensions returns the
+	 * 					intersection, like {@link SearchQueryOperation}
+	 */
+	public SearchBatchOperation(
+			SkipgraphService component,
+			OperationCallback<List<Set<ApplicationContact>>> callback,
+			List<List<SearchQuery>> searches,
+			int k)
+	{
+		super(component, callback);
+		this.searches = searches;
+		this.k = k;
+		for (int i = 0; i < searches.size(); i++) {
+			Map<Integer, Set<ApplicationContact>> searchResults = new LinkedHashMap<>();
+			Set<Integer> dimensions = new LinkedHashSet<>();
+			for (SearchQuery query : searches.get(i)) {
+				dimensions.add(query.getDimensionId());
+			}
+			for (SearchQuery query : searches.get(i)) {
+				SearchQuery taggedQuery = query.copy();
+				taggedQuery.setSearchIndex(i);
+				// see SearchQueryOperation
+				if (SkipgraphServiceConstants.kSearchLimit && 0 < k && dimensions.size() == 1
+						&& (taggedQuery.getMaxNumberOfValues() <= 0 || taggedQuery.getMaxNumberOfValues() > k)) {
+					taggedQuery.setMaxNumberOfValues(k);
+				}
+				searchResults.put(taggedQuery.getResultKey(), new LinkedHashSet<>());
+				queries.add(taggedQuery);
+			}
+			resultsPerKey.add(searchResults);
+			results.add(null);
+		}
+		setLogging(SkipgraphServiceConstants.logSearch);
+	}
+
+
+
+	/* ************************************************
+	 ****************** GETTERS ***********************
+	 ************************************************ */
+
+	@Override
+	public List<Set<ApplicationContact>> getResult() {
+		return results;
+	}
+
+
+
+	/* ************************************************
+	 ***************** Helper METHODS *****************
+	 ************************************************ */
+
+	@Override
+	protected void execute() {
+		if (getComponent().getLocalNode().isPresent()) {
+			scheduleOperationTimeout(SkipgraphServiceConstants.NODE_OP_TIMEOUT);
+			localContact = getComponent().getLocalContact();
+			tracker = new TrackerCallback();
+			toEntryPoint();
+		}
+		else {
+			log("not present!");
+			// finish without informing the monitor
+			operationFinished(false);
+		}
+	}
+
+
+
+	@Override
+	protected SearchQueryMessage buildMessage(ApplicationContact entryPoint) {
+		return new SearchQueryMessage(
+				localContact,
+				entryPoint,
+				getOperationID(),
+				queries,
+				tracker);
+	}
+
+
+
+	@Override
+	protected void sendMessage(AbstractSkipgraphMessage message) {
+		this.getComponent().getCommunicationManager().send(
+				message,
+
+				new DefaultSkipGTransMessageCallback() {
+
+					@Override
+					public void receive(Message answerMsg, TransInfo senderInfo, int commId) {
+						bootstrapMessages++;
+						// successful
+						if (answerMsg instanceof SearchQueryACKMessage) {
+							log("ACK received -> waiting for search results.");
+							return;
+						}
+
+						// unsuccessful
+						if (answerMsg instanceof SearchQueryNACKMessage){
+							log("NACK received -> no skip graph node available.");
+						}
+						else if (answerMsg instanceof DefaultNACKMessage){
+							log("DefaultNACK received -> no skip graph node available.");
+						}
+						else {
+							log("an error occurred! We received a message we are not expecting: "+answerMsg);
+						}
+
+						if (getNumberOfStartedLookups() < getMaxNumberOfLookups()) {
+							retry();
+						}
+						else {
+							// all retries failed
+							log("lookupCounter="+getNumberOfStartedLookups()+". all retries failed. giving up.");
+							finishOperation(false);
+						}
+					}
+
+				},
+
+				new DefaultSGCommunicationCallback()
+			);
+
+		this.incrementLookupCounter();
+		bootstrapMessages++;
+	}
+
+
+
+	@Override
+	public boolean deliverMessage(AbstractSkipgraphMessage message) {
+		if (message instanceof SearchResultParallelMessage) {
+			hops.add(getComponent().getLocalContact().getPeerID());
+			handleResults((SearchResultParallelMessage)message);
+			return true;
+		}
+		else {
+			log("received a message we can not understand "+message);
+			return false;
+		}
+	}
+
+
+
+	private void handleResults(SearchResultParallelMessage message) {
+		log("handle "+message);
+
+		receivedResultsFrom.add(message.getSenderNodeID());
+		expectResultsFrom.addAll(message.getHopTrackerSet());
+		resultSenders.add(message.getSender());
+		expectResultsFrom.removeAll(receivedResultsFrom);
+		log("expectResultsFrom="+expectResultsFrom);
+
+		// demultiplex the results to the searches
+		boolean done = true;
+		for (int i = 0; i < searches.size(); i++) {
+			if (results.get(i) != null) {
+				continue;
+			}
+			for (Entry<Integer, Set<ApplicationContact>> entry : resultsPerKey.get(i).entrySet()) {
+				if (message.getResults().containsKey(entry.getKey())) {
+					entry.getValue().addAll(getComponent().getContactPool().internAll(message.getResults().get(entry.getKey())));
+				}
+			}
+
+			// creates an intersection of all dimensions of the search
+			Set<ApplicationContact> intersection = new LinkedHashSet<>();
+			boolean first = true;
+			for (Set<ApplicationContact> contacts : resultsPerKey.get(i).values()) {
+				if (first) {
+					intersection.addAll(contacts);
+					first = false;
+				}
+				else {
+					intersection.retainAll(contacts);
+				}
+			}
+
+			if (0 < k && k <= intersection.size()) {
+				results.set(i, new LinkedHashSet<>((new LinkedList<>(intersection)).subList(0, k)));
+				log("search "+i+": final k="+k+" results="+results.get(i));
+			}
+			else if (expectResultsFrom.isEmpty()) {
+				results.set(i, intersection);
+				log("search "+i+": all result messages received. results="+results.get(i));
+			}
+			else {
+				done = false;
+			}
+		}
+
+		if (done) {
+			// stop the branches of the search that are still running
+			if (!expectResultsFrom.isEmpty()) {
+				getComponent().cancelSearch(localContact, getOperationID(), resultSenders);
+			}
+			finishOperation(true);
+			return;
+		}
+
+		log("not done");
+	}
+
+
+	@Override
+	protected void operationTimeoutOccured() {
+		log("operation timeout occured. ", true);
+		finishOperation(false);
+	}
+
+
+	@Override
+	protected void finishOperation(boolean success) {
+		log("results="+results);
+		// call the callback
+		operationFinished(success);
+		// call the monitor and push the data! the results and durations are reported per search,
+		// the messages and hops once for the batch.
+		if (Simulator.getMonitor() instanceof SkipgraphMonitor) {
+			for (int i = 0; i < searches.size(); i++) {
+				boolean searchSuccess = success || results.get(i) != null;
+				((SkipgraphMonitor)Simulator.getMonitor())
+						.searchFinished(localContact, searchSuccess);
+				if (searchSuccess) {
+					((SkipgraphMonitor)Simulator.getMonitor())
+							.addSearchQueryResults(localContact, searches.get(i), k,
+									new LinkedHashSet<>(results.get(i)));
+				}
+				((SkipgraphMonitor)Simulator.getMonitor())
+						.addSearchQueryDuration(localContact, getDuration());
+			}
+			((SkipgraphMonitor)Simulator.getMonitor())
+					.addSearchQueryMessageCount(localContact, bootstrapMessages,
+							n_ACKs, forwardingMessages, replyMessages);
+			Set<BigInteger> distinctHops = new LinkedHashSet<>(hops);
+			((SkipgraphMonitor)Simulator.getMonitor())
+					.addSearchQueryHopCount(localContact, hops.size(), distinctHops.size());
+			((SkipgraphMonitor)Simulator.getMonitor())
+					.bootstrapAttempts(localContact, bootstrapAttempts);
+		}
+	}
+
+
+}
@@ -12,9 +12,11 @@ import java.util.Set;
 import org.peerfact.api.common.Message;
 import org.peerfact.api.common.OperationCallback;
 import org.peerfact.api.transport.TransInfo;
+import org.peerfact.impl.service.skipgraph.SearchPlan;
 import org.peerfact.impl.service.skipgraph.SearchQuery;
 import org.peerfact.impl.service.skipgraph.SkipgraphService;
 import org.peerfact.impl.service.skipgraph.SkipgraphServiceConstants;
+import org.peerfact.impl.service.skipgraph.SkipgraphServiceInterface.StreamingSearchQueryCallback;
 import org.peerfact.impl.service.skipgraph.analyzer.SkipgraphMonitor;
 import org.peerfact.impl.service.skipgraph.messages.AbstractSkipgraphMessage;
 import org.peerfact.impl.service.skipgraph.messages.DefaultNACKMessage;
@@ -23,6 +25,10 @@ import org.peerfact.impl.service.skipgraph.messages.SearchQueryMessage;
 import org.peerfact.impl.service.skipgraph.messages.SearchQueryNACKMessage;
 import org.peerfact.impl.service.skipgraph.messages.SearchResultParallelMessage;
 import org.peerfact.impl.service.skipgraph.messages.SearchResultSerialMessage;
+import org.peerfact.impl.service.skipgraph.util.ContactFilter;
+import org.peerfact.impl.service.skipgraph.util.DimensionRegistry;
+import org.peerfact.impl.service.skipgraph.util.HistogramCatalog;
+import org.peerfact.impl.service.skipgraph.util.SearchResultCache;
 import org.peerfact.impl.simengine.Simulator;
 import org.peerfact.impl.util.communicationmanager.ApplicationContact;
 
@@ -45,7 +51,7 @@ public class SearchQueryOperation
 	 *  we will then create an intersection of all sets to retain 
 	 *  only those Contacts that fit to all single search queries =>
 	 *  multi-dimensional search */
-	private Map<String, Set<ApplicationContact>> resultsPerCapacity;
+	private Map<Integer, Set<ApplicationContact>> resultsPerCapacity;
 	
 	/**
 	 * the value is an Integer array of size=2.
@@ -53,16 +59,43 @@ public class SearchQueryOperation
 	 * [1] => the target number of returned messages per capacity
 	 * finish operation when [0] == [1]
 	 */
-	private Map<String, int[]> counterPerCapacity;
+	private Map<Integer, int[]> counterPerCapacity;
 	
 	private int k;
 
 	private final List<SearchQuery> queries;
 	
+	/** the queries of the current search phase, see {@link #buildMessage} */
+	private List<SearchQuery> sentQueries;
+	
+	/** semi-join search: the queries to send with the candidates of the first phase.
+	 *  null if there is no further phase. */
+	private List<SearchQuery> semiJoinQueries;
+	
+	/** semi-join search: the dimension of the first phase */
+	private int semiJoinDimension = -1;
+	
+	/** adaptive search: the strategy per dimension. null if the search follows parallelSearch */
+	private SearchPlan plan;
+	
+	/** true as soon as all results of the parallel dimensions have been received */
+	private boolean parallelResultsComplete = false;
+	
 	private final Set<BigInteger> expectResultsFrom = new LinkedHashSet<>();
 	
 	private final Set<BigInteger> receivedResultsFrom = new LinkedHashSet<>();
 	
+	/** the services which have sent results, see {@link SkipgraphService#cancelSearch} */
+	private final Set<ApplicationContact> resultSenders = new LinkedHashSet<>();
+	
+	/** receives the results while the search is running, may be null */
+	private StreamingSearchQueryCallback streamingCallback;
+	
+	/** the results which have been known before the search finished */
+	private final Set<ApplicationContact> streamedResults = new LinkedHashSet<>();
+	
+	private long startTime;
+	
 	private TrackerCallback tracker;
 	
 	
@@ -78,20 +111,61 @@ public class SearchQueryOperation
 			int k)
 	{
 		super(component, callback);
-		this.queries = queries;
 		this.k = k;
 		this.resultsPerCapacity = new LinkedHashMap<>();
 		this.counterPerCapacity = new LinkedHashMap<>();
 		for (SearchQuery query : queries) {
-			if (!resultsPerCapacity.containsKey(query.getDimension())) {
-				resultsPerCapacity.put(query.getDimension(), new LinkedHashSet<>());
+			if (!resultsPerCapacity.containsKey(query.getDimensionId())) {
+				resultsPerCapacity.put(query.getDimensionId(), new LinkedHashSet<>());
 				int[] counter = new int[2];
 				counter[0]=0;
 				counter[1]=-1;
-				counterPerCapacity.put(query.getDimension(), counter);
+				counterPerCapacity.put(query.getDimensionId(), counter);
 			}
 		}
 		
+		// a k-search on a single dimension needs no more than k values per query. The limit
+		// is carried down the forwarding tree. An intersection of several dimensions can't
+		// be limited per dimension.
+		if (SkipgraphServiceConstants.kSearchLimit && 0 < k && resultsPerCapacity.size() == 1) {
+			List<SearchQuery> limitedQueries = new LinkedList<>();
+			for (SearchQuery query : queries) {
+				SearchQuery limitedQuery = query.copy();
+				if (limitedQuery.getMaxNumberOfValues() <= 0 || limitedQuery.getMaxNumberOfValues() > k) {
+					limitedQuery.setMaxNumberOfValues(k);
+				}
+				limitedQueries.add(limitedQuery);
+			}
+			queries = limitedQueries;
+		}
+		this.queries = queries;
+		this.sentQueries = queries;
+		
+		// semi-join search: resolve the most selective dimension first. Its results are sent
+		// along with the queries of the remaining dimensions, so the nodes only return contacts
+		// that can still be part of the intersection.
+		if (SkipgraphServiceConstants.semiJoinSearch && SkipgraphServiceConstants.parallelSearch
+				&& resultsPerCapacity.size() > 1) {
+			semiJoinDimension = getMostSelectiveDimension(queries, getHistogramCatalog(component));
+			sentQueries = new LinkedList<>();
+			semiJoinQueries = new LinkedList<>();
+			for (SearchQuery query : queries) {
+				if (query.getDimensionId() == semiJoinDimension) {
+					sentQueries.add(query);
+				}
+				else {
+					semiJoinQueries.add(query);
+				}
+			}
+		}
+		
+		// adaptive search: narrow dimensions walk the nodes serially, the others are searched in parallel
+		if (SkipgraphServiceConstants.adaptiveSearch && semiJoinQueries == null) {
+			plan = SearchPlan.create(queries, k, component.getSkipgraphNodeControllers().values(), 
+					getHistogramCatalog(component));
+			sentQueries = plan.apply(queries);
+		}
+		
 		setLogging(SkipgraphServiceConstants.logSearch);
 	}
 
@@ -106,6 +180,16 @@ public class SearchQueryOperation
 		return results;
 	}
 	
+	
+
+	/* ************************************************
+	 ****************** SETTERS ***********************
+	 ************************************************ */
+
+	public void setStreamingCallback(StreamingSearchQueryCallback streamingCallback) {
+		this.streamingCallback = streamingCallback;
+	}
+	
 
 
 	/* ************************************************
@@ -115,9 +199,16 @@ public class SearchQueryOperation
 	@Override
 	protected void execute() {
 		if (getComponent().getLocalNode().isPresent()) {
-			scheduleOperationTimeout(SkipgraphServiceConstants.NODE_OP_TIMEOUT);
 			localContact = getComponent().getLocalContact();
 			tracker = new TrackerCallback();
+			startTime = Simulator.getCurrentTime();
+			if (plan != null) {
+				log("search plan: "+plan);
+			}
+			if (answerFromCache()) {
+				return;
+			}
+			scheduleOperationTimeout(SkipgraphServiceConstants.NODE_OP_TIMEOUT);
 			toEntryPoint();
 		}
 		else {
@@ -135,7 +226,7 @@ public class SearchQueryOperation
 				localContact, 
 				entryPoint, 
 				getOperationID(),
-				queries,
+				sentQueries,
 				tracker);
 	}
 	
@@ -214,40 +305,30 @@ public class SearchQueryOperation
 		
 		receivedResultsFrom.add(message.getSenderNodeID());
 		expectResultsFrom.addAll(message.getHopTrackerSet());
+		resultSenders.add(message.getSender());
 		log("receivedResultsFrom="+receivedResultsFrom);
 		log("expectResultsFrom="+expectResultsFrom);
 		
 		// add results from the message to all results
-		for (Entry<String, Set<ApplicationContact>> entry : resultsPerCapacity.entrySet()) {
+		for (Entry<Integer, Set<ApplicationContact>> entry : resultsPerCapacity.entrySet()) {
 			if (message.getResults().containsKey(entry.getKey())) {
-				entry.getValue().addAll(message.getResults().get(entry.getKey()));
+				entry.getValue().addAll(getComponent().getContactPool().internAll(message.getResults().get(entry.getKey())));
 			}
 		}
 		
 		// creates an intersection of all capacities
-		Set<ApplicationContact> intersection = new LinkedHashSet<>();
-		boolean first = true;
-		for (Entry<String, Set<ApplicationContact>> entry : resultsPerCapacity.entrySet()) {
-			if (first) {
-				intersection.addAll(entry.getValue());
-				first = false;
-			}
-			else {
-				intersection.retainAll(entry.getValue());
-			}
-		}
+		Set<ApplicationContact> intersection = getIntersection();
 		log("results per capacity: "+resultsPerCapacity+"\nintersection: "+intersection);
+		streamResults(intersection);
 		
 		// we end the search if we have received enough results
 		if (0 < k && k <= intersection.size()) {
-			if (k < intersection.size()) {
-				// limit the size of the set to <= k values
-				this.results = new LinkedHashSet<>((new LinkedList<>(intersection)).subList(0, k));
-			}
-			else {
-				this.results = intersection;
-			}
+			this.results = limitResults(intersection);
 			log("final k="+k+" results="+this.results+"\ndone!");
+			// stop the branches of the search that are still running
+			if (!receivedResultsFrom.containsAll(expectResultsFrom)) {
+				getComponent().cancelSearch(localContact, getOperationID(), resultSenders);
+			}
 			finishOperation(true);
 			return;
 		}
@@ -257,8 +338,22 @@ public class SearchQueryOperation
 		log("expectResultsFrom="+expectResultsFrom);
 		
 		if (expectResultsFrom.isEmpty()) {
+			if (semiJoinQueries != null) {
+				log("all result messages of the first semi-join phase received");
+				continueSemiJoin();
+				return;
+			}
+			parallelResultsComplete = true;
+			if (!isSerialSearchComplete()) {
+				log("all parallel result messages received. serial results still pending");
+				return;
+			}
 			log("all result messages received");
 			this.results = intersection;
+			// the results are complete -> they answer the same queries for any k.
+			if (isCacheableSearch()) {
+				getComponent().getSearchResultCache().put(queries, resultsPerCapacity);
+			}
 			finishOperation(true);
 			return;
 		}
@@ -268,36 +363,162 @@ public class SearchQueryOperation
 	
 	
 
+	/**
+	 * @return	true if the search is answered by the parallel results alone, 
+	 * 			see {@link SearchResultCache#isCacheable}
+	 */
+	private boolean isCacheableSearch() {
+		return SkipgraphServiceConstants.searchResultCache && hasParallelDimensions() 
+				&& semiJoinDimension < 0 && (plan == null || plan.getSerialDimensions().isEmpty())
+				&& SearchResultCache.isCacheable(queries);
+	}
+	
+	
+	/**
+	 * finishes the search with the complete results of an earlier search for the same queries,
+	 * see {@link #handleParallelResults}. 
+	 * @return	true if the results were cached
+	 */
+	private boolean answerFromCache() {
+		if (!isCacheableSearch()) {
+			return false;
+		}
+		Map<Integer, Set<ApplicationContact>> cachedResults = getComponent().getSearchResultCache().get(queries);
+		if (Simulator.getMonitor() instanceof SkipgraphMonitor) {
+			((SkipgraphMonitor)Simulator.getMonitor())
+					.searchCacheLookup(localContact, cachedResults != null);
+		}
+		if (cachedResults == null) {
+			return false;
+		}
+		
+		for (Entry<Integer, Set<ApplicationContact>> entry : resultsPerCapacity.entrySet()) {
+			if (cachedResults.containsKey(entry.getKey())) {
+				entry.getValue().addAll(cachedResults.get(entry.getKey()));
+			}
+		}
+		// creates an intersection of all capacities
+		Set<ApplicationContact> intersection = getIntersection();
+		log("results from cache: "+resultsPerCapacity+"\nintersection: "+intersection);
+		streamResults(intersection);
+		this.results = 0 < k && k <= intersection.size() ? limitResults(intersection) : intersection;
+		finishOperation(true);
+		return true;
+	}
+	
+	
+
+	/**
+	 * sends the remaining queries of a semi-join search with the results of the first phase
+	 */
+	private void continueSemiJoin() {
+		Set<ApplicationContact> candidates = resultsPerCapacity.get(semiJoinDimension);
+		if (candidates.isEmpty()) {
+			log("no candidates. done!");
+			this.results = new LinkedHashSet<>();
+			finishOperation(true);
+			return;
+		}
+		ContactFilter filter = new ContactFilter(candidates, 
+				SkipgraphServiceConstants.SEMI_JOIN_FILTER_BITS_PER_CONTACT);
+		sentQueries = new LinkedList<>();
+		for (SearchQuery query : semiJoinQueries) {
+			SearchQuery filteredQuery = query.copy();
+			filteredQuery.setCandidates(filter);
+			sentQueries.add(filteredQuery);
+		}
+		semiJoinQueries = null;
+		expectResultsFrom.clear();
+		receivedResultsFrom.clear();
+		log("semi-join: "+candidates.size()+" candidates. sending "+sentQueries);
+		toEntryPoint();
+	}
+	
+	
+	
+	/**
+	 * @return	the node histograms of the service, null if they are not gossiped or none are known yet
+	 */
+	private static HistogramCatalog getHistogramCatalog(SkipgraphService component) {
+		if (!SkipgraphServiceConstants.histogramGossip || component.getHistogramCatalog().isEmpty()) {
+			return null;
+		}
+		return component.getHistogramCatalog();
+	}
+	
+	
+	
+	/**
+	 * estimates the selectivity by the number of matching elements if node histograms are known,
+	 * by the width of the query ranges otherwise. open ranges are the least selective.
+	 * @return	the dimension with the fewest matching elements or the narrowest queries
+	 */
+	private static int getMostSelectiveDimension(List<SearchQuery> queries, HistogramCatalog catalog) {
+		if (catalog != null) {
+			Map<Integer, Double> counts = new LinkedHashMap<>();
+			for (SearchQuery query : queries) {
+				double count = catalog.estimateCount(query.getDimensionId(), 
+						query.getRangeStart(), query.getRangeEnd(), query.hasOpenRangeEnd());
+				if (count == HistogramCatalog.UNKNOWN) {
+					count = Double.MAX_VALUE;
+				}
+				counts.merge(query.getDimensionId(), count, (c1, c2) -> Math.min(Double.MAX_VALUE, c1 + c2));
+			}
+			int dimension = -1;
+			double minCount = Double.MAX_VALUE;
+			for (Entry<Integer, Double> entry : counts.entrySet()) {
+				if (dimension < 0 || entry.getValue() < minCount) {
+					dimension = entry.getKey();
+					minCount = entry.getValue();
+				}
+			}
+			return dimension;
+		}
+		
+		Map<Integer, Long> widths = new LinkedHashMap<>();
+		for (SearchQuery query : queries) {
+			long width = Long.MAX_VALUE;
+			if (query.getRangeStart() != SkipgraphServiceConstants.NEGATIVE_INFINITY
+					&& query.getRangeEnd() != SkipgraphServiceConstants.POSITIVE_INFINITY) {
+				width = query.getRangeEnd() - query.getRangeStart();
+				if (width < 0) {
+					// overflow
+					width = Long.MAX_VALUE;
+				}
+			}
+			Long sum = widths.get(query.getDimensionId());
+			if (sum != null) {
+				width = Long.MAX_VALUE - sum < width ? Long.MAX_VALUE : sum + width;
+			}
+			widths.put(query.getDimensionId(), width);
+		}
+		int dimension = -1;
+		long minWidth = Long.MAX_VALUE;
+		for (Entry<Integer, Long> entry : widths.entrySet()) {
+			if (dimension < 0 || entry.getValue() < minWidth) {
+				dimension = entry.getKey();
+				minWidth = entry.getValue();
+			}
+		}
+		return dimension;
+	}
+	
+	
+
 	private void handleSerialResults(SearchResultSerialMessage message) {
 		// results for which capacity?
-		String dimension = message.getDimension();
+		int dimension = message.getDimension();
 		counterPerCapacity.get(dimension)[0]++;
-		resultsPerCapacity.get(dimension).addAll(message.getResults());
+		resultsPerCapacity.get(dimension).addAll(getComponent().getContactPool().internAll(message.getResults()));
 		String logStr = "\nhandle "+message;
 		
 		// creates an intersection of all capacities
-		Set<ApplicationContact> intersection = new LinkedHashSet<>();
-		boolean first = true;
-		for (Entry<String, Set<ApplicationContact>> entry : resultsPerCapacity.entrySet()) {
-			if (first) {
-				intersection.addAll(entry.getValue());
-				first = false;
-			}
-			else {
-				intersection.retainAll(entry.getValue());
-			}
-		}
+		Set<ApplicationContact> intersection = getIntersection();
 		logStr += "\nresults per capacity: "+resultsPerCapacity+"\nintersection: "+intersection;
+		streamResults(intersection);
 		if (0 < k && k <= intersection.size()) {
 			logStr += (logStr+"\nfinal k="+k+" results: ");
-			
-			if (k < intersection.size()) {
-				// limit the size of the set to <= k values
-				this.results = new LinkedHashSet<>((new LinkedList<>(intersection)).subList(0, k));
-			}
-			else {
-				this.results = intersection;
-			}
+			this.results = limitResults(intersection);
 			logStr += this.results + "\ndone!";
 			finishOperation(true);
 			log(logStr, false);
@@ -305,16 +526,15 @@ public class SearchQueryOperation
 		}
 		
 		if (message.isLastMessage()) {
-			log("dimension="+dimension+". isLastMessage. counter="+message.getCounter(), false);
+			log("dimension="+DimensionRegistry.getName(dimension)+". isLastMessage. counter="+message.getCounter(), false);
 			counterPerCapacity.get(dimension)[1] = message.getCounter();
 		}
 
-		boolean done = true;
-		for (Entry<String, int[]> entry : counterPerCapacity.entrySet()) {
-			logStr += "\ncounter status for "+entry.getKey()+": "
+		for (Entry<Integer, int[]> entry : counterPerCapacity.entrySet()) {
+			logStr += "\ncounter status for "+DimensionRegistry.getName(entry.getKey())+": "
 					+entry.getValue()[0]+" messages received from "+entry.getValue()[1];
-			done &= (entry.getValue()[1] > 0) && (entry.getValue()[0] >= entry.getValue()[1]);
 		}
+		boolean done = isSerialSearchComplete() && (!hasParallelDimensions() || parallelResultsComplete);
 		logStr += "\ndone? "+done;
 		
 		if (done) {
@@ -328,9 +548,109 @@ public class SearchQueryOperation
 	}
 	
 	
+	/**
+	 * @return	the contacts which are part of the results of all capacities
+	 */
+	private Set<ApplicationContact> getIntersection() {
+		Set<ApplicationContact> intersection = new LinkedHashSet<>();
+		boolean first = true;
+		for (Entry<Integer, Set<ApplicationContact>> entry : resultsPerCapacity.entrySet()) {
+			if (first) {
+				intersection.addAll(entry.getValue());
+				first = false;
+			}
+			else {
+				intersection.retainAll(entry.getValue());
+			}
+		}
+		return intersection;
+	}
+	
+	
+	/**
+	 * passes the new results of the intersection to the streaming callback. The intersection 
+	 * only grows, so every contact in it is a final result (up to k).
+	 */
+	private void streamResults(Set<ApplicationContact> intersection) {
+		Set<ApplicationContact> newResults = new LinkedHashSet<>();
+		for (ApplicationContact contact : intersection) {
+			if (0 < k && streamedResults.size() + newResults.size() >= k) {
+				break;
+			}
+			if (!streamedResults.contains(contact)) {
+				newResults.add(contact);
+			}
+		}
+		if (newResults.isEmpty()) {
+			return;
+		}
+		if (streamedResults.isEmpty() && Simulator.getMonitor() instanceof SkipgraphMonitor) {
+			((SkipgraphMonitor)Simulator.getMonitor())
+					.addSearchTimeToFirstResult(localContact, Simulator.getCurrentTime() - startTime);
+		}
+		streamedResults.addAll(newResults);
+		if (streamingCallback != null) {
+			log("streaming "+newResults.size()+" new results");
+			streamingCallback.gotPartialAnswer(newResults);
+		}
+	}
+	
+	
+	/**
+	 * @return	k results of the intersection. results which were streamed already come first.
+	 */
+	private Set<ApplicationContact> limitResults(Set<ApplicationContact> intersection) {
+		Set<ApplicationContact> limitedResults = new LinkedHashSet<>(streamedResults);
+		for (ApplicationContact contact : intersection) {
+			if (limitedResults.size() >= k) {
+				break;
+			}
+			limitedResults.add(contact);
+		}
+		return limitedResults;
+	}
+	
+	
+	/**
+	 * @return	true if the dimension walks the nodes serially
+	 */
+	private boolean isSerial(int dimension) {
+		if (plan != null) {
+			return plan.isSerial(dimension);
+		}
+		return !SkipgraphServiceConstants.parallelSearch;
+	}
+	
+	
+	private boolean hasParallelDimensions() {
+		if (plan != null) {
+			return plan.hasParallelDimensions();
+		}
+		return SkipgraphServiceConstants.parallelSearch;
+	}
+	
+	
+	/**
+	 * @return	true if the last message of every serial dimension and all messages before it were received
+	 */
+	private boolean isSerialSearchComplete() {
+		for (Entry<Integer, int[]> entry : counterPerCapacity.entrySet()) {
+			if (isSerial(entry.getKey()) 
+					&& !((entry.getValue()[1] > 0) && (entry.getValue()[0] >= entry.getValue()[1]))) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	
 	@Override
 	protected void operationTimeoutOccured() {
 		log("operation timeout occured. ", true);
+		// the streamed results are final, so the partial results contain them, see streamResults
+		Set<ApplicationContact> partialResults = new LinkedHashSet<>(streamedResults);
+		partialResults.addAll(getIntersection());
+		this.results = 0 < k ? limitResults(partialResults) : partialResults;
 		finishOperation(false);
 	}
 
@@ -356,6 +676,16 @@ public class SearchQueryOperation
 					.addSearchQueryHopCount(localContact, hops.size(), distinctHops.size());
 			((SkipgraphMonitor)Simulator.getMonitor())
 					.bootstrapAttempts(localContact, bootstrapAttempts);
+			if (plan != null) {
+				// parallel replies per node, serial replies per node and dimension
+				int visitedNodes = receivedResultsFrom.size();
+				for (int[] counter : counterPerCapacity.values()) {
+					visitedNodes += counter[0];
+				}
+				((SkipgraphMonitor)Simulator.getMonitor())
+						.addSearchPlanOutcome(localContact, plan.getName(), plan.getEstimatedNodes(), visitedNodes,
+								getDuration(), bootstrapMessages + n_ACKs + forwardingMessages + replyMessages);
+			}
 		}
 	}
 	
@@ -5,6 +5,7 @@ import java.util.Map;
 import java.util.Set;
 
 import org.peerfact.api.common.OperationCallback;
+import org.peerfact.impl.service.skipgraph.SearchAggregate;
 import org.peerfact.impl.service.skipgraph.SkipgraphService;
 import org.peerfact.impl.service.skipgraph.SkipgraphServiceConstants;
 import org.peerfact.impl.service.skipgraph.messages.AbstractSkipgraphMessage;
@@ -26,7 +27,9 @@ public class SearchResultParallelOperation extends AbstractSkipgraphServiceOpera
 	
 	private final int requestOperationID;
 	
-	private final Map<String, Set<ApplicationContact>> results;
+	private final Map<Integer, Set<ApplicationContact>> results;
+	
+	private final Map<Integer, SearchAggregate> aggregates;
 	
 	private final Set<BigInteger> messageHopTrackerSet;
 	
@@ -49,7 +52,8 @@ public class SearchResultParallelOperation extends AbstractSkipgraphServiceOpera
 			OperationCallback<Boolean> callback,
 			ApplicationContact requester,
 			int requestOperationID,
-			Map<String, Set<ApplicationContact>> results,
+			Map<Integer, Set<ApplicationContact>> results,
+			Map<Integer, SearchAggregate> aggregates,
 			Set<BigInteger> messageHopTrackerSet,
 			BigInteger senderNodeID,
 			TrackerCallback tracker) 
@@ -58,6 +62,7 @@ public class SearchResultParallelOperation extends AbstractSkipgraphServiceOpera
 		this.requester = requester;
 		this.requestOperationID = requestOperationID;
 		this.results = results;
+		this.aggregates = aggregates;
 		this.messageHopTrackerSet = messageHopTrackerSet;
 		this.senderNodeID = senderNodeID;
 		this.tracker = tracker;
@@ -104,6 +109,7 @@ public class SearchResultParallelOperation extends AbstractSkipgraphServiceOpera
 				requester,
 				requestOperationID,
 				results,
+				aggregates,
 				messageHopTrackerSet,
 				senderNodeID);
 	}
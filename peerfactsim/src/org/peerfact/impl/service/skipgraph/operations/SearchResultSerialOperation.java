@@ -24,7 +24,7 @@ public class SearchResultSerialOperation extends AbstractSkipgraphServiceOperati
 	
 	private final int requestOperationID;
 	
-	private final String dimension;
+	private final int dimension;
 	
 	private final Set<ApplicationContact> results;
 	
@@ -49,7 +49,7 @@ public class SearchResultSerialOperation extends AbstractSkipgraphServiceOperati
 			OperationCallback<Boolean> callback,
 			ApplicationContact requester,
 			int requestOperationID,
-			String dimension,
+			int dimension,
 			Set<ApplicationContact> results,
 			int messageCounter,
 			boolean last,
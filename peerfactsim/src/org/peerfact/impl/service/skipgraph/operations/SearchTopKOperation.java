@@ -0,0 +1,260 @@
+package org.peerfact.impl.service.skipgraph.operations;
+
+import java.math.BigInteger;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.peerfact.api.common.Message;
+import org.peerfact.api.common.OperationCallback;
+import org.peerfact.api.transport.TransInfo;
+import org.peerfact.impl.service.skipgraph.SearchQuery;
+import org.peerfact.impl.service.skipgraph.SkipgraphService;
+import org.peerfact.impl.service.skipgraph.SkipgraphServiceConstants;
+import org.peerfact.impl.service.skipgraph.analyzer.SkipgraphMonitor;
+import org.peerfact.impl.service.skipgraph.messages.AbstractSkipgraphMessage;
+import org.peerfact.impl.service.skipgraph.messages.DefaultNACKMessage;
+import org.peerfact.impl.service.skipgraph.messages.SearchQueryACKMessage;
+import org.peerfact.impl.service.skipgraph.messages.SearchQueryMessage;
+import org.peerfact.impl.service.skipgraph.messages.SearchQueryNACKMessage;
+import org.peerfact.impl.service.skipgraph.messages.SearchResultSerialMessage;
+import org.peerfact.impl.simengine.Simulator;
+import org.peerfact.impl.util.communicationmanager.ApplicationContact;
+
+
+/**
+ * A top-k (or bottom-k) search on a single dimension. The query is an ordered query,
+ * see {@link SearchQuery#getOrder}: the nodes are walked one by one from the range end
+ * downwards (or from the range start upwards) until k contacts are found. Every node of
+ * the walk replies with a numbered {@link SearchResultSerialMessage}, so the results can
+ * be put back into the order of the walk.
+ *
+ * @author Andreas Funke
+ * @version 1.0, 03/22/2017
+ */
+public class SearchTopKOperation
+		extends AbstractSkipgraphServiceOperation<Set<ApplicationContact>>
+		implements Addressable {
+
+	/* *******************************************
+	 ****************** FIELDS *******************
+	 ******************************************* */
+
+	private Set<ApplicationContact> results = new LinkedHashSet<>();
+
+	/** message counter -> results of the node */
+	private final TreeMap<Integer, Set<ApplicationContact>> resultsPerMessage = new TreeMap<>();
+
+	/** the counter of the last message of the walk, -1 as long as it wasn't received */
+	private int lastMessageCounter = -1;
+
+	private final SearchQuery query;
+
+	private final int k;
+
+	private TrackerCallback tracker;
+
+
+
+	/* *************************************************
+	 ****************** CONSTRUCTORS *******************
+	 ***************************************************/
+
+	/**
+	 * @param query		an ordered query, limited to k values
+	 */
+	public SearchTopKOperation(
+			SkipgraphService component,
+			OperationCallback<Set<ApplicationContact>> callback,
+			SearchQuery query,
+			int k)
+	{
+		super(component, callback);
+		this.query = query;
+		this.k = k;
+		setLogging(SkipgraphServiceConstants.logSearch);
+	}
+
+
+
+	/* ************************************************
+	 ****************** GETTERS ***********************
+	 ************************************************ */
+
+	@Override
+	public Set<ApplicationContact> getResult() {
+		return results;
+	}
+
+
+
+	/* ************************************************
+	 ***************** Helper METHODS *****************
+	 ************************************************ */
+
+	@Override
+	protected void execute() {
+		if (getComponent().getLocalNode().isPresent()) {
+			scheduleOperationTimeout(SkipgraphServiceConstants.NODE_OP_TIMEOUT);
+			localContact = getComponent().getLocalContact();
+			tracker = new TrackerCallback();
+			toEntryPoint();
+		}
+		else {
+			log("not present!");
+			// finish without informing the monitor
+			operationFinished(false);
+		}
+	}
+
+
+
+	@Override
+	protected SearchQueryMessage buildMessage(ApplicationContact entryPoint) {
+		List<SearchQuery> queries = new LinkedList<>();
+		queries.add(query);
+		return new SearchQueryMessage(
+				localContact,
+				entryPoint,
+				getOperationID(),
+				queries,
+				tracker);
+	}
+
+
+
+	@Override
+	protected void sendMessage(AbstractSkipgraphMessage message) {
+		this.getComponent().getCommunicationManager().send(
+				message,
+
+				new DefaultSkipGTransMessageCallback() {
+
+					@Override
+					public void receive(Message answerMsg, TransInfo senderInfo, int commId) {
+						bootstrapMessages++;
+						// successful
+						if (answerMsg instanceof SearchQueryACKMessage) {
+							log("ACK received -> waiting for search results.");
+							return;
+						}
+
+						// unsuccessful
+						if (answerMsg instanceof SearchQueryNACKMessage){
+							log("NACK received -> no skip graph node available.");
+						}
+						else if (answerMsg instanceof DefaultNACKMessage){
+							log("DefaultNACK received -> no skip graph node available.");
+						}
+						else {
+							log("an error occurred! We received a message we are not expecting: "+answerMsg);
+						}
+
+						if (getNumberOfStartedLookups() < getMaxNumberOfLookups()) {
+							retry();
+						}
+						else {
+							// all retries failed
+							log("lookupCounter="+getNumberOfStartedLookups()+". all retries failed. giving up.");
+							finishOperation(false);
+						}
+					}
+
+				},
+
+				new DefaultSGCommunicationCallback()
+			);
+
+		this.incrementLookupCounter();
+		bootstrapMessages++;
+	}
+
+
+
+	@Override
+	public boolean deliverMessage(AbstractSkipgraphMessage message) {
+		if (message instanceof SearchResultSerialMessage) {
+			hops.add(getComponent().getLocalContact().getPeerID());
+			handleResults((SearchResultSerialMessage)message);
+			return true;
+		}
+		else {
+			log("received a message we can not understand "+message);
+			return false;
+		}
+	}
+
+
+
+	private void handleResults(SearchResultSerialMessage message) {
+		log("handle "+message);
+		resultsPerMessage.put(message.getCounter(),
+				getComponent().getContactPool().internAll(message.getResults()));
+		if (message.isLastMessage()) {
+			lastMessageCounter = message.getCounter();
+		}
+
+		// collect the results of the walk in order, as far as they have arrived without gaps
+		Set<ApplicationContact> orderedResults = new LinkedHashSet<>();
+		int expectedCounter = 1;
+		for (int counter : resultsPerMessage.keySet()) {
+			if (counter != expectedCounter) {
+				break;
+			}
+			orderedResults.addAll(resultsPerMessage.get(counter));
+			expectedCounter++;
+		}
+
+		// we end the search if we have received enough results
+		if (0 < k && k <= orderedResults.size()) {
+			this.results = new LinkedHashSet<>((new LinkedList<>(orderedResults)).subList(0, k));
+			log("final k="+k+" results="+this.results+"\ndone!");
+			finishOperation(true);
+			return;
+		}
+
+		// or if the walk is complete
+		if (0 < lastMessageCounter && lastMessageCounter < expectedCounter) {
+			log("all result messages received");
+			this.results = orderedResults;
+			finishOperation(true);
+			return;
+		}
+
+		log("not done");
+	}
+
+
+	@Override
+	protected void operationTimeoutOccured() {
+		log("operation timeout occured. ", true);
+		finishOperation(false);
+	}
+
+
+	@Override
+	protected void finishOperation(boolean success) {
+		log("results="+results);
+		// call the callback
+		operationFinished(success);
+		// call the monitor and push the data!
+		if (Simulator.getMonitor() instanceof SkipgraphMonitor) {
+			((SkipgraphMonitor)Simulator.getMonitor())
+					.searchFinished(localContact, success);
+			((SkipgraphMonitor)Simulator.getMonitor())
+					.addSearchQueryDuration(localContact, getDuration());
+			((SkipgraphMonitor)Simulator.getMonitor())
+					.addSearchQueryMessageCount(localContact, bootstrapMessages,
+							n_ACKs, forwardingMessages, replyMessages);
+			Set<BigInteger> distinctHops = new LinkedHashSet<>(hops);
+			((SkipgraphMonitor)Simulator.getMonitor())
+					.addSearchQueryHopCount(localContact, hops.size(), distinctHops.size());
+			((SkipgraphMonitor)Simulator.getMonitor())
+					.bootstrapAttempts(localContact, bootstrapAttempts);
+		}
+	}
+
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2012-2013 Open Source Community - <http://www.peerfact.org>
+ * Copyright (c) 2011-2012 University of Paderborn - UPB
+ * Copyright (c) 2005-2011 KOM - Multimedia Communications Lab
+ *
+ * This file is part of PeerfactSim.KOM.
+ *
+ * PeerfactSim.KOM is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * PeerfactSim.KOM is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PeerfactSim.KOM.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.peerfact.impl.service.skipgraph.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.peerfact.Constants;
+import org.peerfact.impl.util.communicationmanager.ApplicationContact;
+
+/**
+ * A Bloom filter over a set of {@link ApplicationContact}s. The filter may report
+ * contacts that are not in the set (false positives), but never misses one.
+ *
+ * Used by the semi-join search: the candidates of the most selective dimension travel
+ * with the remaining queries, so nodes only return contacts that can still qualify.
+ *
+ * @author Andreas Funke
+ * @version 1.0, 03/22/2017
+ */
+public class ContactFilter {
+
+	/* *******************************************
+	 ****************** FIELDS *******************
+	 ******************************************* */
+
+	private final long[] bits;
+
+	private final int numberOfBits;
+
+	private final int numberOfHashes;
+
+
+
+	/* *************************************************
+	 ****************** CONSTRUCTORS *******************
+	 ************************************************* */
+
+	/**
+	 * @param bitsPerContact	10 bits per contact result in a false positive rate of about 1%
+	 */
+	public ContactFilter(Collection<ApplicationContact> contacts, int bitsPerContact) {
+		this.numberOfBits = Math.max(Long.SIZE, contacts.size() * bitsPerContact);
+		this.bits = new long[(numberOfBits + Long.SIZE - 1) / Long.SIZE];
+		// optimal number of hash functions: ln(2) * bits per contact
+		this.numberOfHashes = Math.max(1, (int)Math.round(Math.log(2) * bitsPerContact));
+		for (ApplicationContact contact : contacts) {
+			int hash1 = hash(contact);
+			int hash2 = mix(hash1);
+			for (int i = 0; i < numberOfHashes; i++) {
+				int bit = index(hash1 + i * hash2);
+				bits[bit / Long.SIZE] |= 1L << (bit % Long.SIZE);
+			}
+		}
+	}
+
+
+	private ContactFilter(long[] bits, int numberOfBits, int numberOfHashes) {
+		this.bits = bits;
+		this.numberOfBits = numberOfBits;
+		this.numberOfHashes = numberOfHashes;
+	}
+
+
+
+	/* *************************************************
+	 ****************** METHODS ************************
+	 ***************************************************/
+
+	/**
+	 * @return	false if the contact is definitely not in the set
+	 */
+	public boolean mightContain(ApplicationContact contact) {
+		int hash1 = hash(contact);
+		int hash2 = mix(hash1);
+		for (int i = 0; i < numberOfHashes; i++) {
+			int bit = index(hash1 + i * hash2);
+			if ((bits[bit / Long.SIZE] & (1L << (bit % Long.SIZE))) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	public ContactFilter copy() {
+		return new ContactFilter(Arrays.copyOf(bits, bits.length), numberOfBits, numberOfHashes);
+	}
+
+
+	public long getTransmissionSize() {
+		// bits + number of bits + number of hash functions
+		return bits.length * Constants.LONG_SIZE + 2 * Constants.INT_SIZE;
+	}
+
+
+	private int index(int hash) {
+		return (hash & Integer.MAX_VALUE) % numberOfBits;
+	}
+
+
+	private static int hash(ApplicationContact contact) {
+		return mix(contact.hashCode());
+	}
+
+
+	/**
+	 * scrambles the bits of a hash code (finalizer of MurmurHash3)
+	 */
+	private static int mix(int hash) {
+		hash ^= hash >>> 16;
+		hash *= 0x85ebca6b;
+		hash ^= hash >>> 13;
+		hash *= 0xc2b2ae35;
+		hash ^= hash >>> 16;
+		return hash;
+	}
+
+
+	@Override
+	public String toString() {
+		return "ContactFilter [bits="+numberOfBits+", hashes="+numberOfHashes+"]";
+	}
+
+}
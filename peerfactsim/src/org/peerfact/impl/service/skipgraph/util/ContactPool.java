@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2012-2013 Open Source Community - <http://www.peerfact.org>
+ * Copyright (c) 2011-2012 University of Paderborn - UPB
+ * Copyright (c) 2005-2011 KOM - Multimedia Communications Lab
+ *
+ * This file is part of PeerfactSim.KOM.
+ *
+ * PeerfactSim.KOM is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * PeerfactSim.KOM is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PeerfactSim.KOM.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.peerfact.impl.service.skipgraph.util;
+
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.peerfact.impl.util.communicationmanager.ApplicationContact;
+
+/**
+ * Interns the {@link ApplicationContact}s of a SkipgraphService. Every message delivers
+ * its own copies of the contacts. Elements, buffered updates and search results of all
+ * nodes of a service share one instance per peer instead.
+ *
+ * Contacts are only weakly referenced: an entry is dropped as soon as no element or
+ * result refers to the contact anymore.
+ *
+ * @author Andreas Funke
+ * @version 1.0, 03/22/2017
+ */
+public class ContactPool {
+
+	/* *******************************************
+	 ****************** FIELDS *******************
+	 ******************************************* */
+
+	private final WeakHashMap<ApplicationContact, WeakReference<ApplicationContact>> pool = new WeakHashMap<>();
+
+
+
+	/* *************************************************
+	 ****************** METHODS ************************
+	 ***************************************************/
+
+	/**
+	 * @return	the pooled instance of an equal contact. the given contact is added to
+	 * 			the pool if there is none.
+	 */
+	public ApplicationContact intern(ApplicationContact contact) {
+		if (contact == null) {
+			return null;
+		}
+		WeakReference<ApplicationContact> reference = pool.get(contact);
+		ApplicationContact pooled = reference == null ? null : reference.get();
+		if (pooled == null) {
+			pool.put(contact, new WeakReference<>(contact));
+			return contact;
+		}
+		return pooled;
+	}
+
+
+	/**
+	 * @return	a new set with the pooled instances of the given contacts in the same order
+	 */
+	public Set<ApplicationContact> internAll(Collection<ApplicationContact> contacts) {
+		Set<ApplicationContact> pooled = new LinkedHashSet<>();
+		for (ApplicationContact contact : contacts) {
+			pooled.add(intern(contact));
+		}
+		return pooled;
+	}
+
+
+	/**
+	 * @return	the number of pooled contacts
+	 */
+	public int size() {
+		return pool.size();
+	}
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2012-2013 Open Source Community - <http://www.peerfact.org>
+ * Copyright (c) 2011-2012 University of Paderborn - UPB
+ * Copyright (c) 2005-2011 KOM - Multimedia Communications Lab
+ *
+ * This file is part of PeerfactSim.KOM.
+ *
+ * PeerfactSim.KOM is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * PeerfactSim.KOM is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PeerfactSim.KOM.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.peerfact.impl.service.skipgraph.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps dimension names to compact integer ids. Elements, queries and search results
+ * refer to their dimension by id, names are only used at the application interface
+ * and for logging.
+ *
+ * The set of dimensions is known to all peers (e.g. the AvailableCapacities of the
+ * capacity manager), so a dimension is registered globally with its first use.
+ *
+ * @author Andreas Funke
+ * @version 1.0, 03/22/2017
+ */
+public class DimensionRegistry {
+
+	/* *******************************************
+	 ****************** FIELDS *******************
+	 ******************************************* */
+
+	/** id -> name */
+	private static final List<String> names = new ArrayList<>();
+
+	/** name -> id */
+	private static final Map<String, Integer> ids = new LinkedHashMap<>();
+
+
+
+	/* *************************************************
+	 ****************** METHODS ************************
+	 ***************************************************/
+
+	/**
+	 * @param name	null -> ""
+	 * @return		the id of the dimension. unknown dimensions are registered.
+	 */
+	public static int getId(String name) {
+		if (name == null) {
+			name = "";
+		}
+		Integer id = ids.get(name);
+		if (id == null) {
+			id = names.size();
+			names.add(name);
+			ids.put(name, id);
+		}
+		return id;
+	}
+
+
+	/**
+	 * @return	the name of a registered dimension
+	 */
+	public static String getName(int id) {
+		return names.get(id);
+	}
+
+
+	/**
+	 * @return	the number of registered dimensions
+	 */
+	public static int size() {
+		return names.size();
+	}
+
+}
@@ -263,10 +263,10 @@ public class DotFileBuilder {
 		sb.append(String.format("\t\t\t\t<B>ID: %d %s %s, %s)</B> on peer=%s<BR ALIGN=\"LEFT\"/>\n",
 				node.getGlobalCountID(),
 				SGUtil.formatID(node.getNodeID()),
-				elementTable.getRangeStart() == null ? "(-inf" : "["+elementTable.getRangeStart(),
-				elementTable.getRangeEnd() == null ? "inf" : elementTable.getRangeEnd(),
+				elementTable.getRangeStart() == SkipgraphServiceConstants.NEGATIVE_INFINITY ? 
+						"(-inf" : "["+SGUtil.formatValue(elementTable.getRangeStart()),
+				SGUtil.formatValue(elementTable.getRangeEnd()),
 				SGUtil.formatID(peerID)));
-		elementTable.sort();
 		for (int i = 0; i < elementTable.size(); i++) {
 			sb.append(String.format("\t\t\t\t%s<BR ALIGN=\"LEFT\"/>\n", elementTable.get(i)));
 		}
@@ -287,13 +287,15 @@ public class DotFileBuilder {
 			
 			SkipgraphContact prev = contactTable.getLevel(i).getPrevContact(); 
 			Integer prevID = nodeIdToCountId.get(prev.getNodeID().toString());
-			String prevStart = prev.getRangeStart() == null ? "(-inf" : "["+prev.getRangeStart().toString();
-			String prevEnd = prev.getRangeEnd() == null ? "inf)" : prev.getRangeEnd().toString()+")";
+			String prevStart = prev.getRangeStart() == SkipgraphServiceConstants.NEGATIVE_INFINITY ? 
+					"(-inf" : "["+SGUtil.formatValue(prev.getRangeStart());
+			String prevEnd = SGUtil.formatValue(prev.getRangeEnd())+")";
 
 			SkipgraphContact next = contactTable.getLevel(i).getNextContact(); 
 			Integer nextID = nodeIdToCountId.get(next.getNodeID().toString());
-			String nextStart = next.getRangeStart() == null ? "(-inf" : "["+next.getRangeStart().toString();
-			String nextEnd = next.getRangeEnd() == null ? "inf)" : next.getRangeEnd().toString()+")";
+			String nextStart = next.getRangeStart() == SkipgraphServiceConstants.NEGATIVE_INFINITY ? 
+					"(-inf" : "["+SGUtil.formatValue(next.getRangeStart());
+			String nextEnd = SGUtil.formatValue(next.getRangeEnd())+")";
 
 			sb.append(String.format("\t\t\t\t%d_%d: prev=%d %s, %s, next=%d %s, %s<BR ALIGN=\"LEFT\"/>\n", 
 					i, prefix, prevID, prevStart, prevEnd, nextID, nextStart, nextEnd));
@@ -306,7 +308,8 @@ public class DotFileBuilder {
 		ContactTable contactTable = node.getContactTable();
 		String key = "";
 		for (int i=0; i<contactTable.size(); i++) {
-			key += Integer.toString(contactTable.getLevel(i).getPrefix());
+			// one digit per level, also for more than 10 prefixes
+			key += Character.forDigit(contactTable.getLevel(i).getPrefix(), SkipgraphServiceConstants.levelPrefixArity);
 			if (graphPerLevelAndPrefixMap.containsKey(key)) {
 				LevelMapTuple tuple = new LevelMapTuple(node.getGlobalCountID(), i, contactTable.getLevel(i));
 				graphPerLevelAndPrefixMap.get(key).add(tuple);
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2012-2013 Open Source Community - <http://www.peerfact.org>
+ * Copyright (c) 2011-2012 University of Paderborn - UPB
+ * Copyright (c) 2005-2011 KOM - Multimedia Communications Lab
+ *
+ * This file is part of PeerfactSim.KOM.
+ *
+ * PeerfactSim.KOM is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * PeerfactSim.KOM is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PeerfactSim.KOM.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.peerfact.impl.service.skipgraph.util;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.peerfact.impl.service.skipgraph.SkipgraphServiceConstants;
+import org.peerfact.impl.service.skipgraph.node.NodeHistogram;
+import org.peerfact.impl.simengine.Simulator;
+
+/**
+ * The node summaries a service has learned by gossip, see {@link SkipgraphServiceConstants#histogramGossip}.
+ * The catalog keeps the most recent summary per node. A summary supersedes older summaries of
+ * overlapping ranges (the nodes have split or merged in between) and expires after
+ * {@link SkipgraphServiceConstants#HISTOGRAM_MAX_AGE}.
+ *
+ * The catalog usually knows only a part of the skip graph. Estimates for a bounded range are
+ * extrapolated from the share of the range that is covered by known nodes.
+ *
+ * @author Andreas Funke
+ * @version 1.0, 03/22/2017
+ */
+public class HistogramCatalog {
+
+	/* *******************************************
+	 ****************** FIELDS *******************
+	 ******************************************* */
+
+	public static final int UNKNOWN = -1;
+
+	/** node id -> summary */
+	private final Map<BigInteger, NodeHistogram> entries = new LinkedHashMap<>();
+
+
+
+	/* *************************************************
+	 ****************** METHODS ************************
+	 ***************************************************/
+
+	/**
+	 * @return	true if the summary was added
+	 */
+	public boolean put(NodeHistogram histogram) {
+		NodeHistogram current = entries.get(histogram.getNodeID());
+		if (current != null && current.getTimestamp() >= histogram.getTimestamp()) {
+			return false;
+		}
+		if (isExpired(histogram)) {
+			return false;
+		}
+		Iterator<NodeHistogram> it = entries.values().iterator();
+		while (it.hasNext()) {
+			NodeHistogram other = it.next();
+			if (other.getTimestamp() < histogram.getTimestamp()
+					&& other.overlaps(histogram.getRangeStart(), histogram.getRangeEnd())) {
+				it.remove();
+			}
+		}
+		entries.put(histogram.getNodeID(), histogram);
+		return true;
+	}
+
+
+	public void putAll(Collection<NodeHistogram> histograms) {
+		for (NodeHistogram histogram : histograms) {
+			put(histogram);
+		}
+	}
+
+
+	/**
+	 * @return	the most recent summaries, newest first
+	 */
+	public List<NodeHistogram> getRecent(int max) {
+		purge();
+		List<NodeHistogram> recent = new ArrayList<>(entries.values());
+		recent.sort((h1, h2) -> Long.compare(h2.getTimestamp(), h1.getTimestamp()));
+		return recent.size() > max ? new ArrayList<>(recent.subList(0, max)) : recent;
+	}
+
+
+	public int size() {
+		purge();
+		return entries.size();
+	}
+
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+
+	/**
+	 * @param start		fixed-point, inclusive
+	 * @param end		fixed-point, inclusive unless excludeEnd is set
+	 * @return			the estimated number of elements of the dimension in the interval.
+	 * 					UNKNOWN if no node of the interval is known.
+	 */
+	public double estimateCount(int dimension, long start, long end, boolean excludeEnd) {
+		purge();
+		double count = 0;
+		for (NodeHistogram histogram : entries.values()) {
+			count += histogram.estimate(dimension, start, end, excludeEnd);
+		}
+		double coverage = getCoverage(start, end);
+		return coverage > 0 ? count / coverage : UNKNOWN;
+	}
+
+
+	/**
+	 * @param start		fixed-point, inclusive
+	 * @param end		fixed-point, exclusive
+	 * @return			the estimated number of nodes of the interval. UNKNOWN if the 
+	 * 					interval is open or no node of the interval is known.
+	 */
+	public int estimateNodes(long start, long end) {
+		if (start == SkipgraphServiceConstants.NEGATIVE_INFINITY 
+				|| end == SkipgraphServiceConstants.POSITIVE_INFINITY) {
+			return UNKNOWN;
+		}
+		purge();
+		int nodes = 0;
+		for (NodeHistogram histogram : entries.values()) {
+			if (histogram.overlaps(start, end)) {
+				nodes++;
+			}
+		}
+		double coverage = getCoverage(start, end);
+		return coverage > 0 ? (int)Math.min(Integer.MAX_VALUE, Math.ceil(nodes / coverage)) : UNKNOWN;
+	}
+
+
+	/**
+	 * @return	the average number of elements of the dimension per known node, 0 if no node is known
+	 */
+	public double getAverageCount(int dimension) {
+		purge();
+		if (entries.isEmpty()) {
+			return 0;
+		}
+		double count = 0;
+		for (NodeHistogram histogram : entries.values()) {
+			count += histogram.getCount(dimension);
+		}
+		return count / entries.size();
+	}
+
+
+	/**
+	 * @return	the share of [start, end) covered by known nodes. 1 for open intervals
+	 * 			with at least one known node.
+	 */
+	private double getCoverage(long start, long end) {
+		boolean open = start == SkipgraphServiceConstants.NEGATIVE_INFINITY 
+				|| end == SkipgraphServiceConstants.POSITIVE_INFINITY;
+		double covered = 0;
+		for (NodeHistogram histogram : entries.values()) {
+			if (!histogram.overlaps(start, end)) {
+				continue;
+			}
+			if (open) {
+				return 1;
+			}
+			covered += (double)Math.min(end, histogram.getRangeEnd()) - (double)Math.max(start, histogram.getRangeStart());
+		}
+		return end > start ? Math.min(1, covered / ((double)end - (double)start)) : (covered > 0 ? 1 : 0);
+	}
+
+
+	private boolean isExpired(NodeHistogram histogram) {
+		return histogram.getTimestamp() + SkipgraphServiceConstants.HISTOGRAM_MAX_AGE < Simulator.getCurrentTime();
+	}
+
+
+	private void purge() {
+		entries.values().removeIf(this::isExpired);
+	}
+
+}
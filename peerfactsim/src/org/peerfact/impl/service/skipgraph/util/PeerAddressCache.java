@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2012-2013 Open Source Community - <http://www.peerfact.org>
+ * Copyright (c) 2011-2012 University of Paderborn - UPB
+ * Copyright (c) 2005-2011 KOM - Multimedia Communications Lab
+ *
+ * This file is part of PeerfactSim.KOM.
+ *
+ * PeerfactSim.KOM is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * PeerfactSim.KOM is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PeerfactSim.KOM.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.peerfact.impl.service.skipgraph.util;
+
+import java.math.BigInteger;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+
+import org.peerfact.impl.util.communicationmanager.ApplicationContact;
+
+/**
+ * Caches the peers hosting skip graph nodes (node ID -> contact of the peer). Node messages
+ * are routed by the DHT to the root of the node ID. With a known peer the message is sent to
+ * the peer directly instead (see AbstractSkipgraphNodeRequestMessage#setReceivingNodeID).
+ *
+ * A node moves to another peer if the root of its ID changes, so the entries are only hints.
+ * An entry is removed as soon as the peer doesn't host the node anymore. The least recently
+ * used entries are dropped if the cache is full.
+ *
+ * @author Andreas Funke
+ * @version 1.0, 03/22/2017
+ */
+public class PeerAddressCache {
+
+	/* *******************************************
+	 ****************** FIELDS *******************
+	 ******************************************* */
+
+	private final LinkedHashMap<BigInteger, ApplicationContact> peers;
+
+
+
+	/* *************************************************
+	 ****************** CONSTRUCTORS *******************
+	 ************************************************* */
+
+	public PeerAddressCache(final int capacity) {
+		this.peers = new LinkedHashMap<BigInteger, ApplicationContact>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = -6407357717830394581L;
+
+			@Override
+			protected boolean removeEldestEntry(Entry<BigInteger, ApplicationContact> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+
+
+	/* *************************************************
+	 ****************** METHODS ************************
+	 ***************************************************/
+
+	/**
+	 * @return	the peer hosting the node, null if unknown
+	 */
+	public ApplicationContact get(BigInteger nodeID) {
+		return peers.get(nodeID);
+	}
+
+
+	/**
+	 * @param peer	the contact of the peer (the sender of a message from the node)
+	 */
+	public void put(BigInteger nodeID, ApplicationContact peer) {
+		if (nodeID == null || peer == null) {
+			return;
+		}
+		peers.put(nodeID, peer);
+	}
+
+
+	public void remove(BigInteger nodeID) {
+		peers.remove(nodeID);
+	}
+
+
+	public int size() {
+		return peers.size();
+	}
+
+}
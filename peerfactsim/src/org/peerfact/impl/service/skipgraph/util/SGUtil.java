@@ -22,12 +22,15 @@
 
 package org.peerfact.impl.service.skipgraph.util;
 
+import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.math.RoundingMode;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
+import org.peerfact.impl.service.skipgraph.SkipgraphServiceConstants;
 import org.peerfact.impl.service.skipgraph.node.SkipgraphNode;
 import org.peerfact.impl.simengine.Simulator;
 import org.peerfact.impl.util.communicationmanager.ApplicationContact;
@@ -92,6 +95,61 @@ public class SGUtil {
 	}
 
 
+	/* ************************************************
+	 ***************** FIXED POINT ********************
+	 ************************************************ */
+
+	/**
+	 * encodes a decimal value as a fixed-point long with {@link SkipgraphServiceConstants#valueScale}
+	 * decimal places. values are rounded half up and clamped to the finite range.
+	 * 
+	 * @param value		the decimal value or null for an open limit
+	 * @param openValue	the value that is returned for null,
+	 * 					i.e. NEGATIVE_INFINITY for a range start and POSITIVE_INFINITY for a range end
+	 * @return			the fixed-point representation
+	 */
+	public static long toFixedPoint(BigDecimal value, long openValue) {
+		if (value == null)
+			return openValue;
+		
+		BigDecimal scaled = value.movePointRight(SkipgraphServiceConstants.valueScale).setScale(0, RoundingMode.HALF_UP);
+		if (scaled.compareTo(MIN_FIXED_POINT) < 0)
+			return SkipgraphServiceConstants.NEGATIVE_INFINITY + 1;
+		if (scaled.compareTo(MAX_FIXED_POINT) > 0)
+			return SkipgraphServiceConstants.POSITIVE_INFINITY - 1;
+		return scaled.longValue();
+	}
+	
+	
+	/**
+	 * decodes a fixed-point long to a decimal value.
+	 * @return	the decimal value or null if the value represents an open limit
+	 */
+	public static BigDecimal toDecimal(long value) {
+		if (value == SkipgraphServiceConstants.NEGATIVE_INFINITY || value == SkipgraphServiceConstants.POSITIVE_INFINITY)
+			return null;
+		
+		return BigDecimal.valueOf(value, SkipgraphServiceConstants.valueScale);
+	}
+	
+	
+	/**
+	 * formats a fixed-point long for logging. open limits are printed as -inf/inf.
+	 */
+	public static String formatValue(long value) {
+		if (value == SkipgraphServiceConstants.NEGATIVE_INFINITY)
+			return "-inf";
+		if (value == SkipgraphServiceConstants.POSITIVE_INFINITY)
+			return "inf";
+		
+		return toDecimal(value).toPlainString();
+	}
+	
+	private static final BigDecimal MIN_FIXED_POINT = BigDecimal.valueOf(SkipgraphServiceConstants.NEGATIVE_INFINITY + 1);
+	
+	private static final BigDecimal MAX_FIXED_POINT = BigDecimal.valueOf(SkipgraphServiceConstants.POSITIVE_INFINITY - 1);
+
+
 	/* ************************************************
 	 ****************** BOOTSTRAP *********************
 	 ************************************************ */
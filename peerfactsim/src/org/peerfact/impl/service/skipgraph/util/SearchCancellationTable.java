@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2012-2013 Open Source Community - <http://www.peerfact.org>
+ * Copyright (c) 2011-2012 University of Paderborn - UPB
+ * Copyright (c) 2005-2011 KOM - Multimedia Communications Lab
+ *
+ * This file is part of PeerfactSim.KOM.
+ *
+ * PeerfactSim.KOM is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * PeerfactSim.KOM is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PeerfactSim.KOM.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.peerfact.impl.service.skipgraph.util;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.peerfact.impl.simengine.Simulator;
+import org.peerfact.impl.util.communicationmanager.ApplicationContact;
+
+/**
+ * Keeps track of the parallel searches a SkipgraphService takes part in: to which
+ * services the search was forwarded and whether the requester has cancelled it.
+ * A search is identified by the requester and its operation ID.
+ * 
+ * Entries expire after a fixed time, so the table only holds recent searches.
+ *
+ * @author Andreas Funke
+ * @version 1.0, 03/22/2017
+ */
+public class SearchCancellationTable {
+
+	/* *******************************************
+	 ****************** FIELDS *******************
+	 ******************************************* */
+
+	private final long timeToLive;
+
+	/** requester -> operation ID -> search */
+	private final Map<ApplicationContact, Map<Integer, Search>> searches = new LinkedHashMap<>();
+
+	/** search -> expiration date, ordered by creation time */
+	private final LinkedHashMap<Search, Long> expirationDates = new LinkedHashMap<>();
+
+
+
+	/* *************************************************
+	 ****************** CONSTRUCTORS *******************
+	 ************************************************* */
+
+	public SearchCancellationTable(long timeToLive) {
+		this.timeToLive = timeToLive;
+	}
+
+
+
+	/* *************************************************
+	 ****************** METHODS ************************
+	 ***************************************************/
+
+	/**
+	 * @return	true if the requester has cancelled the search
+	 */
+	public boolean isCancelled(ApplicationContact requester, int requestOperationID) {
+		purge();
+		Search search = get(requester, requestOperationID, false);
+		return search != null && search.cancelled;
+	}
+
+
+	/**
+	 * remembers that the search was forwarded to the given service
+	 * @return	true if the search has already been cancelled. The receiver has to be
+	 * 			informed then.
+	 */
+	public boolean addForwarding(ApplicationContact requester, int requestOperationID, ApplicationContact receiver) {
+		purge();
+		Search search = get(requester, requestOperationID, true);
+		if (search.cancelled) {
+			return true;
+		}
+		search.forwardedTo.add(receiver);
+		return false;
+	}
+
+
+	/**
+	 * marks the search as cancelled
+	 * @return	the services the search was forwarded to. empty if the search had
+	 * 			already been cancelled before.
+	 */
+	public Set<ApplicationContact> cancel(ApplicationContact requester, int requestOperationID) {
+		purge();
+		Search search = get(requester, requestOperationID, true);
+		if (search.cancelled) {
+			return Collections.emptySet();
+		}
+		search.cancelled = true;
+		Set<ApplicationContact> forwardedTo = search.forwardedTo;
+		search.forwardedTo = new LinkedHashSet<>();
+		return forwardedTo;
+	}
+
+
+	/**
+	 * @return	the number of tracked searches
+	 */
+	public int size() {
+		return expirationDates.size();
+	}
+
+
+	private Search get(ApplicationContact requester, int requestOperationID, boolean create) {
+		Map<Integer, Search> searchesOfRequester = searches.get(requester);
+		Search search = searchesOfRequester == null ? null : searchesOfRequester.get(requestOperationID);
+		if (search == null && create) {
+			if (searchesOfRequester == null) {
+				searchesOfRequester = new LinkedHashMap<>();
+				searches.put(requester, searchesOfRequester);
+			}
+			search = new Search(requester, requestOperationID);
+			searchesOfRequester.put(requestOperationID, search);
+			expirationDates.put(search, Simulator.getCurrentTime() + timeToLive);
+		}
+		return search;
+	}
+
+
+	/**
+	 * drops expired searches. the entries are ordered by expiration date.
+	 */
+	private void purge() {
+		long now = Simulator.getCurrentTime();
+		Iterator<Map.Entry<Search, Long>> it = expirationDates.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<Search, Long> entry = it.next();
+			if (entry.getValue() > now) {
+				break;
+			}
+			Search search = entry.getKey();
+			Map<Integer, Search> searchesOfRequester = searches.get(search.requester);
+			searchesOfRequester.remove(search.requestOperationID);
+			if (searchesOfRequester.isEmpty()) {
+				searches.remove(search.requester);
+			}
+			it.remove();
+		}
+	}
+
+
+
+	private static class Search {
+
+		private final ApplicationContact requester;
+
+		private final int requestOperationID;
+
+		private Set<ApplicationContact> forwardedTo = new LinkedHashSet<>();
+
+		private boolean cancelled = false;
+
+		private Search(ApplicationContact requester, int requestOperationID) {
+			this.requester = requester;
+			this.requestOperationID = requestOperationID;
+		}
+	}
+
+}
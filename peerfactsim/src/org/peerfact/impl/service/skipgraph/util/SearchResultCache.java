@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2012-2013 Open Source Community - <http://www.peerfact.org>
+ * Copyright (c) 2011-2012 University of Paderborn - UPB
+ * Copyright (c) 2005-2011 KOM - Multimedia Communications Lab
+ *
+ * This file is part of PeerfactSim.KOM.
+ *
+ * PeerfactSim.KOM is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * PeerfactSim.KOM is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PeerfactSim.KOM.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.peerfact.impl.service.skipgraph.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.peerfact.impl.application.capacitymanager.CapacityManagerApplicationConstants;
+import org.peerfact.impl.service.skipgraph.SearchQuery;
+import org.peerfact.impl.simengine.Simulator;
+import org.peerfact.impl.util.communicationmanager.ApplicationContact;
+
+/**
+ * Caches the complete results (contacts per dimension) of parallel searches. Entries are
+ * keyed by the normalized list of queries: dimension, range, open range end and the
+ * maximum number of values (the k of a single-dimension search). The order of the
+ * queries doesn't matter.
+ *
+ * Capacities are published once per store capacity interval, so an entry expires
+ * one interval after it was first put. The cache is filled and read by the requester
+ * of a search. The least recently used entries are dropped if the cache is full.
+ *
+ * @author Andreas Funke
+ * @version 1.0, 03/22/2017
+ */
+public class SearchResultCache {
+
+	/* *******************************************
+	 ****************** FIELDS *******************
+	 ******************************************* */
+
+	private final LinkedHashMap<Key, CachedResults> entries;
+
+
+
+	/* *************************************************
+	 ****************** CONSTRUCTORS *******************
+	 ************************************************* */
+
+	public SearchResultCache(final int capacity) {
+		this.entries = new LinkedHashMap<Key, CachedResults>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = -2086545297815418519L;
+
+			@Override
+			protected boolean removeEldestEntry(Entry<Key, CachedResults> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+
+
+	/* *************************************************
+	 ****************** METHODS ************************
+	 ***************************************************/
+
+	/**
+	 * @return	false for aggregate queries, batched queries and queries which depend on the 
+	 * 			state of a single search (e.g. the candidates of a semi-join search or the box
+	 * 			of a composite index search, which is not part of the key)
+	 */
+	public static boolean isCacheable(List<SearchQuery> queries) {
+		if (queries == null || queries.isEmpty()) {
+			return false;
+		}
+		for (SearchQuery query : queries) {
+			if (query.getCandidates() != null || query.getAggregate() != null || query.getSearchIndex() >= 0
+					|| query.getBox() != null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * @return	a copy of the cached results, null if there are none or they have expired
+	 */
+	public Map<Integer, Set<ApplicationContact>> get(List<SearchQuery> queries) {
+		Key key = new Key(queries);
+		CachedResults cached = entries.get(key);
+		if (cached == null) {
+			return null;
+		}
+		if (cached.expirationDate <= Simulator.getCurrentTime()) {
+			entries.remove(key);
+			return null;
+		}
+		Map<Integer, Set<ApplicationContact>> results = new LinkedHashMap<>();
+		for (Entry<Integer, Set<ApplicationContact>> entry : cached.results.entrySet()) {
+			results.put(entry.getKey(), new LinkedHashSet<>(entry.getValue()));
+		}
+		return results;
+	}
+
+
+	/**
+	 * @param results	the complete results per dimension
+	 */
+	public void put(List<SearchQuery> queries, Map<Integer, Set<ApplicationContact>> results) {
+		if (!isCacheable(queries)) {
+			return;
+		}
+		Map<Integer, Set<ApplicationContact>> resultsCopy = new LinkedHashMap<>();
+		for (Entry<Integer, Set<ApplicationContact>> entry : results.entrySet()) {
+			resultsCopy.put(entry.getKey(), Collections.unmodifiableSet(new LinkedHashSet<>(entry.getValue())));
+		}
+		// an entry which is put again keeps its expiration date, it doesn't get any fresher
+		Key key = new Key(queries);
+		long expirationDate = Simulator.getCurrentTime() + CapacityManagerApplicationConstants.getStoreCapacityInterval();
+		CachedResults previous = entries.get(key);
+		if (previous != null && previous.expirationDate > Simulator.getCurrentTime()) {
+			expirationDate = previous.expirationDate;
+		}
+		entries.put(key, new CachedResults(resultsCopy, expirationDate));
+	}
+
+
+	/**
+	 * @return	the number of cached entries, including expired ones
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+
+
+	private static class CachedResults {
+
+		private final Map<Integer, Set<ApplicationContact>> results;
+
+		private final long expirationDate;
+
+		private CachedResults(Map<Integer, Set<ApplicationContact>> results, long expirationDate) {
+			this.results = results;
+			this.expirationDate = expirationDate;
+		}
+	}
+
+
+
+	/**
+	 * the queries as rows of (dimension, range start, range end, open range end, max number
+	 * of values), sorted row by row
+	 */
+	private static class Key {
+
+		private static final int COLUMNS = 5;
+
+		private final long[] rows;
+
+		private final int hashCode;
+
+		private Key(List<SearchQuery> queries) {
+			long[][] unsorted = new long[queries.size()][];
+			for (int i = 0; i < unsorted.length; i++) {
+				SearchQuery query = queries.get(i);
+				unsorted[i] = new long[] {
+						query.getDimensionId(),
+						query.getRangeStart(),
+						query.getRangeEnd(),
+						query.hasOpenRangeEnd() ? 1 : 0,
+						Math.max(0, query.getMaxNumberOfValues()) };
+			}
+			Arrays.sort(unsorted, (a, b) -> {
+				for (int column = 0; column < COLUMNS; column++) {
+					int comparison = Long.compare(a[column], b[column]);
+					if (comparison != 0) {
+						return comparison;
+					}
+				}
+				return 0;
+			});
+			rows = new long[unsorted.length * COLUMNS];
+			for (int i = 0; i < unsorted.length; i++) {
+				System.arraycopy(unsorted[i], 0, rows, i * COLUMNS, COLUMNS);
+			}
+			hashCode = Arrays.hashCode(rows);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+			return Arrays.equals(rows, ((Key)obj).rows);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+
+}
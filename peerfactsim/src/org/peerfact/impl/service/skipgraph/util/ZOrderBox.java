@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2012-2013 Open Source Community - <http://www.peerfact.org>
+ * Copyright (c) 2011-2012 University of Paderborn - UPB
+ * Copyright (c) 2005-2011 KOM - Multimedia Communications Lab
+ *
+ * This file is part of PeerfactSim.KOM.
+ *
+ * PeerfactSim.KOM is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * PeerfactSim.KOM is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PeerfactSim.KOM.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.peerfact.impl.service.skipgraph.util;
+
+import java.util.Arrays;
+
+import org.peerfact.Constants;
+
+/**
+ * A box in the grid of a {@link ZOrderCurve}, given by the lower and upper cell per
+ * dimension. The key ranges of a box query also cover cells outside of the box, so
+ * the box travels with the queries and the nodes only return elements whose key
+ * lies inside of it.
+ *
+ * @author Andreas Funke
+ * @version 1.0, 03/22/2017
+ */
+public class ZOrderBox {
+
+	/* *******************************************
+	 ****************** FIELDS *******************
+	 ******************************************* */
+
+	private final int numberOfDimensions;
+
+	private final int bitsPerDimension;
+
+	/** the lower cell per dimension (inclusive) */
+	private final long[] low;
+
+	/** the upper cell per dimension (inclusive) */
+	private final long[] high;
+
+
+
+	/* *************************************************
+	 ****************** CONSTRUCTORS *******************
+	 ************************************************* */
+
+	ZOrderBox(int numberOfDimensions, int bitsPerDimension, long[] low, long[] high) {
+		this.numberOfDimensions = numberOfDimensions;
+		this.bitsPerDimension = bitsPerDimension;
+		this.low = low;
+		this.high = high;
+	}
+
+
+
+	/* *************************************************
+	 ****************** METHODS ************************
+	 ***************************************************/
+
+	/**
+	 * @param key	a key of the curve the box was created by
+	 * @return		true if the cell of the key is inside of the box
+	 */
+	public boolean contains(long key) {
+		for (int j = 0; j < numberOfDimensions; j++) {
+			long cell = 0;
+			for (int bit = 0; bit < bitsPerDimension; bit++) {
+				cell |= ((key >>> (bit * numberOfDimensions + j)) & 1L) << bit;
+			}
+			if (cell < low[j] || cell > high[j]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	public ZOrderBox copy() {
+		return new ZOrderBox(numberOfDimensions, bitsPerDimension, 
+				Arrays.copyOf(low, low.length), Arrays.copyOf(high, high.length));
+	}
+
+
+	public long getTransmissionSize() {
+		// number of dimensions + bits per dimension + lower and upper cells
+		return 2 * Constants.INT_SIZE + 2 * numberOfDimensions * Constants.LONG_SIZE;
+	}
+
+
+	@Override
+	public String toString() {
+		return "ZOrderBox "+Arrays.toString(low)+" - "+Arrays.toString(high);
+	}
+
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2012-2013 Open Source Community - <http://www.peerfact.org>
+ * Copyright (c) 2011-2012 University of Paderborn - UPB
+ * Copyright (c) 2005-2011 KOM - Multimedia Communications Lab
+ *
+ * This file is part of PeerfactSim.KOM.
+ *
+ * PeerfactSim.KOM is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * PeerfactSim.KOM is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PeerfactSim.KOM.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package org.peerfact.impl.service.skipgraph.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Maps points of a multi-dimensional grid to a single key along a Z-order curve. The
+ * bits of the grid coordinates are interleaved, so points that are close in all dimensions
+ * tend to get close keys. A composite index stores one key per point as the value of
+ * a single skip graph dimension. A box query is answered by searching a few key ranges.
+ *
+ * Each dimension covers the values [0, domainSize). The number of bits per dimension is
+ * limited, so that the keys fit into a fixed-point value. Larger domains are quantized.
+ *
+ * @author Andreas Funke
+ * @version 1.0, 03/22/2017
+ */
+public class ZOrderCurve {
+
+	/* *******************************************
+	 ****************** FIELDS *******************
+	 ******************************************* */
+
+	/** the keys use at most this many bits, so they stay below POSITIVE_INFINITY */
+	private static final int MAX_KEY_BITS = 62;
+
+	private final int numberOfDimensions;
+
+	private final long domainSize;
+
+	private final int bitsPerDimension;
+
+
+
+	/* *************************************************
+	 ****************** CONSTRUCTORS *******************
+	 ************************************************* */
+
+	/**
+	 * @param numberOfDimensions	1 to {@value #MAX_KEY_BITS}
+	 * @param domainSize			the number of values per dimension
+	 */
+	public ZOrderCurve(int numberOfDimensions, long domainSize) {
+		if (numberOfDimensions < 1 || numberOfDimensions > MAX_KEY_BITS) {
+			throw new IllegalArgumentException("unsupported number of dimensions: "+numberOfDimensions);
+		}
+		if (domainSize < 1) {
+			throw new IllegalArgumentException("domain size must be positive: "+domainSize);
+		}
+		this.numberOfDimensions = numberOfDimensions;
+		this.domainSize = domainSize;
+		int bitsNeeded = Math.max(1, 64 - Long.numberOfLeadingZeros(domainSize - 1));
+		this.bitsPerDimension = Math.min(bitsNeeded, MAX_KEY_BITS / numberOfDimensions);
+	}
+
+
+
+	/* ************************************************
+	 ****************** GETTERS ***********************
+	 ************************************************ */
+
+	public int getNumberOfDimensions() {
+		return numberOfDimensions;
+	}
+
+	public int getBitsPerDimension() {
+		return bitsPerDimension;
+	}
+
+	/**
+	 * @return	the grid cell of a value. values outside of the domain are clamped.
+	 */
+	public long getCell(long value) {
+		value = Math.max(0, Math.min(domainSize - 1, value));
+		long cells = 1L << bitsPerDimension;
+		if (domainSize <= cells) {
+			return value;
+		}
+		return value * cells / domainSize;
+	}
+
+
+
+	/* *************************************************
+	 ****************** METHODS ************************
+	 ***************************************************/
+
+	/**
+	 * @param values	one value per dimension
+	 * @return			the key of the point
+	 */
+	public long encode(long[] values) {
+		checkDimensions(values);
+		long[] cells = new long[numberOfDimensions];
+		for (int j = 0; j < numberOfDimensions; j++) {
+			cells[j] = getCell(values[j]);
+		}
+		return interleave(cells);
+	}
+
+
+	/**
+	 * @param start		the lower corner of the box, one value per dimension (inclusive)
+	 * @param end		the upper corner of the box, one value per dimension (inclusive)
+	 * @return			the cells of the box, null if the box is empty
+	 */
+	public ZOrderBox getBox(long[] start, long[] end) {
+		checkDimensions(start);
+		checkDimensions(end);
+		long[] low = new long[numberOfDimensions];
+		long[] high = new long[numberOfDimensions];
+		for (int j = 0; j < numberOfDimensions; j++) {
+			low[j] = getCell(start[j]);
+			high[j] = getCell(end[j]);
+			if (low[j] > high[j]) {
+				return null;
+			}
+		}
+		return new ZOrderBox(numberOfDimensions, bitsPerDimension, low, high);
+	}
+
+
+	/**
+	 * Covers a box with key ranges. The key space is refined level by level like a
+	 * quadtree. Sub-cubes inside the box become ranges, sub-cubes on the border of the
+	 * box are refined further. If the next level would exceed the maximum number of ranges,
+	 * the remaining border cubes are taken as a whole. In that case (and if the domain
+	 * is quantized) the ranges contain points outside of the box, see {@link #getBox}.
+	 *
+	 * @param start		the lower corner of the box, one value per dimension (inclusive)
+	 * @param end		the upper corner of the box, one value per dimension (inclusive)
+	 * @param maxRanges	<=0 -> no limit
+	 * @return			disjoint key ranges {start, end} (both inclusive) in ascending order
+	 */
+	public List<long[]> decompose(long[] start, long[] end, int maxRanges) {
+		checkDimensions(start);
+		checkDimensions(end);
+		long[] low = new long[numberOfDimensions];
+		long[] high = new long[numberOfDimensions];
+		for (int j = 0; j < numberOfDimensions; j++) {
+			low[j] = getCell(start[j]);
+			high[j] = getCell(end[j]);
+			if (low[j] > high[j]) {
+				// empty box
+				return new ArrayList<>();
+			}
+		}
+
+		List<long[]> covered = new ArrayList<>();
+		// the key starts of the border cubes of the current level
+		List<Long> border = new ArrayList<>();
+		border.add(0L);
+		// the number of keys of a border cube
+		long borderKeys = 1L << (numberOfDimensions * bitsPerDimension);
+		for (int level = 0; level < bitsPerDimension && !border.isEmpty(); level++) {
+			int side = bitsPerDimension - level - 1;
+			long childKeys = 1L << (numberOfDimensions * side);
+			List<long[]> nextCovered = new ArrayList<>(covered);
+			List<Long> nextBorder = new ArrayList<>();
+			for (long cubeKey : border) {
+				for (long child = 0; child < (1L << numberOfDimensions); child++) {
+					long childKey = cubeKey + child * childKeys;
+					int relation = relate(deinterleave(childKey), 1L << side, low, high);
+					if (relation > 0) {
+						nextCovered.add(new long[] { childKey, childKey + childKeys - 1 });
+					}
+					else if (relation == 0) {
+						nextBorder.add(childKey);
+					}
+				}
+			}
+			if (maxRanges > 0 && merge(nextCovered, nextBorder, childKeys).size() > maxRanges) {
+				break;
+			}
+			covered = nextCovered;
+			border = nextBorder;
+			borderKeys = childKeys;
+		}
+		return merge(covered, border, borderKeys);
+	}
+
+
+
+	/* *************************************************
+	 ****************** HELPERS ************************
+	 ***************************************************/
+
+	private void checkDimensions(long[] values) {
+		if (values.length != numberOfDimensions) {
+			throw new IllegalArgumentException("expected "+numberOfDimensions+" values, got "+values.length);
+		}
+	}
+
+
+	private long interleave(long[] cells) {
+		long key = 0;
+		for (int bit = 0; bit < bitsPerDimension; bit++) {
+			for (int j = 0; j < numberOfDimensions; j++) {
+				key |= ((cells[j] >>> bit) & 1L) << (bit * numberOfDimensions + j);
+			}
+		}
+		return key;
+	}
+
+
+	private long[] deinterleave(long key) {
+		long[] cells = new long[numberOfDimensions];
+		for (int bit = 0; bit < bitsPerDimension; bit++) {
+			for (int j = 0; j < numberOfDimensions; j++) {
+				cells[j] |= ((key >>> (bit * numberOfDimensions + j)) & 1L) << bit;
+			}
+		}
+		return cells;
+	}
+
+
+	/**
+	 * @return	1 if the cube is inside the box, -1 if it is outside, 0 if it crosses the border
+	 */
+	private int relate(long[] origin, long side, long[] low, long[] high) {
+		boolean inside = true;
+		for (int j = 0; j < numberOfDimensions; j++) {
+			long last = origin[j] + side - 1;
+			if (origin[j] > high[j] || last < low[j]) {
+				return -1;
+			}
+			inside &= low[j] <= origin[j] && last <= high[j];
+		}
+		return inside ? 1 : 0;
+	}
+
+
+	/**
+	 * @return	the covered ranges and the border cubes (of the given key size) as sorted,
+	 * 			disjoint ranges. adjacent ranges are joined.
+	 */
+	private static List<long[]> merge(List<long[]> covered, List<Long> border, long cubeKeys) {
+		List<long[]> ranges = new ArrayList<>(covered);
+		for (long cubeKey : border) {
+			ranges.add(new long[] { cubeKey, cubeKey + cubeKeys - 1 });
+		}
+		Collections.sort(ranges, (a, b) -> Long.compare(a[0], b[0]));
+		List<long[]> merged = new ArrayList<>();
+		for (long[] range : ranges) {
+			long[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+			if (last != null && last[1] + 1 >= range[0]) {
+				last[1] = Math.max(last[1], range[1]);
+			}
+			else {
+				merged.add(new long[] { range[0], range[1] });
+			}
+		}
+		return merged;
+	}
+
+}